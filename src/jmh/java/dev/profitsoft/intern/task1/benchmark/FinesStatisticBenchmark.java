@@ -0,0 +1,93 @@
+package dev.profitsoft.intern.task1.benchmark;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.ParserType;
+import dev.profitsoft.intern.task1.Task1;
+import dev.profitsoft.intern.task1.model.Fine;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link Task1#getFineStatistic(File, int, ParserType)} over fixtures generated with a fixed seed.
+ * {@code megabytes} and {@code records} are reported per second; with {@code -prof gc}
+ * the allocation per record is {@code gc.alloc.rate.norm} divided by {@code fileCount * finesPerFile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FinesStatisticBenchmark {
+
+    private static final long SEED = 20221129L;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"8"})
+    private int fileCount;
+
+    @Param({"100000"})
+    private int finesPerFile;
+
+    @Param({"JACKSON", "SCANNER", "CHUNKED_SCANNER", "COLUMNAR", "READ_AHEAD"})
+    private ParserType parser;
+
+    private File finesDirectory;
+    private long totalBytes;
+
+    @Setup(Level.Trial)
+    public void createFixtures() throws IOException {
+        finesDirectory = new File("target" + File.separator + "jmh-fines" + File.separator
+                + fileCount + "x" + finesPerFile + "-" + SEED);
+        if (!finesDirectory.exists()) {
+            FinesGenerator.createFineFiles(finesDirectory, fileCount, finesPerFile, SEED);
+        }
+
+        totalBytes = 0;
+        for (File fineFile : Task1.getFineFiles(finesDirectory)) {
+            totalBytes += fineFile.length();
+        }
+    }
+
+    @Benchmark
+    public List<Fine> fineStatistic(Throughput throughput) {
+        List<Fine> fineStatistic = Task1.getFineStatistic(finesDirectory, threads, parser);
+        throughput.megabytes += totalBytes / 1_000_000.0;
+        throughput.records += (long) fileCount * finesPerFile;
+        return fineStatistic;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+
+        public double megabytes;
+        public long records;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+            records = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+package dev.profitsoft.intern.task2.benchmark;
+
+import dev.profitsoft.intern.task2.ClassCreator;
+import dev.profitsoft.intern.task2.annotation.Property;
+import dev.profitsoft.intern.task2.exception.PropertyNotFoundException;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of binding one config object from already loaded properties, so file I/O is left out.
+ * {@code reflective} repeats the field scan, annotation lookups, {@code setAccessible} and formatter creation
+ * on every call, as {@link ClassCreator} did before binding plans; {@code cachedPlan} is the current
+ * {@link ClassCreator#fromProperties(Class, Properties)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ClassCreatorBenchmark {
+
+    private Properties properties;
+
+    @Setup
+    public void createProperties() {
+        properties = new Properties();
+        properties.setProperty("host", "localhost");
+        properties.setProperty("port", "8080");
+        properties.setProperty("tenant.name", "tenant-1");
+        properties.setProperty("maxConnections", "64");
+        properties.setProperty("validFrom", "29.11.2022 18:30");
+        properties.setProperty("validTo", "10.08.2023 12:20:13");
+    }
+
+    @Benchmark
+    public Config cachedPlan() {
+        return ClassCreator.fromProperties(Config.class, properties);
+    }
+
+    @Benchmark
+    public Config reflective() {
+        return ReflectiveBinder.bind(Config.class, properties);
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Config {
+
+        private String host;
+
+        private int port;
+
+        @Property(name = "tenant.name")
+        private String tenant;
+
+        private Integer maxConnections;
+
+        @Property(format = "dd.MM.yyyy HH:mm")
+        private Instant validFrom;
+
+        @Property
+        private Instant validTo;
+
+        private String unused;
+
+    }
+
+    private static class ReflectiveBinder {
+
+        static <T> T bind(Class<T> clazz, Properties properties) {
+            T instance;
+            try {
+                instance = clazz.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+
+            for (Field field : clazz.getDeclaredFields()) {
+                boolean annotated = field.isAnnotationPresent(Property.class);
+                if (!annotated && !properties.containsKey(field.getName())) {
+                    continue;
+                }
+                String name = field.getName();
+                if (annotated && !field.getAnnotation(Property.class).name().isBlank()) {
+                    name = field.getAnnotation(Property.class).name();
+                }
+                if (!properties.containsKey(name)) {
+                    throw new PropertyNotFoundException("Property '" + name + "' not found");
+                }
+
+                Class<?> type = field.getType();
+                Object value;
+                if (type == String.class) {
+                    value = properties.getProperty(name);
+                } else if (type == int.class || type == Integer.class) {
+                    value = Integer.parseInt(properties.getProperty(name));
+                } else if (type == Instant.class) {
+                    String pattern;
+                    try {
+                        pattern = annotated
+                                ? field.getAnnotation(Property.class).format()
+                                : (String) Property.class.getDeclaredMethod("format").getDefaultValue();
+                    } catch (NoSuchMethodException e) {
+                        throw new RuntimeException(e);
+                    }
+                    value = LocalDateTime.parse(properties.getProperty(name), DateTimeFormatter.ofPattern(pattern))
+                            .toInstant(ZoneOffset.UTC);
+                } else {
+                    continue;
+                }
+
+                field.setAccessible(true);
+                try {
+                    field.set(instance, value);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return instance;
+        }
+
+    }
+
+}
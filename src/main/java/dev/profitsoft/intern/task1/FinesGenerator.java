@@ -3,89 +3,197 @@ package dev.profitsoft.intern.task1;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import dev.profitsoft.intern.task1.model.Fine;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
 import dev.profitsoft.intern.task1.model.FineType;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 public class FinesGenerator {
 
-    private static int yearFrom = 2000;
+    private static final int yearFrom = 2000;
     private static final String[] firstNames = {"Ivan", "Petro", "Anton", "Alex", "Leo", "Tom"};
     private static final String[] lastNames = {"Ivanov", "Petrov", "Antonov", "Alexov", "Leonov", "Tomov"};
-    private static final double[] fineAmounts = {340.0, 1000.0, 610.0, 17000.0, 510.0, 700.0};
-    private static final Random random = new Random();
+    private static final String[] fineAmounts = {"340.0", "1000.0", "610.0", "17000.0", "510.0", "700.0"};
+    private static final FineType[] fineTypes = FineType.values();
+    private static final int PRETTY_BYTES_PER_FINE = 161;
+    private static final int COMPACT_BYTES_PER_FINE = 122;
     private static final JsonFactory jsonFactory = new JsonFactory();
-    private static final ObjectMapper OBJECT_MAPPER;
-    static {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
-        mapper.registerModule(new JavaTimeModule());
-
-        OBJECT_MAPPER = mapper;
-    }
 
     public static void createFineFiles(String finesRootDirectory) throws IOException {
         File finesDirectory = new File(finesRootDirectory);
         if (!finesDirectory.exists()) {
-            finesDirectory.mkdir();
             System.out.println("Started generating fines...");
+            int years = LocalDateTime.now().getYear() - yearFrom;
+            createFineFiles(FinesGeneratorConfig.builder()
+                    .directory(finesDirectory)
+                    .fileCount(years)
+                    .years(years)
+                    .build());
+            System.out.println("Finished generating fines.");
+        }
+    }
 
-            for (; yearFrom < LocalDateTime.now().getYear(); yearFrom++) {
-                JsonGenerator jsonGenerator = jsonFactory.createGenerator(
-                        new File(finesRootDirectory + yearFrom + "_fines.json"), JsonEncoding.UTF8);
-                jsonGenerator.setCodec(OBJECT_MAPPER);
-                jsonGenerator.writeStartObject();
-                jsonGenerator.writeFieldName("fines");
-                jsonGenerator.writeStartArray();
+    public static void createFineFiles(File finesDirectory, int fileCount, int finesPerFile, long seed) throws IOException {
+        createFineFiles(FinesGeneratorConfig.builder()
+                .directory(finesDirectory)
+                .fileCount(fileCount)
+                .finesPerFile(finesPerFile)
+                .years(fileCount)
+                .seed(seed)
+                .build());
+    }
+
+    /**
+     * Generates the files in parallel. Every file has its own random stream split from the seed,
+     * so the same config gives the same files with any number of threads.
+     */
+    public static List<File> createFineFiles(FinesGeneratorConfig config) throws IOException {
+        Files.createDirectories(config.getDirectory().toPath());
 
-                generateFines(jsonGenerator, 100_000);
+        int fileCount = getFileCount(config);
+        SplittableRandom seedRandom = new SplittableRandom(config.getSeed());
+        List<File> files = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(config.getThreads());
 
-                jsonGenerator.writeEndArray();
-                jsonGenerator.writeEndObject();
-                jsonGenerator.close();
+        try {
+            for (int i = 0; i < fileCount; i++) {
+                int year = config.getYearFrom() + i % config.getYears();
+                File file = new File(config.getDirectory(), getFileName(config, year, i / config.getYears()));
+                SplittableRandom random = seedRandom.split();
+                files.add(file);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        createFineFile(file, config, random, year);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executorService));
             }
-            System.out.println("Finished generating fines.");
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return files;
+    }
+
+    private static int getFileCount(FinesGeneratorConfig config) {
+        if (config.getTargetBytes() <= 0) {
+            return config.getFileCount();
+        }
+        long bytesPerFile = (long) config.getFinesPerFile()
+                * (config.isPretty() ? PRETTY_BYTES_PER_FINE : COMPACT_BYTES_PER_FINE);
+        return (int) Math.max(1, (config.getTargetBytes() + bytesPerFile - 1) / bytesPerFile);
+    }
+
+    private static String getFileName(FinesGeneratorConfig config, int year, int part) {
+        String name = part == 0 ? year + "_fines" : year + "_" + part + "_fines";
+        switch (config.getFormat()) {
+            case JSON_GZIP:
+                return name + ".json.gz";
+            case NDJSON:
+                return name + ".ndjson";
+            default:
+                return name + ".json";
+        }
+    }
+
+    private static void createFineFile(File file, FinesGeneratorConfig config, SplittableRandom random, int year) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 256 * 1024);
+        if (config.getFormat() == FinesGeneratorConfig.OutputFormat.JSON_GZIP) {
+            out = new GZIPOutputStream(out, 256 * 1024);
+        }
+
+        try (JsonGenerator jsonGenerator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            char[] dateTime = new char[19];
+            if (config.getFormat() == FinesGeneratorConfig.OutputFormat.NDJSON) {
+                jsonGenerator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                generateFines(jsonGenerator, config.getFinesPerFile(), random, year, dateTime);
+                jsonGenerator.writeRaw('\n');
+                return;
+            }
+
+            if (config.isPretty()) {
+                jsonGenerator.useDefaultPrettyPrinter();
+            }
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeFieldName("fines");
+            jsonGenerator.writeStartArray();
+
+            generateFines(jsonGenerator, config.getFinesPerFile(), random, year, dateTime);
+
+            jsonGenerator.writeEndArray();
+            jsonGenerator.writeEndObject();
         }
     }
 
-    private static void generateFines(JsonGenerator jsonGenerator, int howManyFines) throws IOException {
+    private static void generateFines(JsonGenerator jsonGenerator, int howManyFines, SplittableRandom random,
+                                      int year, char[] dateTime) throws IOException {
         for (int i = 0; i < howManyFines; i++) {
-            Fine fine = createRandomFine();
-            jsonGenerator.writeObject(fine);
+            writeRandomFine(jsonGenerator, random, year, dateTime);
         }
     }
 
-    private static Fine createRandomFine() {
-        Fine fine = new Fine();
-        fine.setDateTime(createRandomDateWithYear(yearFrom));
-        fine.setFirstName(firstNames[random.nextInt(firstNames.length)]);
-        fine.setLastName(lastNames[random.nextInt(lastNames.length)]);
-        int fineTypeIndex = random.nextInt(FineType.values().length);
-        fine.setType(FineType.values()[fineTypeIndex]);
-        fine.setFineAmount(BigDecimal.valueOf(fineAmounts[fineTypeIndex]));
+    private static void writeRandomFine(JsonGenerator jsonGenerator, SplittableRandom random, int year, char[] dateTime) throws IOException {
+        writeRandomDateWithYear(random, year, dateTime);
 
-        return fine;
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeFieldName("date_time");
+        jsonGenerator.writeString(dateTime, 0, dateTime.length);
+        jsonGenerator.writeStringField("first_name", firstNames[random.nextInt(firstNames.length)]);
+        jsonGenerator.writeStringField("last_name", lastNames[random.nextInt(lastNames.length)]);
+        int fineTypeIndex = random.nextInt(fineTypes.length);
+        jsonGenerator.writeStringField("type", fineTypes[fineTypeIndex].name());
+        jsonGenerator.writeFieldName("fine_amount");
+        jsonGenerator.writeNumber(fineAmounts[fineTypeIndex]);
+        jsonGenerator.writeEndObject();
     }
 
-    private static LocalDateTime createRandomDateWithYear(int year) {
+    private static void writeRandomDateWithYear(SplittableRandom random, int year, char[] dateTime) {
         int month = random.nextInt(12) + 1;
         int day = random.nextInt(28) + 1;
         int hour = random.nextInt(24);
         int minute = random.nextInt(60);
-        int second = random.nextInt( 60);
+        int second = random.nextInt(60);
 
-        return LocalDateTime.of(year, month, day, hour, minute, second);
+        writeDigits(dateTime, 0, year, 4);
+        dateTime[4] = '-';
+        writeDigits(dateTime, 5, month, 2);
+        dateTime[7] = '-';
+        writeDigits(dateTime, 8, day, 2);
+        dateTime[10] = ' ';
+        writeDigits(dateTime, 11, hour, 2);
+        dateTime[13] = ':';
+        writeDigits(dateTime, 14, minute, 2);
+        dateTime[16] = ':';
+        writeDigits(dateTime, 17, second, 2);
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
     }
 
 }
@@ -0,0 +1,48 @@
+package dev.profitsoft.intern.task1;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.io.File;
+
+@Value
+@Builder
+public class FinesGeneratorConfig {
+
+    public enum OutputFormat {
+        JSON, JSON_GZIP, NDJSON
+    }
+
+    File directory;
+
+    @Builder.Default
+    long seed = System.nanoTime();
+
+    @Builder.Default
+    int fileCount = 22;
+
+    @Builder.Default
+    int finesPerFile = 100_000;
+
+    /**
+     * Approximate total uncompressed size of the generated files in bytes, overrides {@code fileCount} when positive.
+     */
+    @Builder.Default
+    long targetBytes = 0;
+
+    @Builder.Default
+    boolean pretty = true;
+
+    @Builder.Default
+    OutputFormat format = OutputFormat.JSON;
+
+    @Builder.Default
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Builder.Default
+    int yearFrom = 2000;
+
+    @Builder.Default
+    int years = 22;
+
+}
@@ -0,0 +1,5 @@
+package dev.profitsoft.intern.task1;
+
+public enum ParserType {
+    JACKSON, SCANNER, CHUNKED_SCANNER, COLUMNAR, READ_AHEAD
+}
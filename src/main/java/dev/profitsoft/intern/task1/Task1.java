@@ -1,113 +1,487 @@
 package dev.profitsoft.intern.task1;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import dev.profitsoft.intern.task1.aggregate.AdaptiveAggregator;
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import dev.profitsoft.intern.task1.checkpoint.ResumableAggregator;
+import dev.profitsoft.intern.task1.columnar.ColumnarFinesReader;
+import dev.profitsoft.intern.task1.columnar.ColumnarFinesWriter;
+import dev.profitsoft.intern.task1.dedup.DistinctFines;
+import dev.profitsoft.intern.task1.dedup.FingerprintSet;
+import dev.profitsoft.intern.task1.distributed.FinesCoordinator;
+import dev.profitsoft.intern.task1.metrics.PipelineMetrics;
 import dev.profitsoft.intern.task1.model.Fine;
 import dev.profitsoft.intern.task1.model.FineType;
 import dev.profitsoft.intern.task1.model.FinesStatistic;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import dev.profitsoft.intern.task1.pipeline.GzipFinesPipeline;
+import dev.profitsoft.intern.task1.pipeline.ReadAheadPipeline;
+import dev.profitsoft.intern.task1.query.FineQuery;
+import dev.profitsoft.intern.task1.query.FineQueryEngine;
+import dev.profitsoft.intern.task1.query.QueryResult;
+import dev.profitsoft.intern.task1.report.ExternalSorter;
+import dev.profitsoft.intern.task1.report.OffenderFineStatisticCodec;
+import dev.profitsoft.intern.task1.report.StreamingXmlReportWriter;
+import dev.profitsoft.intern.task1.rollup.FineRollups;
+import dev.profitsoft.intern.task1.rollup.TopOffendersSketch;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.server.FinesHttpServer;
+import dev.profitsoft.intern.task1.spill.SpillingAggregator;
+import dev.profitsoft.intern.task1.stream.MonthlyWindows;
+import dev.profitsoft.intern.task1.stream.NdjsonTailer;
 
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class Task1 {
 
     private static final JsonFactory jsonFactory = new JsonFactory();
     private static final String finesRootDirectory = "." + File.separator + "fines" + File.separator;
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int ADAPTIVE_MAX_WORKERS_PER_CPU = 4;
+    private static final int GZIP_BUFFER_SIZE = 1024 * 1024;
+    private static final int GZIP_BUFFER_COUNT_PER_THREAD = 4;
+    private static final int READ_AHEAD_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int READ_AHEAD_BUFFER_COUNT_PER_THREAD = 2;
+    private static final long RESUMABLE_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int DEFAULT_SERVER_PORT = 8080;
+    private static final long SERVER_INGEST_INTERVAL_SECONDS = 10;
+    private static final String RUN_REPORT_FILE = "fines_run_report.json";
+    private static final int TOP_OFFENDERS_COUNT = 1000;
+    private static final int DEFAULT_TOP_OFFENDERS_CAPACITY = 100_000;
+    private static final int DEDUP_MIN_BYTES_PER_FINE = 64;
+    private static final long DEFAULT_GROUP_BY_MEMORY_BUDGET = 256L * 1024 * 1024;
+    private static final String OFFENDER_REPORT_FILE = "fines_by_offender.xml";
+    private static final long REPORT_ROW_BYTES = 400;
+    private static final Comparator<OffenderFineStatistic> OFFENDER_REPORT_ORDER =
+            Comparator.comparing(OffenderFineStatistic::getSum).reversed()
+                    .thenComparing(OffenderFineStatistic::getLastName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(OffenderFineStatistic::getFirstName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(OffenderFineStatistic::getDay, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private static final int FOLLOW_BUFFER_SIZE = 1024 * 1024;
+    private static final long FOLLOW_POLL_MILLIS = 500;
+    private static final long FOLLOW_ALLOWED_LATENESS_SECONDS = 24 * 60 * 60;
 
     public static void main(String[] args) throws IOException {
         FinesGenerator.createFineFiles(finesRootDirectory);
 
-        System.out.println("Time to process all files (22 files x 15 MB each):");
+        int serveIndex = Arrays.asList(args).indexOf("--serve");
+        if (serveIndex >= 0) {
+            int port = serveIndex + 1 < args.length && !args[serveIndex + 1].startsWith("--")
+                    ? Integer.parseInt(args[serveIndex + 1]) : DEFAULT_SERVER_PORT;
+            FinesHttpServer server = new FinesHttpServer(new File(finesRootDirectory), port,
+                    Runtime.getRuntime().availableProcessors(), SERVER_INGEST_INTERVAL_SECONDS);
+            server.start();
+            System.out.println("Serving fines statistic on http://localhost:" + server.getPort() + "/fines/totals");
+            return;
+        }
+
+        int followIndex = Arrays.asList(args).indexOf("--follow");
+        if (followIndex >= 0) {
+            if (followIndex + 1 >= args.length) {
+                throw new IllegalArgumentException("--follow needs the NDJSON file to follow");
+            }
+            followFines(new File(args[followIndex + 1]));
+            return;
+        }
+
+        int workersIndex = Arrays.asList(args).indexOf("--workers");
+        if (workersIndex >= 0) {
+            if (workersIndex + 1 >= args.length || args[workersIndex + 1].startsWith("--")) {
+                throw new IllegalArgumentException("--workers needs the number of workers");
+            }
+            int workerCount = Integer.parseInt(args[workersIndex + 1]);
+            if (workerCount < 1) {
+                throw new IllegalArgumentException("--workers needs at least one worker, got " + workerCount);
+            }
+            List<Fine> fineStatistic = getDistributedFineStatistic(new File(finesRootDirectory), workerCount,
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / workerCount));
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(fineStatistic);
+            return;
+        }
+
+        if (Arrays.asList(args).contains("--resumable")) {
+            List<File> fineFiles = Arrays.asList(getFineFiles(new File(finesRootDirectory)));
+            List<Fine> fineStatistic = getResumableFineStatistic(fineFiles, Runtime.getRuntime().availableProcessors());
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(fineStatistic);
+            ResumableAggregator.clearCheckpoints(fineFiles);
+            return;
+        }
 
-        // 1 thread
-        long start = System.currentTimeMillis();
-        List<Fine> fineStatistic = getFineStatistic(1);
-        System.out.println("1 thread: " + (System.currentTimeMillis() - start) + " ms.");
+        if (Arrays.asList(args).contains("--adaptive")) {
+            List<Fine> fineStatistic = getAdaptiveFineStatistic(new File(finesRootDirectory));
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(fineStatistic);
+            return;
+        }
+
+        if (Arrays.asList(args).contains("--gzip")) {
+            int nThreads = Runtime.getRuntime().availableProcessors();
+            GzipFinesPipeline pipeline = new GzipFinesPipeline(Math.max(1, nThreads / 2), nThreads,
+                    GZIP_BUFFER_COUNT_PER_THREAD * nThreads, GZIP_BUFFER_SIZE);
+            List<Fine> fineStatistic = pipeline.aggregate(
+                    Arrays.asList(getFineFiles(new File(finesRootDirectory), GzipFinesPipeline.EXTENSION))).toFines();
+            pipeline.getStageStatistics().forEach(System.out::println);
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(fineStatistic);
+            return;
+        }
+
+        if (Arrays.asList(args).contains("--rollups")) {
+            FinesStatistic finesStatistic = getFineRollups(
+                    new File(finesRootDirectory), Runtime.getRuntime().availableProcessors()).toFinesStatistic();
+            finesStatistic.getFinesStatistic().sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(finesStatistic);
+            return;
+        }
 
-        // 2 threads
-        start = System.currentTimeMillis();
-        fineStatistic = getFineStatistic(2);
-        System.out.println("2 threads: " + (System.currentTimeMillis() - start) + " ms.");
+        if (Arrays.asList(args).contains("--dedup")) {
+            DistinctFines distinctFines = getDistinctFineStatistic(
+                    new File(finesRootDirectory), Runtime.getRuntime().availableProcessors());
+            System.out.println("Skipped " + distinctFines.getDuplicateCount() + " duplicate fines");
+            List<Fine> fineStatistic = distinctFines.getTotals().toFines();
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(fineStatistic);
+            return;
+        }
+
+        int byOffenderIndex = Arrays.asList(args).indexOf("--by-offender");
+        if (byOffenderIndex >= 0) {
+            long budget = byOffenderIndex + 1 < args.length && !args[byOffenderIndex + 1].startsWith("--")
+                    ? Long.parseLong(args[byOffenderIndex + 1]) * 1024 * 1024 : DEFAULT_GROUP_BY_MEMORY_BUDGET;
+            SpillingAggregator.GroupBy groupBy = Arrays.asList(args).contains("--by-day")
+                    ? SpillingAggregator.GroupBy.OFFENDER_DAY : SpillingAggregator.GroupBy.OFFENDER;
+            writeOffenderReport(new File(finesRootDirectory), Runtime.getRuntime().availableProcessors(), groupBy,
+                    budget, new File(OFFENDER_REPORT_FILE));
+            return;
+        }
+
+        int topOffendersIndex = Arrays.asList(args).indexOf("--top-offenders");
+        if (topOffendersIndex >= 0) {
+            int capacity = topOffendersIndex + 1 < args.length && !args[topOffendersIndex + 1].startsWith("--")
+                    ? Integer.parseInt(args[topOffendersIndex + 1]) : DEFAULT_TOP_OFFENDERS_CAPACITY;
+            TopOffendersSketch sketch = getTopOffenders(
+                    new File(finesRootDirectory), Runtime.getRuntime().availableProcessors(), capacity);
+            List<Fine> fineStatistic = sketch.getTotals().toFines();
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            writeStatisticToXml(new FinesStatistic(fineStatistic, sketch.getTopOffenders(TOP_OFFENDERS_COUNT)));
+            return;
+        }
 
-        // 4 threads
-        start = System.currentTimeMillis();
-        fineStatistic = getFineStatistic(4);
-        System.out.println("4 threads: " + (System.currentTimeMillis() - start) + " ms.");
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.register();
+        try {
+            List<Fine> fineStatistic = getIncrementalFineStatistic(
+                    new File(finesRootDirectory), Runtime.getRuntime().availableProcessors(), metrics);
 
-        // 8 threads
-        start = System.currentTimeMillis();
-        fineStatistic = getFineStatistic(8);
-        System.out.println("8 threads: " + (System.currentTimeMillis() - start) + " ms.");
+            fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
+            long writeStart = System.nanoTime();
+            writeStatisticToXml(fineStatistic);
+            metrics.addWriteNanos(System.nanoTime() - writeStart);
+            metrics.finish();
+            metrics.writeReport(new File(RUN_REPORT_FILE));
+        } finally {
+            metrics.unregister();
+        }
+    }
 
-        fineStatistic.sort(Comparator.comparing(Fine::getFineAmount).reversed());
-        writeStatisticToXml(fineStatistic);
+    public static List<Fine> getFineStatistic(File finesDirectory, int nThreads, ParserType parserType) {
+        return getFineStatistic(finesDirectory, nThreads, parserType, new PipelineMetrics());
     }
 
-    private static List<Fine> getFineStatistic(int nThreads) {
-        Map<FineType, BigDecimal> finesAmountByType = new HashMap<>();
-        ExecutorService executorService = Executors.newFixedThreadPool(nThreads);
-        Lock lock = new ReentrantLock();
+    public static List<Fine> getFineStatistic(File finesDirectory, int nThreads, ParserType parserType,
+                                              PipelineMetrics metrics) {
+        List<File> fineFiles = Arrays.asList(getFineFiles(finesDirectory));
 
-        for (File fineFile : getFineFiles(new File(finesRootDirectory))) {
-            processFile(fineFile, executorService, lock, finesAmountByType);
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            switch (parserType) {
+                case SCANNER:
+                    return engine.aggregate(fineFiles,
+                            metrics.meter(FineScanner::scanFile, Function.identity(), File::length,
+                                    FinesAccumulator::getTotalCount),
+                            metrics.meter(FinesAccumulator::merge), FinesAccumulator::new).toFines();
+                case CHUNKED_SCANNER:
+                    return engine.aggregate(getFineChunks(fineFiles, nThreads),
+                            metrics.meter(FineChunk::scan, FineChunk::getFile, FineChunk::getSize,
+                                    FinesAccumulator::getTotalCount),
+                            metrics.meter(FinesAccumulator::merge), FinesAccumulator::new).toFines();
+                case COLUMNAR:
+                    return engine.aggregate(ColumnarFinesWriter.convertAll(fineFiles),
+                            metrics.meter(columnarFile -> ColumnarFinesReader.open(columnarFile).aggregate(),
+                                    Function.identity(), File::length, FinesAccumulator::getTotalCount),
+                            metrics.meter(FinesAccumulator::merge), FinesAccumulator::new).toFines();
+                case READ_AHEAD:
+                    return new ReadAheadPipeline(nThreads, READ_AHEAD_BUFFER_COUNT_PER_THREAD * nThreads,
+                            READ_AHEAD_BUFFER_SIZE).aggregate(fineFiles, metrics).toFines();
+                default:
+                    Map<FineType, BigDecimal> finesAmountByType = engine.aggregate(fineFiles,
+                            metrics.meter(fineFile -> processFile(fineFile, metrics), Function.identity(),
+                                    File::length, null),
+                            metrics.meter(Task1::mergeStatistic), HashMap::new);
+                    return finesAmountByType.entrySet().stream()
+                            .map(entry -> new Fine(entry.getKey(), entry.getValue()))
+                            .collect(Collectors.toList());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        executorService.shutdown();
+    /**
+     * Follows a growing NDJSON file and prints every monthly window once it closes, until the process is stopped.
+     * The open windows are printed after every poll that read lines, since a quiet stream never closes them.
+     */
+    public static void followFines(File ndjsonFile) {
+        MonthlyWindows windows = new MonthlyWindows(FOLLOW_ALLOWED_LATENESS_SECONDS,
+                window -> window.forEach(System.out::println));
+        NdjsonTailer tailer = new NdjsonTailer(ndjsonFile, windows, FOLLOW_BUFFER_SIZE);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            tailer.close();
+            windows.flush();
+        }));
+        tailer.start(FOLLOW_POLL_MILLIS,
+                () -> windows.getOpenWindows().forEach(window -> System.out.println("open " + window)));
+        System.out.println("Following '" + ndjsonFile + "'");
         try {
-            executorService.awaitTermination(5, TimeUnit.MINUTES);
+            new CountDownLatch(1).await();
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Aggregates the files in {@code workerCount} worker JVMs started on this host, see {@link FinesCoordinator}.
+     */
+    public static List<Fine> getDistributedFineStatistic(File finesDirectory, int workerCount, int threadsPerWorker) {
+        try (FinesCoordinator coordinator = new FinesCoordinator(0)) {
+            for (int i = 0; i < workerCount; i++) {
+                coordinator.startLocalWorker(threadsPerWorker);
+            }
+            return coordinator.aggregate(Arrays.asList(getFineFiles(finesDirectory))).toFines();
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
+    }
 
-        return finesAmountByType.entrySet().stream()
-                .map(entry -> new Fine(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+    /**
+     * Aggregates the files with a checkpoint after every {@code RESUMABLE_SEGMENT_SIZE} bytes of a file,
+     * so that after a failure the next call continues from the checkpoints. Malformed fines are quarantined.
+     */
+    public static List<Fine> getResumableFineStatistic(List<File> fineFiles, int nThreads) {
+        ResumableAggregator aggregator = new ResumableAggregator(RESUMABLE_SEGMENT_SIZE);
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            List<Fine> fineStatistic = engine.aggregate(fineFiles, aggregator::aggregate,
+                    FinesAccumulator::merge, FinesAccumulator::new).toFines();
+            System.out.println("Resumed " + aggregator.getResumedBytes() / (1024 * 1024) + " MB from checkpoints, "
+                    + aggregator.getQuarantined() + " malformed fines are in *" + ResumableAggregator.QUARANTINE_SUFFIX);
+            return fineStatistic;
+        }
     }
 
-    private static void processFile(File fineFile, ExecutorService executorService, Lock lock, Map<FineType, BigDecimal> allStatistic) {
-        CompletableFuture.supplyAsync(() -> {
-            Map<FineType, BigDecimal> finesAmountByType = new HashMap<>();
-            try {
-                JsonParser jsonParser = jsonFactory.createParser(fineFile);
-                checkCorrectedStartFile(jsonParser);
+    /**
+     * Starts from {@code availableProcessors()} workers and lets {@link AdaptiveAggregator} tune their number.
+     */
+    public static List<Fine> getAdaptiveFineStatistic(File finesDirectory) {
+        List<File> fineFiles = Arrays.asList(getFineFiles(finesDirectory));
+        int maxWorkers = ADAPTIVE_MAX_WORKERS_PER_CPU * Runtime.getRuntime().availableProcessors();
+
+        return new AdaptiveAggregator().aggregate(getFineChunks(fineFiles, maxWorkers), FineChunk::scanWithProgress,
+                FinesAccumulator::merge, FinesAccumulator::new).toFines();
+    }
+
+    /**
+     * Computes the totals and all the rollups of {@link FineRollups} in a single pass over the files.
+     */
+    public static FineRollups getFineRollups(File finesDirectory, int nThreads) {
+        List<File> fineFiles = Arrays.asList(getFineFiles(finesDirectory));
+
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            return engine.aggregate(getFineChunks(fineFiles, nThreads), chunk -> {
+                FineRollups rollups = new FineRollups();
+                chunk.scan(rollups);
+                return rollups;
+            }, FineRollups::merge, FineRollups::new);
+        }
+    }
 
-                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-                    Fine fine = readFine(jsonParser);
-                    finesAmountByType.merge(fine.getType(), fine.getFineAmount(), BigDecimal::add);
+    /**
+     * Totals in which a fine repeated in one or several files is counted once. All the chunks share one
+     * off-heap {@link FingerprintSet}, sized for the smallest possible fines in the given files.
+     */
+    public static DistinctFines getDistinctFineStatistic(File finesDirectory, int nThreads) {
+        List<File> fineFiles = Arrays.asList(getFineFiles(finesDirectory));
+        long totalBytes = 0;
+        for (File fineFile : fineFiles) {
+            totalBytes += fineFile.length();
+        }
+        FingerprintSet fingerprints = new FingerprintSet(totalBytes / DEDUP_MIN_BYTES_PER_FINE + 1);
+
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            return engine.aggregate(getFineChunks(fineFiles, nThreads), chunk -> {
+                DistinctFines distinctFines = new DistinctFines(fingerprints);
+                chunk.scan(distinctFines);
+                return distinctFines;
+            }, DistinctFines::merge, () -> new DistinctFines(fingerprints));
+        }
+    }
+
+    /**
+     * Writes exact count, sum, min and max per offender (or per offender and day) as XML, by descending sum
+     * and then by last name, first name and day, so the report is the same for any budget and thread count.
+     * Groups and then sorted rows are held within {@code memoryBudgetBytes}, the rest is spilled into a temporary
+     * directory: the sorter gets the half of the budget the workers of the aggregation used.
+     */
+    public static void writeOffenderReport(File finesDirectory, int nThreads, SpillingAggregator.GroupBy groupBy,
+                                           long memoryBudgetBytes, File reportFile) throws IOException {
+        long sortBudget = memoryBudgetBytes / 2;
+        int sortBufferRows = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, sortBudget / REPORT_ROW_BYTES));
+        int sortFanIn = (int) Math.max(2, Math.min(ExternalSorter.DEFAULT_MAX_FAN_IN,
+                sortBudget / (ExternalSorter.RUN_BUFFER_SIZE + REPORT_ROW_BYTES)));
+        List<File> fineFiles = Arrays.asList(getFineFiles(finesDirectory));
+        Path spillDirectory = Files.createTempDirectory("fines-spill");
+        try (SpillingAggregator aggregator = SpillingAggregator.aggregate(getFineChunks(fineFiles, nThreads), nThreads,
+                groupBy, memoryBudgetBytes, spillDirectory.toFile());
+             ExternalSorter<OffenderFineStatistic> sorter = new ExternalSorter<>(OFFENDER_REPORT_ORDER,
+                     new OffenderFineStatisticCodec(), sortBufferRows, sortFanIn, spillDirectory.toFile());
+             StreamingXmlReportWriter writer = new StreamingXmlReportWriter(reportFile)) {
+            aggregator.forEachGroup(sorter::add);
+            writer.startSection("by_offender");
+            sorter.forEachSorted(statistic -> writer.writeRow("offender", statistic));
+            writer.endSection();
+        } finally {
+            File[] leftovers = spillDirectory.toFile().listFiles();
+            if (leftovers != null) {
+                for (File leftover : leftovers) {
+                    leftover.delete();
+                }
+            }
+            Files.delete(spillDirectory);
+        }
+    }
+
+    /**
+     * Computes the totals and a {@link TopOffendersSketch} of {@code capacity} counters per chunk and merges the sketches.
+     */
+    public static TopOffendersSketch getTopOffenders(File finesDirectory, int nThreads, int capacity) {
+        List<File> fineFiles = Arrays.asList(getFineFiles(finesDirectory));
+
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            return engine.aggregate(getFineChunks(fineFiles, nThreads), chunk -> {
+                TopOffendersSketch sketch = new TopOffendersSketch(capacity);
+                chunk.scan(sketch);
+                return sketch;
+            }, TopOffendersSketch::merge, () -> new TopOffendersSketch(capacity));
+        }
+    }
+
+    /**
+     * Totals of the fines matching the query. Chunks that cannot match according to their zone maps are not read.
+     */
+    public static QueryResult queryFines(File finesDirectory, FineQuery query, int nThreads) {
+        return FineQueryEngine.query(Arrays.asList(getFineFiles(finesDirectory)), query, nThreads);
+    }
+
+    /**
+     * Scans only the files whose cached partial aggregate is missing or stale and merges the rest from the cache.
+     */
+    public static List<Fine> getIncrementalFineStatistic(File finesDirectory, int nThreads) {
+        return getIncrementalFineStatistic(finesDirectory, nThreads, new PipelineMetrics());
+    }
+
+    public static List<Fine> getIncrementalFineStatistic(File finesDirectory, int nThreads, PipelineMetrics metrics) {
+        FinesAccumulator allStatistic = new FinesAccumulator();
+
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            for (File fineFile : getFineFiles(finesDirectory)) {
+                PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+                FinesAccumulator finesAccumulator = PartialAggregateCache.load(fineFile, key);
+                if (finesAccumulator == null) {
+                    finesAccumulator = engine.aggregate(getFineChunks(List.of(fineFile), nThreads),
+                            metrics.meter(FineChunk::scan, FineChunk::getFile, FineChunk::getSize,
+                                    FinesAccumulator::getTotalCount),
+                            metrics.meter(FinesAccumulator::merge), FinesAccumulator::new);
+                    PartialAggregateCache.store(fineFile, key, finesAccumulator);
                 }
+                long mergeStart = System.nanoTime();
+                allStatistic.merge(finesAccumulator);
+                metrics.addMergeNanos(System.nanoTime() - mergeStart);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return allStatistic.toFines();
+    }
+
+    private static List<FineChunk> getFineChunks(List<File> fineFiles, int nThreads) {
+        long totalSize = 0;
+        for (File fineFile : fineFiles) {
+            totalSize += fineFile.length();
+        }
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, totalSize / (nThreads * CHUNKS_PER_THREAD)));
+
+        List<FineChunk> chunks = new ArrayList<>();
+        for (File fineFile : fineFiles) {
+            try {
+                chunks.addAll(FineFileSplitter.split(fineFile, chunkSize));
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
-            return finesAmountByType;
-        }, executorService).thenAccept(finesAmountByType -> {
-            lock.lock();
-            finesAmountByType.forEach((fineType, bigDecimal) ->
-                    allStatistic.merge(fineType, bigDecimal, BigDecimal::add));
-            lock.unlock();
-        });
+        }
+        return chunks;
+    }
+
+    private static Map<FineType, BigDecimal> processFile(File fineFile, PipelineMetrics metrics) throws IOException {
+        Map<FineType, BigDecimal> finesAmountByType = new HashMap<>();
+        long fineCount = 0;
+        try (JsonParser jsonParser = jsonFactory.createParser(fineFile)) {
+            checkCorrectedStartFile(jsonParser);
+
+            while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                Fine fine = readFine(jsonParser);
+                finesAmountByType.merge(fine.getType(), fine.getFineAmount(), BigDecimal::add);
+                fineCount++;
+            }
+        }
+        metrics.addRecords(fineFile, fineCount);
+        return finesAmountByType;
     }
 
-    private static File[] getFineFiles(File dir) {
-        String end = "fines.json";
+    private static Map<FineType, BigDecimal> mergeStatistic(Map<FineType, BigDecimal> statistic,
+                                                            Map<FineType, BigDecimal> other) {
+        other.forEach((fineType, bigDecimal) -> statistic.merge(fineType, bigDecimal, BigDecimal::add));
+        return statistic;
+    }
+
+    public static File[] getFineFiles(File dir) {
+        return getFineFiles(dir, "fines.json");
+    }
+
+    public static File[] getFineFiles(File dir, String end) {
         return dir.listFiles(file ->
                 !file.isDirectory() && file.getName().endsWith(end));
     }
@@ -160,12 +534,11 @@ public class Task1 {
     }
 
     private static void writeStatisticToXml(List<Fine> fineStatistic) throws IOException {
-        XmlMapper xmlMapper = new XmlMapper();
-        xmlMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        xmlMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        xmlMapper.configure(ToXmlGenerator.Feature.WRITE_XML_DECLARATION, true);
+        writeStatisticToXml(new FinesStatistic(fineStatistic));
+    }
 
-        xmlMapper.writeValue(new File("fines_statistic.xml"), new FinesStatistic(fineStatistic));
+    private static void writeStatisticToXml(FinesStatistic finesStatistic) throws IOException {
+        StreamingXmlReportWriter.getXmlMapper().writeValue(new File("fines_statistic.xml"), finesStatistic);
     }
 
 }
@@ -0,0 +1,192 @@
+package dev.profitsoft.intern.task1.aggregate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Aggregates work units on up to {@code maxWorkers} threads, of which only the first
+ * {@link ParallelismController#getWorkers()} take units. Units report their records while they run,
+ * so a window shorter than a unit still sees progress. After every window the records/s and
+ * the CPU share of the active workers are passed to the controller and every decision is logged.
+ */
+public class AdaptiveAggregator {
+
+    private final int initialWorkers;
+    private final int maxWorkers;
+    private final long windowMillis;
+    private final Consumer<String> log;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final Object monitor = new Object();
+    private volatile int activeWorkers;
+    private volatile boolean drained;
+
+    public AdaptiveAggregator(int initialWorkers, int maxWorkers, long windowMillis, Consumer<String> log) {
+        this.initialWorkers = initialWorkers;
+        this.maxWorkers = maxWorkers;
+        this.windowMillis = windowMillis;
+        this.log = log;
+    }
+
+    public AdaptiveAggregator() {
+        this(Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors(),
+                250, System.out::println);
+    }
+
+    public <T, A> A aggregate(List<T> units, ProgressAggregator<T, A> aggregator,
+                              BinaryOperator<A> combiner, Supplier<A> identity) {
+        ParallelismController controller = new ParallelismController(initialWorkers, 1, maxWorkers);
+        Queue<T> queue = new ConcurrentLinkedQueue<>(units);
+        LongAdder recordCounter = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(maxWorkers);
+        Object[] results = new Object[maxWorkers];
+        Thread[] workers = new Thread[maxWorkers];
+        activeWorkers = controller.getWorkers();
+        drained = false;
+
+        for (int i = 0; i < maxWorkers; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> {
+                try {
+                    A accumulator = identity.get();
+                    while (awaitTurn(index)) {
+                        T unit = queue.poll();
+                        if (unit == null) {
+                            break;
+                        }
+                        A partial = aggregator.aggregate(unit, recordCounter::add);
+                        accumulator = combiner.apply(accumulator, partial);
+                    }
+                    results[index] = accumulator;
+                } catch (IOException e) {
+                    failure.compareAndSet(null, new UncheckedIOException(e));
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    drain();
+                    finished.countDown();
+                }
+            }, "adaptive-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        try {
+            control(controller, workers, recordCounter, finished);
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            drain();
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure.get() != null) {
+            Throwable e = failure.get();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            throw new RuntimeException(e);
+        }
+
+        A result = identity.get();
+        for (Object partial : results) {
+            @SuppressWarnings("unchecked")
+            A typedPartial = (A) partial;
+            result = combiner.apply(result, typedPartial);
+        }
+        return result;
+    }
+
+    private void control(ParallelismController controller, Thread[] workers, LongAdder recordCounter,
+                         CountDownLatch finished) throws InterruptedException {
+        boolean cpuTimeSupported = threadMXBean.isThreadCpuTimeSupported();
+        long lastRecords = 0;
+        long lastCpu = cpuTime(workers, cpuTimeSupported);
+        long lastTime = System.nanoTime();
+        int window = 0;
+
+        while (!finished.await(windowMillis, TimeUnit.MILLISECONDS)) {
+            long now = System.nanoTime();
+            long recordCount = recordCounter.sum();
+            long cpu = cpuTime(workers, cpuTimeSupported);
+            long wall = now - lastTime;
+
+            double rate = (recordCount - lastRecords) * 1e9 / wall;
+            double cpuRatio = cpuTimeSupported ? (double) (cpu - lastCpu) / ((long) activeWorkers * wall) : 1;
+            int before = activeWorkers;
+            int after = controller.next(rate, cpuRatio);
+            log.accept(String.format("window %d: %.0f records/s, cpu %.0f%%, workers %d -> %d (%s)",
+                    ++window, rate, cpuRatio * 100, before, after, controller.getReason()));
+
+            if (after != before) {
+                synchronized (monitor) {
+                    activeWorkers = after;
+                    monitor.notifyAll();
+                }
+            }
+            lastRecords = recordCount;
+            lastCpu = cpu;
+            lastTime = now;
+        }
+    }
+
+    private boolean awaitTurn(int index) throws InterruptedException {
+        if (index < activeWorkers && !drained) {
+            return true;
+        }
+        synchronized (monitor) {
+            while (index >= activeWorkers && !drained) {
+                monitor.wait();
+            }
+            return !drained;
+        }
+    }
+
+    private void drain() {
+        synchronized (monitor) {
+            drained = true;
+            monitor.notifyAll();
+        }
+    }
+
+    private long cpuTime(Thread[] workers, boolean cpuTimeSupported) {
+        if (!cpuTimeSupported) {
+            return 0;
+        }
+        long total = 0;
+        for (Thread worker : workers) {
+            long cpu = threadMXBean.getThreadCpuTime(worker.getId());
+            if (cpu > 0) {
+                total += cpu;
+            }
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    public interface ProgressAggregator<T, A> {
+
+        /**
+         * Aggregates the unit and passes every batch of records it has done to {@code progress}.
+         */
+        A aggregate(T unit, LongConsumer progress) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package dev.profitsoft.intern.task1.aggregate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Aggregates work units on a work-stealing {@link ForkJoinPool}.
+ * Every unit is aggregated into its own partial result and the partials are combined
+ * pairwise up the fork/join tree, so no shared state and no lock is involved.
+ * {@link #aggregate} returns only after every unit is done and rethrows the first failure.
+ * Every unit is given to the aggregator with the time it was submitted, the start of that {@code aggregate} call.
+ */
+public class AggregationEngine implements AutoCloseable {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ForkJoinPool pool;
+
+    public AggregationEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public <T, A> A aggregate(List<T> units, PartialAggregator<T, A> aggregator,
+                              BinaryOperator<A> combiner, Supplier<A> identity) {
+        if (units.isEmpty()) {
+            return identity.get();
+        }
+        return pool.invoke(new AggregateTask<>(units, 0, units.size(), aggregator, combiner, System.nanoTime()));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    public interface PartialAggregator<T, A> {
+
+        A aggregate(T unit) throws IOException;
+
+        /**
+         * Aggregates a unit submitted at {@code submittedNanos} of {@link System#nanoTime()}.
+         */
+        default A aggregate(T unit, long submittedNanos) throws IOException {
+            return aggregate(unit);
+        }
+
+    }
+
+    private static class AggregateTask<T, A> extends RecursiveTask<A> {
+
+        private final List<T> units;
+        private final int from;
+        private final int to;
+        private final PartialAggregator<T, A> aggregator;
+        private final BinaryOperator<A> combiner;
+        private final long submittedNanos;
+
+        AggregateTask(List<T> units, int from, int to, PartialAggregator<T, A> aggregator, BinaryOperator<A> combiner,
+                      long submittedNanos) {
+            this.units = units;
+            this.from = from;
+            this.to = to;
+            this.aggregator = aggregator;
+            this.combiner = combiner;
+            this.submittedNanos = submittedNanos;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from == 1) {
+                try {
+                    return aggregator.aggregate(units.get(from), submittedNanos);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask<T, A> left = new AggregateTask<>(units, from, middle, aggregator, combiner, submittedNanos);
+            AggregateTask<T, A> right = new AggregateTask<>(units, middle, to, aggregator, combiner, submittedNanos);
+            left.fork();
+
+            A rightResult;
+            try {
+                rightResult = right.compute();
+            } catch (RuntimeException | Error e) {
+                left.cancel(false);
+                throw e;
+            }
+            return combiner.apply(left.join(), rightResult);
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package dev.profitsoft.intern.task1.aggregate;
+
+import dev.profitsoft.intern.task1.model.Fine;
+import dev.profitsoft.intern.task1.model.FineType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sum of fine amounts per {@link FineType}, indexed by ordinal.
+ * Amounts are kept as exact fixed-point {@code long} minor units with {@link #SCALE} fraction digits.
+ */
+public class FinesAccumulator {
+
+    public static final int SCALE = 2;
+    private static final FineType[] TYPES = FineType.values();
+
+    private final long[] amounts = new long[TYPES.length];
+    private final long[] counts = new long[TYPES.length];
+    private final int[] scales = new int[TYPES.length];
+
+    public void add(int typeOrdinal, long minorUnits, int scale) {
+        amounts[typeOrdinal] = addExact(typeOrdinal, amounts[typeOrdinal], minorUnits);
+        counts[typeOrdinal]++;
+        if (scale > scales[typeOrdinal]) {
+            scales[typeOrdinal] = scale;
+        }
+    }
+
+    public void add(int typeOrdinal, long minorUnits, long count, int scale) {
+        amounts[typeOrdinal] = addExact(typeOrdinal, amounts[typeOrdinal], minorUnits);
+        counts[typeOrdinal] += count;
+        if (scale > scales[typeOrdinal]) {
+            scales[typeOrdinal] = scale;
+        }
+    }
+
+    public FinesAccumulator merge(FinesAccumulator other) {
+        for (int i = 0; i < TYPES.length; i++) {
+            amounts[i] = addExact(i, amounts[i], other.amounts[i]);
+            counts[i] += other.counts[i];
+            scales[i] = Math.max(scales[i], other.scales[i]);
+        }
+        return this;
+    }
+
+    public long getCount(FineType type) {
+        return counts[type.ordinal()];
+    }
+
+    public long getMinorUnits(FineType type) {
+        return amounts[type.ordinal()];
+    }
+
+    public int getScale(FineType type) {
+        return scales[type.ordinal()];
+    }
+
+    public BigDecimal getAmount(FineType type) {
+        int i = type.ordinal();
+        return BigDecimal.valueOf(amounts[i], SCALE).setScale(scales[i], RoundingMode.UNNECESSARY);
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public List<Fine> toFines() {
+        List<Fine> fines = new ArrayList<>();
+        for (FineType type : TYPES) {
+            if (counts[type.ordinal()] > 0) {
+                fines.add(new Fine(type, getAmount(type)));
+            }
+        }
+        return fines;
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * Returns the scale {@code BigDecimal.valueOf(double)} gives for the amount, at least one fraction digit.
+     */
+    public static int scaleOf(BigDecimal amount) {
+        return Math.max(1, amount.stripTrailingZeros().scale());
+    }
+
+    /**
+     * Writes the non-empty types by name, so a reader does not depend on {@link FineType} ordinals.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int size = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                size++;
+            }
+        }
+        out.writeByte(size);
+        for (FineType type : TYPES) {
+            int i = type.ordinal();
+            if (counts[i] > 0) {
+                out.writeUTF(type.name());
+                out.writeLong(amounts[i]);
+                out.writeLong(counts[i]);
+                out.writeByte(scales[i]);
+            }
+        }
+    }
+
+    public static FinesAccumulator readFrom(DataInput in) throws IOException {
+        FinesAccumulator accumulator = new FinesAccumulator();
+        int size = in.readUnsignedByte();
+        for (int n = 0; n < size; n++) {
+            int i = FineType.valueOf(in.readUTF()).ordinal();
+            accumulator.amounts[i] = in.readLong();
+            accumulator.counts[i] = in.readLong();
+            accumulator.scales[i] = in.readUnsignedByte();
+        }
+        return accumulator;
+    }
+
+    private static long addExact(int typeOrdinal, long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Sum of fine amounts overflows for type " + TYPES[typeOrdinal]);
+        }
+    }
+
+}
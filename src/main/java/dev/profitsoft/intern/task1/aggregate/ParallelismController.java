@@ -0,0 +1,92 @@
+package dev.profitsoft.intern.task1.aggregate;
+
+/**
+ * Hill-climbing choice of the number of active workers from the throughput of consecutive windows.
+ * A change that raised the rate is repeated, a change that lowered it is undone.
+ * On a flat rate the controller adds workers while they wait on I/O and removes them while they are CPU bound,
+ * and it returns to the best known worker count once the rate falls well below the peak.
+ * A window without any progress carries no signal and keeps the workers and the climb as they are.
+ */
+public class ParallelismController {
+
+    private static final double TOLERANCE = 0.05;
+    private static final double PEAK_TOLERANCE = 0.15;
+    private static final double IO_BOUND_CPU_RATIO = 0.6;
+
+    private final int minWorkers;
+    private final int maxWorkers;
+    private int workers;
+    private int direction = 1;
+    private double previousRate;
+    private double peakRate;
+    private int peakWorkers;
+    private String reason = "start";
+
+    public ParallelismController(int initialWorkers, int minWorkers, int maxWorkers) {
+        if (minWorkers < 1 || maxWorkers < minWorkers) {
+            throw new IllegalArgumentException("Worker bounds should satisfy 1 <= min <= max");
+        }
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.workers = clamp(initialWorkers);
+        this.peakWorkers = workers;
+    }
+
+    /**
+     * @param rate     records per second in the last window
+     * @param cpuRatio CPU time of the active workers divided by their wall time in the last window
+     * @return number of workers for the next window
+     */
+    public int next(double rate, double cpuRatio) {
+        if (rate <= 0) {
+            reason = "no progress in window, keep";
+            return workers;
+        }
+        if (rate > peakRate) {
+            peakRate = rate;
+            peakWorkers = workers;
+        }
+
+        int next;
+        if (previousRate == 0) {
+            reason = "first window";
+            next = workers + direction;
+        } else if (rate < peakRate * (1 - PEAK_TOLERANCE) && workers != peakWorkers) {
+            reason = String.format("rate %.0f fell below peak %.0f, back to %d", rate, peakRate, peakWorkers);
+            direction = peakWorkers > workers ? 1 : -1;
+            next = peakWorkers;
+        } else if (rate > previousRate * (1 + TOLERANCE)) {
+            reason = "rate rose, keep direction";
+            next = workers + direction;
+        } else if (rate < previousRate * (1 - TOLERANCE)) {
+            direction = -direction;
+            reason = "rate fell, reverse";
+            next = workers + direction;
+        } else if (cpuRatio < IO_BOUND_CPU_RATIO) {
+            direction = 1;
+            reason = String.format("rate flat, cpu %.0f%% means waiting on I/O, grow", cpuRatio * 100);
+            next = workers + 1;
+        } else {
+            direction = -1;
+            reason = String.format("rate flat, cpu %.0f%% means CPU bound, shrink", cpuRatio * 100);
+            next = workers - 1;
+        }
+
+        previousRate = rate;
+        workers = clamp(next);
+        return workers;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minWorkers, Math.min(maxWorkers, value));
+    }
+
+}
@@ -0,0 +1,101 @@
+package dev.profitsoft.intern.task1.cache;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the partial aggregate of every fines file in a sidecar {@code <file>.partial}.
+ * A sidecar is used only while the file has the same path, size, modification time and content fingerprint.
+ * The fingerprint is a CRC32 of the first and the last {@link #SAMPLE_SIZE} bytes, so checking it does not read the file.
+ */
+public class PartialAggregateCache {
+
+    public static final String SUFFIX = ".partial";
+    private static final int MAGIC = 0x46494e45;
+    private static final int VERSION = 1;
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    public static FileKey keyOf(File fineFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fineFile, "r")) {
+            long size = file.length();
+            CRC32 crc = new CRC32();
+            byte[] sample = new byte[(int) Math.min(SAMPLE_SIZE, size)];
+            file.readFully(sample);
+            crc.update(sample);
+            if (size > SAMPLE_SIZE) {
+                sample = new byte[(int) Math.min(SAMPLE_SIZE, size - SAMPLE_SIZE)];
+                file.seek(size - sample.length);
+                file.readFully(sample);
+                crc.update(sample);
+            }
+            return new FileKey(fineFile.getCanonicalPath(), size, fineFile.lastModified(), crc.getValue());
+        }
+    }
+
+    /**
+     * Returns the cached partial aggregate or {@code null} if there is no valid one for the key.
+     */
+    public static FinesAccumulator load(File fineFile, FileKey key) {
+        File sidecar = sidecarOf(fineFile);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            FileKey cachedKey = new FileKey(in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+            if (!cachedKey.equals(key)) {
+                return null;
+            }
+            return FinesAccumulator.readFrom(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static void store(File fineFile, FileKey key, FinesAccumulator accumulator) throws IOException {
+        Path sidecar = sidecarOf(fineFile).toPath();
+        Path temp = Files.createTempFile(sidecar.getParent(), fineFile.getName(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key.getPath());
+            out.writeLong(key.getSize());
+            out.writeLong(key.getLastModified());
+            out.writeLong(key.getFingerprint());
+            accumulator.writeTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static File sidecarOf(File fineFile) {
+        return new File(fineFile.getAbsoluteFile().getParentFile(), fineFile.getName() + SUFFIX);
+    }
+
+    @Value
+    public static class FileKey {
+
+        String path;
+        long size;
+        long lastModified;
+        long fingerprint;
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package dev.profitsoft.intern.task1.checkpoint;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Progress of a fines file kept in a sidecar {@code <file>.checkpoint}: every fine before {@code offset}
+ * is either in {@code statistic} or among the first {@code quarantineLength} bytes of the quarantine file.
+ * Like {@link PartialAggregateCache}, a checkpoint is used only while its {@link PartialAggregateCache.FileKey} matches.
+ */
+@Value
+public class FileCheckpoint {
+
+    public static final String SUFFIX = ".checkpoint";
+    private static final int MAGIC = 0x43484b50;
+    private static final int VERSION = 1;
+
+    PartialAggregateCache.FileKey key;
+    long offset;
+    long quarantined;
+    long quarantineLength;
+    FinesAccumulator statistic;
+
+    /**
+     * Returns the checkpoint of the file or {@code null} if there is no valid one for the key.
+     */
+    public static FileCheckpoint load(File fineFile, PartialAggregateCache.FileKey key) {
+        File sidecar = sidecarOf(fineFile);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            PartialAggregateCache.FileKey cachedKey =
+                    new PartialAggregateCache.FileKey(in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+            if (!cachedKey.equals(key)) {
+                return null;
+            }
+            return new FileCheckpoint(cachedKey, in.readLong(), in.readLong(), in.readLong(),
+                    FinesAccumulator.readFrom(in));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the previous checkpoint atomically, so a crash leaves either the old or the new one.
+     */
+    public void store(File fineFile) throws IOException {
+        Path sidecar = sidecarOf(fineFile).toPath();
+        Path temp = Files.createTempFile(sidecar.getParent(), fineFile.getName(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key.getPath());
+            out.writeLong(key.getSize());
+            out.writeLong(key.getLastModified());
+            out.writeLong(key.getFingerprint());
+            out.writeLong(offset);
+            out.writeLong(quarantined);
+            out.writeLong(quarantineLength);
+            statistic.writeTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void delete(File fineFile) throws IOException {
+        Files.deleteIfExists(sidecarOf(fineFile).toPath());
+    }
+
+    public static File sidecarOf(File fineFile) {
+        return new File(fineFile.getAbsoluteFile().getParentFile(), fineFile.getName() + SUFFIX);
+    }
+
+}
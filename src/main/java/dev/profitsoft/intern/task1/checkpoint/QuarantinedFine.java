@@ -0,0 +1,15 @@
+package dev.profitsoft.intern.task1.checkpoint;
+
+import lombok.Value;
+
+/**
+ * Malformed fine written as one JSON line to {@code <file>.quarantine}.
+ */
+@Value
+public class QuarantinedFine {
+
+    long offset;
+    String error;
+    String record;
+
+}
@@ -0,0 +1,212 @@
+package dev.profitsoft.intern.task1.checkpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates a fines file segment by segment and stores a {@link FileCheckpoint} after every segment,
+ * so a failed run resumes from the last committed offset instead of byte 0.
+ * A segment is scanned with the fast path first. If that fails, the segment is scanned again fine by fine,
+ * and every malformed fine is appended to {@code <file>.quarantine} instead of failing the file.
+ */
+public class ResumableAggregator {
+
+    public static final String QUARANTINE_SUFFIX = ".quarantine";
+    private static final ObjectMapper quarantineMapper = new ObjectMapper();
+
+    private final long segmentSize;
+    private final LongAdder quarantined = new LongAdder();
+    private final LongAdder resumedBytes = new LongAdder();
+
+    public ResumableAggregator(long segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public FinesAccumulator aggregate(File fineFile) throws IOException {
+        PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+        List<FineChunk> segments = FineFileSplitter.split(fineFile, segmentSize);
+        File quarantineFile = quarantineOf(fineFile);
+
+        FileCheckpoint checkpoint = FileCheckpoint.load(fineFile, key);
+        if (checkpoint == null || !isSegmentBoundary(segments, checkpoint.getOffset(), key.getSize())) {
+            checkpoint = new FileCheckpoint(key, 0, 0, 0, new FinesAccumulator());
+        }
+        resumedBytes.add(checkpoint.getOffset());
+        quarantined.add(checkpoint.getQuarantined());
+        truncate(quarantineFile, checkpoint.getQuarantineLength());
+
+        FinesAccumulator statistic = checkpoint.getStatistic();
+        long fileQuarantined = checkpoint.getQuarantined();
+        long offset = checkpoint.getOffset();
+        for (FineChunk segment : segments) {
+            if (segment.getStart() < offset) {
+                continue;
+            }
+            fileQuarantined += scanSegment(segment, statistic, quarantineFile);
+            checkpoint = new FileCheckpoint(key, segment.getEnd(), fileQuarantined, quarantineFile.length(), statistic);
+            checkpoint.store(fineFile);
+        }
+        return statistic;
+    }
+
+    /**
+     * Number of fines quarantined by the files aggregated so far, including those before a resume.
+     */
+    public long getQuarantined() {
+        return quarantined.sum();
+    }
+
+    /**
+     * Number of bytes that were not read again thanks to the checkpoints.
+     */
+    public long getResumedBytes() {
+        return resumedBytes.sum();
+    }
+
+    /**
+     * Deletes the checkpoints once the whole job is done, so the next run reads the files again.
+     */
+    public static void clearCheckpoints(List<File> fineFiles) throws IOException {
+        for (File fineFile : fineFiles) {
+            FileCheckpoint.delete(fineFile);
+        }
+    }
+
+    public static File quarantineOf(File fineFile) {
+        return new File(fineFile.getAbsoluteFile().getParentFile(), fineFile.getName() + QUARANTINE_SUFFIX);
+    }
+
+    private long scanSegment(FineChunk segment, FinesAccumulator statistic, File quarantineFile) throws IOException {
+        ByteBuffer buffer = segment.map();
+        FinesAccumulator segmentStatistic = new FinesAccumulator();
+        try {
+            new FineScanner(buffer, 0, buffer.limit()).scan(segmentStatistic);
+            statistic.merge(segmentStatistic);
+            return 0;
+        } catch (RuntimeException e) {
+            return scanSegmentFineByFine(segment, buffer, statistic, quarantineFile);
+        }
+    }
+
+    private long scanSegmentFineByFine(FineChunk segment, ByteBuffer buffer, FinesAccumulator statistic,
+                                       File quarantineFile) throws IOException {
+        FinesAccumulator segmentStatistic = new FinesAccumulator();
+        int[] lastFineEnd = new int[1];
+        long segmentQuarantined = 0;
+        int from = 0;
+
+        while (from < buffer.limit()) {
+            lastFineEnd[0] = from;
+            FineScanner scanner = new FineScanner(buffer, from, buffer.limit());
+            try {
+                scanner.scan(fine -> {
+                    segmentStatistic.add(fine.getTypeOrdinal(), fine.getMinorUnits(), fine.getScale());
+                    lastFineEnd[0] = fine.getFineEnd();
+                });
+                break;
+            } catch (RuntimeException e) {
+                int badStart = skipSeparators(buffer, lastFineEnd[0]);
+                if (badStart >= buffer.limit()) {
+                    throw e;
+                }
+                int next = findNextFineStart(buffer, badStart + 1);
+                int badEnd = next < 0 ? buffer.limit() : next;
+                quarantine(quarantineFile, segment.getStart() + badStart, e, buffer, badStart, badEnd);
+                segmentQuarantined++;
+                from = badEnd;
+            }
+        }
+
+        statistic.merge(segmentStatistic);
+        quarantined.add(segmentQuarantined);
+        return segmentQuarantined;
+    }
+
+    private static void quarantine(File quarantineFile, long offset, RuntimeException error, ByteBuffer buffer,
+                                   int start, int end) throws IOException {
+        byte[] record = new byte[end - start];
+        for (int i = 0; i < record.length; i++) {
+            record[i] = buffer.get(start + i);
+        }
+        String line = quarantineMapper.writeValueAsString(new QuarantinedFine(offset, error.getMessage(),
+                stripSeparators(new String(record, StandardCharsets.UTF_8)))) + System.lineSeparator();
+        try (FileChannel channel = FileChannel.open(quarantineFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Returns the position of the {@code {} of the first {@code },{} at or after {@code from}, or -1 if there is none.
+     */
+    static int findNextFineStart(ByteBuffer buffer, int from) {
+        int state = 0;
+        for (int i = from; i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+            if (b == '}') {
+                state = 1;
+            } else if (b == ',' && state == 1) {
+                state = 2;
+            } else if (b == '{' && state == 2) {
+                return i;
+            } else if (!isWhitespace(b)) {
+                state = 0;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSeparators(ByteBuffer buffer, int position) {
+        while (position < buffer.limit() && (buffer.get(position) == ',' || isWhitespace(buffer.get(position)))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static String stripSeparators(String record) {
+        String stripped = record.strip();
+        while (stripped.endsWith(",")) {
+            stripped = stripped.substring(0, stripped.length() - 1).strip();
+        }
+        return stripped;
+    }
+
+    private static boolean isSegmentBoundary(List<FineChunk> segments, long offset, long size) {
+        if (offset == 0 || offset == size) {
+            return true;
+        }
+        for (FineChunk segment : segments) {
+            if (segment.getStart() == offset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void truncate(File quarantineFile, long length) throws IOException {
+        if (!quarantineFile.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(quarantineFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+}
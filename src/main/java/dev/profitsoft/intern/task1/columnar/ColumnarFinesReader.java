@@ -0,0 +1,152 @@
+package dev.profitsoft.intern.task1.columnar;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Memory-mapped reader of the format written by {@link ColumnarFinesWriter}.
+ * Every column is mapped on its own, so a scan touches only the pages of the columns it reads.
+ */
+public class ColumnarFinesReader {
+
+    private final File file;
+    private final int count;
+    private final FineType[] types;
+    private final int[] scales;
+    private final String[] names;
+
+    private final LongBuffer dates;
+    private final IntBuffer amounts;
+    private final IntBuffer firstNames;
+    private final IntBuffer lastNames;
+    private final ByteBuffer typeIndexes;
+
+    private ColumnarFinesReader(File file, int count, FineType[] types, int[] scales, String[] names, long[] offsets)
+            throws IOException {
+        this.file = file;
+        this.count = count;
+        this.types = types;
+        this.scales = scales;
+        this.names = names;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            this.dates = map(channel, offsets[0], (long) count * Long.BYTES).asLongBuffer();
+            this.amounts = map(channel, offsets[1], (long) count * Integer.BYTES).asIntBuffer();
+            this.firstNames = map(channel, offsets[2], (long) count * Integer.BYTES).asIntBuffer();
+            this.lastNames = map(channel, offsets[3], (long) count * Integer.BYTES).asIntBuffer();
+            this.typeIndexes = map(channel, offsets[4], count);
+        }
+    }
+
+    public static ColumnarFinesReader open(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != ColumnarFinesWriter.MAGIC || in.readInt() != ColumnarFinesWriter.VERSION) {
+                throw new IllegalStateException("File '" + file.getName() + "' is not a columnar fines file");
+            }
+            long count = in.readLong();
+            if (count * Long.BYTES > Integer.MAX_VALUE) {
+                throw new IllegalStateException("File '" + file.getName() + "' has too many fines to map");
+            }
+
+            int typeCount = in.readUnsignedByte();
+            FineType[] types = new FineType[typeCount];
+            int[] scales = new int[typeCount];
+            for (int i = 0; i < typeCount; i++) {
+                types[i] = FineType.valueOf(in.readUTF());
+                scales[i] = in.readUnsignedByte();
+            }
+
+            String[] names = new String[in.readInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+            }
+
+            long[] offsets = new long[5];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new ColumnarFinesReader(file, (int) count, types, scales, names, offsets);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sums the fines in {@code [from, to)} reading only the type and amount columns.
+     */
+    public FinesAccumulator aggregate(int from, int to) {
+        long[] sums = new long[types.length];
+        long[] counts = new long[types.length];
+        for (int i = from; i < to; i++) {
+            int typeIndex = typeIndexes.get(i);
+            sums[typeIndex] += amounts.get(i);
+            counts[typeIndex]++;
+        }
+
+        FinesAccumulator accumulator = new FinesAccumulator();
+        for (int i = 0; i < types.length; i++) {
+            if (counts[i] > 0) {
+                accumulator.add(types[i].ordinal(), sums[i], counts[i], scales[i]);
+            }
+        }
+        return accumulator;
+    }
+
+    public FinesAccumulator aggregate() {
+        return aggregate(0, count);
+    }
+
+    public FineType getType(int index) {
+        return types[typeIndexes.get(index)];
+    }
+
+    public long getAmountMinorUnits(int index) {
+        return amounts.get(index);
+    }
+
+    public long getEpochSecond(int index) {
+        return dates.get(index);
+    }
+
+    public LocalDateTime getDateTime(int index) {
+        long epochSecond = dates.get(index);
+        return epochSecond == ColumnarFinesWriter.NO_DATE
+                ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    public int getFirstNameId(int index) {
+        return firstNames.get(index);
+    }
+
+    public int getLastNameId(int index) {
+        return lastNames.get(index);
+    }
+
+    public String getName(int nameId) {
+        return nameId == ColumnarFinesWriter.NO_NAME ? null : names[nameId];
+    }
+
+    private static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+    }
+
+}
@@ -0,0 +1,207 @@
+package dev.profitsoft.intern.task1.columnar;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.Fine;
+import dev.profitsoft.intern.task1.model.FineType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts a {@code *_fines.json} file into the columnar {@code *_fines.fcol} format read by {@link ColumnarFinesReader}.
+ *
+ * <pre>
+ * int magic, int version, long count
+ * byte typeCount, typeCount x (UTF name, byte scale)
+ * int dictionarySize, dictionarySize x UTF name
+ * long offsets of the columns: date_time, fine_amount, first_name, last_name, type
+ * long[count] date_time as UTC epoch seconds
+ * int[count] fine_amount in minor units
+ * int[count] first_name dictionary id
+ * int[count] last_name dictionary id
+ * byte[count] type index in the type table
+ * </pre>
+ */
+public class ColumnarFinesWriter {
+
+    public static final String EXTENSION = ".fcol";
+    static final int MAGIC = 0x46434f4c;
+    static final int VERSION = 1;
+    static final long NO_DATE = Long.MIN_VALUE;
+    static final int NO_NAME = -1;
+
+    private static final ObjectMapper OBJECT_MAPPER;
+    static {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.registerModule(new JavaTimeModule());
+
+        OBJECT_MAPPER = mapper;
+    }
+
+    public static File columnarFileOf(File jsonFile) {
+        String name = jsonFile.getName();
+        return new File(jsonFile.getAbsoluteFile().getParentFile(),
+                name.substring(0, name.length() - ".json".length()) + EXTENSION);
+    }
+
+    /**
+     * Converts every JSON file which has no columnar copy or is newer than it.
+     *
+     * @return the columnar files of all the given JSON files
+     */
+    public static List<File> convertAll(List<File> jsonFiles) throws IOException {
+        List<File> columnarFiles = new ArrayList<>();
+        for (File jsonFile : jsonFiles) {
+            File columnarFile = columnarFileOf(jsonFile);
+            if (!columnarFile.isFile() || columnarFile.lastModified() < jsonFile.lastModified()) {
+                convert(jsonFile, columnarFile);
+            }
+            columnarFiles.add(columnarFile);
+        }
+        return columnarFiles;
+    }
+
+    public static void convert(File jsonFile, File columnarFile) throws IOException {
+        Path directory = columnarFile.getAbsoluteFile().getParentFile().toPath();
+        Path dates = Files.createTempFile(directory, "dates", ".tmp");
+        Path amounts = Files.createTempFile(directory, "amounts", ".tmp");
+        Path firstNames = Files.createTempFile(directory, "first_names", ".tmp");
+        Path lastNames = Files.createTempFile(directory, "last_names", ".tmp");
+        Path types = Files.createTempFile(directory, "types", ".tmp");
+        Path result = Files.createTempFile(directory, columnarFile.getName(), ".tmp");
+
+        try {
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            int[] scales = new int[FineType.values().length];
+            long count = 0;
+
+            try (JsonParser jsonParser = OBJECT_MAPPER.getFactory().createParser(jsonFile);
+                 DataOutputStream datesOut = open(dates);
+                 DataOutputStream amountsOut = open(amounts);
+                 DataOutputStream firstNamesOut = open(firstNames);
+                 DataOutputStream lastNamesOut = open(lastNames);
+                 DataOutputStream typesOut = open(types)) {
+                checkCorrectedStartFile(jsonParser);
+
+                while (jsonParser.nextToken() == JsonToken.START_OBJECT) {
+                    Fine fine = jsonParser.readValueAs(Fine.class);
+                    if (fine.getType() == null || fine.getFineAmount() == null) {
+                        throw new IllegalStateException("Fine should contain type and fine_amount");
+                    }
+
+                    datesOut.writeLong(fine.getDateTime() == null
+                            ? NO_DATE : fine.getDateTime().toEpochSecond(ZoneOffset.UTC));
+                    amountsOut.writeInt(Math.toIntExact(FinesAccumulator.toMinorUnits(fine.getFineAmount())));
+                    firstNamesOut.writeInt(nameId(fine.getFirstName(), dictionary, names));
+                    lastNamesOut.writeInt(nameId(fine.getLastName(), dictionary, names));
+                    typesOut.writeByte(fine.getType().ordinal());
+
+                    int ordinal = fine.getType().ordinal();
+                    scales[ordinal] = Math.max(scales[ordinal], FinesAccumulator.scaleOf(fine.getFineAmount()));
+                    count++;
+                }
+            }
+
+            byte[] header = header(count, scales, names);
+            try (FileChannel out = FileChannel.open(result, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(out, header);
+                for (Path column : List.of(dates, amounts, firstNames, lastNames, types)) {
+                    try (FileChannel in = FileChannel.open(column, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            }
+            Files.move(result, columnarFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            for (Path temp : List.of(dates, amounts, firstNames, lastNames, types, result)) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static byte[] header(long count, int[] scales, List<String> names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(count);
+        FineType[] fineTypes = FineType.values();
+        out.writeByte(fineTypes.length);
+        for (FineType type : fineTypes) {
+            out.writeUTF(type.name());
+            out.writeByte(scales[type.ordinal()]);
+        }
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+
+        long datesOffset = out.size() + 5L * Long.BYTES;
+        long amountsOffset = datesOffset + count * Long.BYTES;
+        long firstNamesOffset = amountsOffset + count * Integer.BYTES;
+        long lastNamesOffset = firstNamesOffset + count * Integer.BYTES;
+        long typesOffset = lastNamesOffset + count * Integer.BYTES;
+        out.writeLong(datesOffset);
+        out.writeLong(amountsOffset);
+        out.writeLong(firstNamesOffset);
+        out.writeLong(lastNamesOffset);
+        out.writeLong(typesOffset);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static int nameId(String name, Map<String, Integer> dictionary, List<String> names) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        return dictionary.computeIfAbsent(name, key -> {
+            names.add(key);
+            return names.size() - 1;
+        });
+    }
+
+    private static void checkCorrectedStartFile(JsonParser jsonParser) throws IOException {
+        if (jsonParser.nextToken() != JsonToken.START_OBJECT
+                || !"fines".equals(jsonParser.nextFieldName())
+                || jsonParser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalStateException("File should start like {\"fines\":[");
+        }
+    }
+
+    private static DataOutputStream open(Path path) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package dev.profitsoft.intern.task1.dedup;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Totals of the fines seen for the first time across all workers sharing one {@link FingerprintSet}.
+ * A fine is identified by a 64-bit fingerprint of {@code date_time}, {@code first_name}, {@code last_name},
+ * {@code type} and {@code fine_amount}, computed from the scanned bytes without building a {@code Fine}.
+ * Amounts are compared as minor units, so {@code 100} and {@code 100.00} are the same fine.
+ * Two different fines share a fingerprint with a probability of about {@code n^2 / 2^65}.
+ */
+public class DistinctFines implements FineVisitor {
+
+    private static final long NULL_FIELD = 0x9e3779b97f4a7c15L;
+
+    private final FingerprintSet fingerprints;
+    private final FinesAccumulator totals = new FinesAccumulator();
+    private long duplicateCount;
+
+    public DistinctFines(FingerprintSet fingerprints) {
+        this.fingerprints = fingerprints;
+    }
+
+    @Override
+    public void visit(FineScanner fine) {
+        if (fingerprints.add(fingerprintOf(fine))) {
+            totals.add(fine.getTypeOrdinal(), fine.getMinorUnits(), fine.getScale());
+        } else {
+            duplicateCount++;
+        }
+    }
+
+    public DistinctFines merge(DistinctFines other) {
+        totals.merge(other.totals);
+        duplicateCount += other.duplicateCount;
+        return this;
+    }
+
+    public FinesAccumulator getTotals() {
+        return totals;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    static long fingerprintOf(FineScanner fine) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mixLong(hash, fine.hasDateTime() ? fine.getEpochSecond() : NULL_FIELD);
+        hash = hashRange(hash, fine.getBuffer(), fine.getFirstNameStart(), fine.getFirstNameEnd());
+        hash = hashRange(hash, fine.getBuffer(), fine.getLastNameStart(), fine.getLastNameEnd());
+        hash = mixLong(hash, fine.getTypeOrdinal());
+        hash = mixLong(hash, fine.getMinorUnits());
+        return finish(hash);
+    }
+
+    private static long hashRange(long hash, ByteBuffer buffer, int start, int end) {
+        if (start < 0) {
+            return mixLong(hash, NULL_FIELD);
+        }
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ (buffer.get(i) & 0xff)) * 0x100000001b3L;
+        }
+        return mixLong(hash, end - start);
+    }
+
+    private static long mixLong(long hash, long value) {
+        return (hash ^ finish(value)) * 0x100000001b3L;
+    }
+
+    private static long finish(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+}
@@ -0,0 +1,108 @@
+package dev.profitsoft.intern.task1.dedup;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open-addressing set of 64-bit fingerprints in direct buffers, 8 bytes per slot outside the heap.
+ * Slots are claimed with a compare-and-set, so any number of threads can add at once without locks.
+ * A table larger than one buffer can address is split into power-of-two shards selected by the high bits
+ * of the fingerprint, each probed by the low bits and with its own size counter.
+ * The table does not grow: it is sized up front and no shard may fill beyond {@link #MAX_LOAD}.
+ */
+public class FingerprintSet {
+
+    static final double MAX_LOAD = 0.75;
+    static final int MAX_SHARD_SLOTS = 1 << 26;
+    private static final long EMPTY = 0;
+    private static final VarHandle SLOTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Shard[] shards;
+    private final int shardShift;
+    private final int mask;
+
+    public FingerprintSet(long expectedSize) {
+        this(expectedSize, MAX_SHARD_SLOTS);
+    }
+
+    FingerprintSet(long expectedSize, int maxShardSlots) {
+        long capacity = Long.highestOneBit(Math.max(16, (long) Math.ceil(expectedSize / MAX_LOAD)) - 1) << 1;
+        int shardSlots = (int) Math.min(capacity, Integer.highestOneBit(maxShardSlots));
+        if (capacity / shardSlots > Integer.highestOneBit(Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Fingerprint set for " + expectedSize + " fines is too large");
+        }
+        int shardCount = (int) (capacity / shardSlots);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardSlots);
+        }
+        this.shardShift = Long.SIZE - Integer.numberOfTrailingZeros(shardCount);
+        this.mask = shardSlots - 1;
+    }
+
+    /**
+     * Adds the fingerprint and returns {@code true} if no thread has added it before.
+     */
+    public boolean add(long fingerprint) {
+        if (fingerprint == EMPTY) {
+            fingerprint = 1;
+        }
+        Shard shard = shards[shards.length == 1 ? 0 : (int) (fingerprint >>> shardShift)];
+        int slot = (int) fingerprint & mask;
+        while (true) {
+            int offset = slot << 3;
+            long current = (long) SLOTS.getVolatile(shard.slots, offset);
+            if (current == fingerprint) {
+                return false;
+            }
+            if (current == EMPTY) {
+                if (SLOTS.compareAndSet(shard.slots, offset, EMPTY, fingerprint)) {
+                    if (shard.size.incrementAndGet() > shard.maxSize) {
+                        throw new IllegalStateException("Fingerprint set is full, each of its " + shards.length
+                                + " shards was sized for " + shard.maxSize + " fines");
+                    }
+                    return true;
+                }
+                continue;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size.get();
+        }
+        return size;
+    }
+
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            bytes += shard.slots.capacity();
+        }
+        return bytes;
+    }
+
+    int getShardCount() {
+        return shards.length;
+    }
+
+    private static class Shard {
+
+        final ByteBuffer slots;
+        final int maxSize;
+        final AtomicInteger size = new AtomicInteger();
+
+        Shard(int capacity) {
+            this.slots = ByteBuffer.allocateDirect(capacity * Long.BYTES + Long.BYTES).alignedSlice(Long.BYTES);
+            this.maxSize = (int) (capacity * MAX_LOAD);
+        }
+
+    }
+
+}
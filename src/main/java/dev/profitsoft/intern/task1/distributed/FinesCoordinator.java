@@ -0,0 +1,225 @@
+package dev.profitsoft.intern.task1.distributed;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Divides fines files among {@link FinesWorker} processes connected over TCP and merges their partial aggregates.
+ * Every file is a shard. A worker takes the next shard as soon as it returns the previous one, and the shard
+ * of a worker whose connection breaks, or which sends nothing, not even a heartbeat, for the worker timeout,
+ * goes back to the front of the queue for the other workers.
+ * Workers can be started by {@link #startLocalWorker(int)} or on other hosts sharing the same file paths.
+ */
+public class FinesCoordinator implements AutoCloseable {
+
+    private static final int POLL_MILLIS = 100;
+    private static final int DEFAULT_WORKER_TIMEOUT_MILLIS = 10 * WorkerProtocol.HEARTBEAT_MILLIS;
+
+    private final ServerSocket serverSocket;
+    private final int workerTimeoutMillis;
+    private final Consumer<String> log;
+    private final List<Process> localWorkers = new ArrayList<>();
+    private final AtomicInteger connectedWorkers = new AtomicInteger();
+    private final AtomicLong reassignedShards = new AtomicLong();
+
+    /**
+     * @param port                port to listen on, 0 for any free port
+     * @param workerTimeoutMillis how long a worker may stay silent before its shard is reassigned,
+     *                            must be longer than {@link WorkerProtocol#HEARTBEAT_MILLIS}
+     * @param log                 receives worker failures
+     */
+    public FinesCoordinator(int port, int workerTimeoutMillis, Consumer<String> log) throws IOException {
+        if (workerTimeoutMillis <= WorkerProtocol.HEARTBEAT_MILLIS) {
+            throw new IllegalArgumentException("Worker timeout must be longer than the heartbeat interval "
+                    + WorkerProtocol.HEARTBEAT_MILLIS + " ms");
+        }
+        this.serverSocket = new ServerSocket(port);
+        this.serverSocket.setSoTimeout(POLL_MILLIS);
+        this.workerTimeoutMillis = workerTimeoutMillis;
+        this.log = log;
+    }
+
+    public FinesCoordinator(int port) throws IOException {
+        this(port, DEFAULT_WORKER_TIMEOUT_MILLIS, System.out::println);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns how many shards were taken back from failed or silent workers.
+     */
+    public long getReassignedShardCount() {
+        return reassignedShards.get();
+    }
+
+    /**
+     * Starts a worker JVM on this host with the classpath of the current one.
+     */
+    public Process startLocalWorker(int nThreads) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                FinesWorker.class.getName(), InetAddress.getLoopbackAddress().getHostAddress(),
+                String.valueOf(getPort()), String.valueOf(nThreads))
+                .inheritIO()
+                .start();
+        localWorkers.add(process);
+        return process;
+    }
+
+    /**
+     * Waits until every file is aggregated by some worker. Fails if a worker reports an error
+     * or if every local worker is dead while shards are left and no other worker is connected.
+     */
+    public FinesAccumulator aggregate(List<File> fineFiles) {
+        BlockingDeque<File> shards = new LinkedBlockingDeque<>();
+        for (File fineFile : fineFiles) {
+            shards.add(fineFile.getAbsoluteFile());
+        }
+        CountDownLatch remaining = new CountDownLatch(fineFiles.size());
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        FinesAccumulator allStatistic = new FinesAccumulator();
+        List<Thread> handlers = new ArrayList<>();
+
+        try {
+            while (remaining.getCount() > 0 && failure.get() == null) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread handler = new Thread(() -> serve(socket, shards, remaining, allStatistic, failure),
+                            "fines-worker-" + socket.getRemoteSocketAddress());
+                    handler.setDaemon(true);
+                    handler.start();
+                    handlers.add(handler);
+                } catch (SocketTimeoutException e) {
+                    if (failure.get() == null) {
+                        // a worker is shut down only after the failure is set
+                        checkWorkersAlive(remaining);
+                    }
+                }
+            }
+            for (Thread handler : handlers) {
+                handler.join();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return allStatistic;
+    }
+
+    private void serve(Socket socket, BlockingDeque<File> shards, CountDownLatch remaining,
+                       FinesAccumulator allStatistic, AtomicReference<RuntimeException> failure) {
+        connectedWorkers.incrementAndGet();
+        File shard = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(workerTimeoutMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != WorkerProtocol.MAGIC || in.readInt() != WorkerProtocol.VERSION) {
+                log.accept("Rejected worker " + socket.getRemoteSocketAddress() + ": unknown protocol");
+                return;
+            }
+
+            while (remaining.getCount() > 0 && failure.get() == null) {
+                shard = shards.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (shard == null) {
+                    continue;
+                }
+                out.writeByte(WorkerProtocol.TASK);
+                out.writeUTF(shard.getPath());
+                out.flush();
+
+                byte reply = in.readByte();
+                while (reply == WorkerProtocol.HEARTBEAT) {
+                    reply = in.readByte();
+                }
+                if (reply == WorkerProtocol.ERROR) {
+                    failure.compareAndSet(null, new IllegalStateException(in.readUTF()));
+                    shard = null;
+                    break;
+                }
+                if (reply != WorkerProtocol.RESULT) {
+                    throw new IOException("Unexpected message " + reply);
+                }
+                FinesAccumulator partial = FinesAccumulator.readFrom(in);
+                synchronized (allStatistic) {
+                    allStatistic.merge(partial);
+                }
+                shard = null;
+                remaining.countDown();
+            }
+            out.writeByte(WorkerProtocol.SHUTDOWN);
+            out.flush();
+        } catch (IOException e) {
+            if (shard != null) {
+                shards.addFirst(shard);
+                reassignedShards.incrementAndGet();
+                log.accept("Worker " + socket.getRemoteSocketAddress() + " failed (" + e + "), "
+                        + shard.getName() + " is reassigned");
+            } else {
+                log.accept("Worker " + socket.getRemoteSocketAddress() + " failed (" + e + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connectedWorkers.decrementAndGet();
+        }
+    }
+
+    private void checkWorkersAlive(CountDownLatch remaining) {
+        if (localWorkers.isEmpty() || connectedWorkers.get() > 0 || remaining.getCount() == 0) {
+            return;
+        }
+        for (Process localWorker : localWorkers) {
+            if (localWorker.isAlive()) {
+                return;
+            }
+        }
+        throw new IllegalStateException("All workers are dead, " + remaining.getCount() + " files are not aggregated");
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Process localWorker : localWorkers) {
+            try {
+                if (!localWorker.waitFor(5, TimeUnit.SECONDS)) {
+                    localWorker.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                localWorker.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
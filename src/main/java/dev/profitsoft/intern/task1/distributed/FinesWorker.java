@@ -0,0 +1,110 @@
+package dev.profitsoft.intern.task1.distributed;
+
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Worker process of {@link FinesCoordinator}: connects to the coordinator, aggregates every file it is given
+ * with the chunked scanner on its own threads and sends back the partial aggregate, with heartbeats while it runs.
+ * <p>
+ * {@code java -cp <classpath> dev.profitsoft.intern.task1.distributed.FinesWorker <host> <port> [threads]}
+ */
+public class FinesWorker {
+
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: FinesWorker <host> <port> [threads]");
+            System.exit(2);
+        }
+        int nThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        run(args[0], Integer.parseInt(args[1]), nThreads);
+    }
+
+    public static void run(String host, int port, int nThreads) throws IOException {
+        ExecutorService taskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fines-worker-task");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Socket socket = new Socket(host, port);
+             AggregationEngine engine = new AggregationEngine(nThreads)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(WorkerProtocol.MAGIC);
+            out.writeInt(WorkerProtocol.VERSION);
+            out.flush();
+
+            while (in.readByte() == WorkerProtocol.TASK) {
+                File fineFile = new File(in.readUTF());
+                FinesAccumulator finesAccumulator;
+                try {
+                    finesAccumulator = awaitWithHeartbeats(
+                            taskExecutor.submit(() -> aggregate(engine, fineFile, nThreads)), out);
+                } catch (RuntimeException e) {
+                    out.writeByte(WorkerProtocol.ERROR);
+                    out.writeUTF(fineFile.getName() + ": " + e);
+                    out.flush();
+                    continue;
+                }
+                out.writeByte(WorkerProtocol.RESULT);
+                finesAccumulator.writeTo(out);
+                out.flush();
+            }
+        } finally {
+            taskExecutor.shutdownNow();
+        }
+    }
+
+    private static FinesAccumulator awaitWithHeartbeats(Future<FinesAccumulator> task, DataOutputStream out)
+            throws IOException {
+        try {
+            while (true) {
+                try {
+                    return task.get(WorkerProtocol.HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    out.writeByte(WorkerProtocol.HEARTBEAT);
+                    out.flush();
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static FinesAccumulator aggregate(AggregationEngine engine, File fineFile, int nThreads) {
+        try {
+            long chunkSize = Math.max(MIN_CHUNK_SIZE, fineFile.length() / ((long) nThreads * CHUNKS_PER_THREAD));
+            return engine.aggregate(FineFileSplitter.split(fineFile, chunkSize), FineChunk::scan,
+                    FinesAccumulator::merge, FinesAccumulator::new);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package dev.profitsoft.intern.task1.distributed;
+
+/**
+ * Messages between {@link FinesCoordinator} and {@link FinesWorker}, written with {@link java.io.DataOutput}.
+ * <pre>
+ * worker      -> coordinator: MAGIC VERSION
+ * coordinator -> worker:      TASK path | SHUTDOWN
+ * worker      -> coordinator: HEARTBEAT* (RESULT accumulator | ERROR message)
+ * </pre>
+ * The accumulator is written by {@link dev.profitsoft.intern.task1.aggregate.FinesAccumulator#writeTo}.
+ * While a task runs the worker sends a heartbeat every {@link #HEARTBEAT_MILLIS}, so the coordinator can tell
+ * a slow shard from a hung worker by its read timeout.
+ */
+final class WorkerProtocol {
+
+    static final int MAGIC = 0x46574b52;
+    static final int VERSION = 2;
+    static final int HEARTBEAT_MILLIS = 1000;
+
+    static final byte TASK = 1;
+    static final byte SHUTDOWN = 2;
+    static final byte RESULT = 3;
+    static final byte ERROR = 4;
+    static final byte HEARTBEAT = 5;
+
+    private WorkerProtocol() {
+    }
+
+}
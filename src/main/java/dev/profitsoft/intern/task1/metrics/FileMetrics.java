@@ -0,0 +1,33 @@
+package dev.profitsoft.intern.task1.metrics;
+
+import lombok.Value;
+
+/**
+ * Totals of all the work units read from one file.
+ */
+@Value
+public class FileMetrics {
+
+    String file;
+    long units;
+    long bytes;
+    long records;
+    long parseWallNanos;
+    long parseCpuNanos;
+    long allocatedBytes;
+
+    public double getBytesPerSecond() {
+        return parseWallNanos == 0 ? 0 : bytes * 1e9 / parseWallNanos;
+    }
+
+    public double getRecordsPerSecond() {
+        return parseWallNanos == 0 ? 0 : records * 1e9 / parseWallNanos;
+    }
+
+    FileMetrics plus(FileMetrics other) {
+        return new FileMetrics(file, units + other.units, bytes + other.bytes, records + other.records,
+                parseWallNanos + other.parseWallNanos, parseCpuNanos + other.parseCpuNanos,
+                allocatedBytes + other.allocatedBytes);
+    }
+
+}
@@ -0,0 +1,283 @@
+package dev.profitsoft.intern.task1.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Counters and histograms of a statistic run. Work units and merges are measured by wrapping
+ * the functions given to {@link AggregationEngine}, so the hot loops of the parsers stay untouched.
+ * While registered the metrics are readable over JMX as {@link #OBJECT_NAME}{@code ,run=<n>}, with a number
+ * unique to every instance, so concurrent runs in one JVM don't replace each other's bean.
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+
+    public static final String OBJECT_NAME = "dev.profitsoft.intern.task1:type=PipelineMetrics";
+
+    private static final AtomicLong runCounter = new AtomicLong();
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static final ObjectMapper reportMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final long run = runCounter.incrementAndGet();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, FileMetrics> files = new ConcurrentHashMap<>();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LongAdder units = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder parseCpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder mergeNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private volatile long endNanos;
+
+    /**
+     * Measures every unit passed to {@code aggregator}: its wait since it was submitted to the engine, wall and
+     * CPU time, bytes, records and allocated bytes. {@code recordsOf} may be null if the aggregator reports
+     * the records itself through {@link #addRecords(File, long)}.
+     */
+    public <T, A> AggregationEngine.PartialAggregator<T, A> meter(AggregationEngine.PartialAggregator<T, A> aggregator,
+                                                                  Function<T, File> fileOf, ToLongFunction<T> bytesOf,
+                                                                  ToLongFunction<A> recordsOf) {
+        return new AggregationEngine.PartialAggregator<T, A>() {
+            @Override
+            public A aggregate(T unit) throws IOException {
+                return aggregate(unit, System.nanoTime());
+            }
+
+            @Override
+            public A aggregate(T unit, long submittedNanos) throws IOException {
+                return measure(aggregator, unit, submittedNanos, fileOf, bytesOf, recordsOf);
+            }
+        };
+    }
+
+    public <A> BinaryOperator<A> meter(BinaryOperator<A> combiner) {
+        return (left, right) -> {
+            long start = System.nanoTime();
+            try {
+                return combiner.apply(left, right);
+            } finally {
+                mergeNanos.add(System.nanoTime() - start);
+            }
+        };
+    }
+
+    public void addRecords(File file, long recordCount) {
+        records.add(recordCount);
+        files.merge(file.getName(), new FileMetrics(file.getName(), 0, 0, recordCount, 0, 0, 0), FileMetrics::plus);
+    }
+
+    public void addMergeNanos(long nanos) {
+        mergeNanos.add(nanos);
+    }
+
+    public void addWriteNanos(long nanos) {
+        writeNanos.add(nanos);
+    }
+
+    /**
+     * Stops the run clock, so the rates stop falling while the report is written.
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName(OBJECT_NAME + ",run=" + run);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void register() {
+        try {
+            getMBeanServer().registerMBean(this, getObjectName());
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void unregister() {
+        try {
+            getMBeanServer().unregisterMBean(getObjectName());
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public RunReport getReport() {
+        List<FileMetrics> fileMetrics = new ArrayList<>(files.values());
+        fileMetrics.sort(Comparator.comparing(FileMetrics::getFile));
+
+        return new RunReport(getWallNanos() / 1_000_000, getFileCount(), getUnitCount(), getByteCount(),
+                getRecordCount(), getBytesPerSecond(), getRecordsPerSecond(), getParseWallMillis(),
+                getParseCpuMillis(), getParseLatencyP50Millis(), getParseLatencyP99Millis(),
+                getParseLatencyMaxMillis(), getQueueWaitP50Millis(), getQueueWaitMaxMillis(), getMergeMillis(),
+                getWriteMillis(), getAllocatedBytesPerRecord(), fileMetrics);
+    }
+
+    public void writeReport(File reportFile) {
+        try {
+            reportMapper.writeValue(reportFile, getReport());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long getFileCount() {
+        return files.size();
+    }
+
+    @Override
+    public long getUnitCount() {
+        return units.sum();
+    }
+
+    @Override
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return getByteCount() * 1e9 / Math.max(1, getWallNanos());
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        return getRecordCount() * 1e9 / Math.max(1, getWallNanos());
+    }
+
+    @Override
+    public long getParseLatencyP50Millis() {
+        return parseLatency.getPercentileNanos(50) / 1_000_000;
+    }
+
+    @Override
+    public long getParseLatencyP99Millis() {
+        return parseLatency.getPercentileNanos(99) / 1_000_000;
+    }
+
+    @Override
+    public long getParseLatencyMaxMillis() {
+        return parseLatency.getMaxNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getParseCpuMillis() {
+        return parseCpuNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getParseWallMillis() {
+        return parseLatency.getSumNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getQueueWaitP50Millis() {
+        return queueWait.getPercentileNanos(50) / 1_000_000;
+    }
+
+    @Override
+    public long getQueueWaitMaxMillis() {
+        return queueWait.getMaxNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getMergeMillis() {
+        return mergeNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return writeNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public double getAllocatedBytesPerRecord() {
+        long recordCount = getRecordCount();
+        return recordCount == 0 ? 0 : (double) allocatedBytes.sum() / recordCount;
+    }
+
+    private <T, A> A measure(AggregationEngine.PartialAggregator<T, A> aggregator, T unit, long submittedNanos,
+                             Function<T, File> fileOf, ToLongFunction<T> bytesOf,
+                             ToLongFunction<A> recordsOf) throws IOException {
+        long start = System.nanoTime();
+        queueWait.record(start - submittedNanos);
+        long cpuStart = currentThreadCpuTime();
+        long allocatedStart = currentThreadAllocatedBytes();
+
+        A partial = aggregator.aggregate(unit);
+
+        long wall = System.nanoTime() - start;
+        long cpu = currentThreadCpuTime() - cpuStart;
+        long allocated = currentThreadAllocatedBytes() - allocatedStart;
+        long unitRecords = recordsOf == null ? 0 : recordsOf.applyAsLong(partial);
+        long unitBytes = bytesOf.applyAsLong(unit);
+
+        parseLatency.record(wall);
+        units.increment();
+        bytes.add(unitBytes);
+        records.add(unitRecords);
+        parseCpuNanos.add(cpu);
+        allocatedBytes.add(allocated);
+        files.merge(fileOf.apply(unit).getName(),
+                new FileMetrics(fileOf.apply(unit).getName(), 1, unitBytes, unitRecords, wall, cpu, allocated),
+                FileMetrics::plus);
+        return partial;
+    }
+
+    private long getWallNanos() {
+        long end = endNanos;
+        return (end == 0 ? System.nanoTime() : end) - startNanos;
+    }
+
+    private static MBeanServer getMBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+
+    private static long currentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,40 @@
+package dev.profitsoft.intern.task1.metrics;
+
+/**
+ * Live view of {@link PipelineMetrics} for JConsole or any other JMX client.
+ */
+public interface PipelineMetricsMXBean {
+
+    long getFileCount();
+
+    long getUnitCount();
+
+    long getByteCount();
+
+    long getRecordCount();
+
+    double getBytesPerSecond();
+
+    double getRecordsPerSecond();
+
+    long getParseLatencyP50Millis();
+
+    long getParseLatencyP99Millis();
+
+    long getParseLatencyMaxMillis();
+
+    long getParseCpuMillis();
+
+    long getParseWallMillis();
+
+    long getQueueWaitP50Millis();
+
+    long getQueueWaitMaxMillis();
+
+    long getMergeMillis();
+
+    long getWriteMillis();
+
+    double getAllocatedBytesPerRecord();
+
+}
@@ -0,0 +1,33 @@
+package dev.profitsoft.intern.task1.metrics;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Machine-readable summary of a run written by {@link PipelineMetrics#writeReport(java.io.File)}.
+ * {@code parseWallMillis - parseCpuMillis} is the time the parsers waited on I/O or the scheduler.
+ */
+@Value
+public class RunReport {
+
+    long wallMillis;
+    long fileCount;
+    long unitCount;
+    long byteCount;
+    long recordCount;
+    double bytesPerSecond;
+    double recordsPerSecond;
+    long parseWallMillis;
+    long parseCpuMillis;
+    long parseLatencyP50Millis;
+    long parseLatencyP99Millis;
+    long parseLatencyMaxMillis;
+    long queueWaitP50Millis;
+    long queueWaitMaxMillis;
+    long mergeMillis;
+    long writeMillis;
+    double allocatedBytesPerRecord;
+    List<FileMetrics> files;
+
+}
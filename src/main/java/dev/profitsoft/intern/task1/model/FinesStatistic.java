@@ -16,4 +16,29 @@ public class FinesStatistic {
     @JacksonXmlElementWrapper(localName = "fines")
     @JacksonXmlProperty(localName = "fine")
     private List<Fine> finesStatistic;
+
+    @JacksonXmlElementWrapper(localName = "by_month")
+    @JacksonXmlProperty(localName = "month")
+    private List<MonthlyFineStatistic> monthlyStatistic;
+
+    @JacksonXmlElementWrapper(localName = "by_offender")
+    @JacksonXmlProperty(localName = "offender")
+    private List<OffenderFineStatistic> offenderStatistic;
+
+    @JacksonXmlProperty(localName = "top_offenders")
+    private TopOffendersStatistic topOffenders;
+
+    public FinesStatistic(List<Fine> finesStatistic) {
+        this(finesStatistic, null, null, null);
+    }
+
+    public FinesStatistic(List<Fine> finesStatistic, List<MonthlyFineStatistic> monthlyStatistic,
+                          List<OffenderFineStatistic> offenderStatistic) {
+        this(finesStatistic, monthlyStatistic, offenderStatistic, null);
+    }
+
+    public FinesStatistic(List<Fine> finesStatistic, TopOffendersStatistic topOffenders) {
+        this(finesStatistic, null, null, topOffenders);
+    }
+
 }
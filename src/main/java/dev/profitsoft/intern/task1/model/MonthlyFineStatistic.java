@@ -0,0 +1,36 @@
+package dev.profitsoft.intern.task1.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyFineStatistic {
+
+    @JacksonXmlProperty(localName = "type", isAttribute = true)
+    private FineType type;
+
+    @JacksonXmlProperty(localName = "year", isAttribute = true)
+    private int year;
+
+    @JacksonXmlProperty(localName = "month", isAttribute = true)
+    private int month;
+
+    @JacksonXmlProperty(localName = "count", isAttribute = true)
+    private long count;
+
+    @JacksonXmlProperty(localName = "sum", isAttribute = true)
+    private BigDecimal sum;
+
+    @JacksonXmlProperty(localName = "min", isAttribute = true)
+    private BigDecimal min;
+
+    @JacksonXmlProperty(localName = "max", isAttribute = true)
+    private BigDecimal max;
+
+}
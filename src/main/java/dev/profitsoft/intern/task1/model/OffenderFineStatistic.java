@@ -0,0 +1,44 @@
+package dev.profitsoft.intern.task1.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OffenderFineStatistic {
+
+    @JacksonXmlProperty(localName = "first_name", isAttribute = true)
+    private String firstName;
+
+    @JacksonXmlProperty(localName = "last_name", isAttribute = true)
+    private String lastName;
+
+    @JacksonXmlProperty(localName = "day", isAttribute = true)
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate day;
+
+    @JacksonXmlProperty(localName = "count", isAttribute = true)
+    private long count;
+
+    @JacksonXmlProperty(localName = "sum", isAttribute = true)
+    private BigDecimal sum;
+
+    @JacksonXmlProperty(localName = "min", isAttribute = true)
+    private BigDecimal min;
+
+    @JacksonXmlProperty(localName = "max", isAttribute = true)
+    private BigDecimal max;
+
+    public OffenderFineStatistic(String firstName, String lastName, long count,
+                                 BigDecimal sum, BigDecimal min, BigDecimal max) {
+        this(firstName, lastName, null, count, sum, min, max);
+    }
+
+}
@@ -0,0 +1,30 @@
+package dev.profitsoft.intern.task1.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopOffenderStatistic {
+
+    @JacksonXmlProperty(localName = "first_name", isAttribute = true)
+    private String firstName;
+
+    @JacksonXmlProperty(localName = "last_name", isAttribute = true)
+    private String lastName;
+
+    @JacksonXmlProperty(localName = "sum", isAttribute = true)
+    private BigDecimal sum;
+
+    @JacksonXmlProperty(localName = "error", isAttribute = true)
+    private BigDecimal error;
+
+    @JacksonXmlProperty(localName = "guaranteed", isAttribute = true)
+    private boolean guaranteed;
+
+}
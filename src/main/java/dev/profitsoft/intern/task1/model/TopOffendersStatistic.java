@@ -0,0 +1,33 @@
+package dev.profitsoft.intern.task1.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopOffendersStatistic {
+
+    @JacksonXmlProperty(localName = "capacity", isAttribute = true)
+    private int capacity;
+
+    @JacksonXmlProperty(localName = "memory_bytes", isAttribute = true)
+    private long memoryBytes;
+
+    @JacksonXmlProperty(localName = "error_bound", isAttribute = true)
+    private BigDecimal errorBound;
+
+    @JacksonXmlProperty(localName = "total", isAttribute = true)
+    private BigDecimal total;
+
+    @JacksonXmlElementWrapper(useWrapping = false)
+    @JacksonXmlProperty(localName = "offender")
+    private List<TopOffenderStatistic> offenders;
+
+}
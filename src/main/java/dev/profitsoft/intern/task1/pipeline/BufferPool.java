@@ -0,0 +1,45 @@
+package dev.profitsoft.intern.task1.pipeline;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed set of reusable buffers. {@link #acquire()} blocks while every buffer is in use,
+ * which caps the memory of a pipeline and slows down its producers.
+ */
+public class BufferPool {
+
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final int bufferSize;
+
+    public BufferPool(int bufferCount, int bufferSize) {
+        this(bufferCount, bufferSize, false);
+    }
+
+    /**
+     * @param direct whether to allocate direct buffers, which channels fill without an extra copy
+     */
+    public BufferPool(int bufferCount, int bufferSize, boolean direct) {
+        this.buffers = new ArrayBlockingQueue<>(bufferCount);
+        this.bufferSize = bufferSize;
+        for (int i = 0; i < bufferCount; i++) {
+            buffers.add(direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize));
+        }
+    }
+
+    public ByteBuffer acquire() throws InterruptedException {
+        ByteBuffer buffer = buffers.take();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffers.add(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+}
@@ -0,0 +1,237 @@
+package dev.profitsoft.intern.task1.pipeline;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Aggregates {@code *_fines.json.gz} files in two stages.
+ * Inflaters decompress into buffers of a {@link BufferPool} and cut every buffer after the last whole fine,
+ * carrying the rest over to the next buffer. Parsers take the buffers from a bounded queue,
+ * scan them into their own {@link FinesAccumulator} and give the buffers back to the pool.
+ */
+public class GzipFinesPipeline {
+
+    public static final String EXTENSION = ".json.gz";
+    private static final Batch END = new Batch(null, 0, 0);
+
+    private final int inflaterThreads;
+    private final int parserThreads;
+    private final BufferPool bufferPool;
+    private final BlockingQueue<Batch> batches;
+
+    private final AtomicLong inflateWaitNanos = new AtomicLong();
+    private final AtomicLong inflateBusyNanos = new AtomicLong();
+    private final AtomicLong parseWaitNanos = new AtomicLong();
+    private final AtomicLong parseBusyNanos = new AtomicLong();
+    private List<StageStatistic> stageStatistics = List.of();
+
+    public GzipFinesPipeline(int inflaterThreads, int parserThreads, int bufferCount, int bufferSize) {
+        if (bufferCount <= inflaterThreads) {
+            throw new IllegalArgumentException("There should be more buffers than inflater threads");
+        }
+        this.inflaterThreads = inflaterThreads;
+        this.parserThreads = parserThreads;
+        this.bufferPool = new BufferPool(bufferCount, bufferSize);
+        this.batches = new ArrayBlockingQueue<>(bufferCount);
+    }
+
+    public FinesAccumulator aggregate(List<File> gzipFiles) {
+        Queue<File> files = new ConcurrentLinkedQueue<>(gzipFiles);
+        AtomicInteger runningInflaters = new AtomicInteger(inflaterThreads);
+        ExecutorService executorService = Executors.newFixedThreadPool(inflaterThreads + parserThreads);
+        ExecutorCompletionService<FinesAccumulator> completionService = new ExecutorCompletionService<>(executorService);
+        inflateBusyNanos.set(0);
+        inflateWaitNanos.set(0);
+        parseBusyNanos.set(0);
+        parseWaitNanos.set(0);
+        long start = System.nanoTime();
+
+        try {
+            for (int i = 0; i < inflaterThreads; i++) {
+                completionService.submit(() -> inflate(files, runningInflaters));
+            }
+            for (int i = 0; i < parserThreads; i++) {
+                completionService.submit(this::parse);
+            }
+
+            FinesAccumulator allStatistic = new FinesAccumulator();
+            for (int i = 0; i < inflaterThreads + parserThreads; i++) {
+                FinesAccumulator finesAccumulator = completionService.take().get();
+                if (finesAccumulator != null) {
+                    allStatistic.merge(finesAccumulator);
+                }
+            }
+            return allStatistic;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+            long wall = System.nanoTime() - start;
+            stageStatistics = List.of(
+                    new StageStatistic("inflate", inflaterThreads, inflateBusyNanos.get(), inflateWaitNanos.get(), wall),
+                    new StageStatistic("parse", parserThreads, parseBusyNanos.get(), parseWaitNanos.get(), wall));
+        }
+    }
+
+    public List<StageStatistic> getStageStatistics() {
+        return stageStatistics;
+    }
+
+    private FinesAccumulator inflate(Queue<File> files, AtomicInteger runningInflaters) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            File file;
+            while ((file = files.poll()) != null) {
+                inflateFile(file);
+            }
+        } finally {
+            inflateBusyNanos.addAndGet(System.nanoTime() - start);
+            if (runningInflaters.decrementAndGet() == 0) {
+                for (int i = 0; i < parserThreads; i++) {
+                    batches.put(END);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void inflateFile(File file) throws IOException, InterruptedException {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())), 64 * 1024)) {
+            byte[] carry = new byte[0];
+            boolean firstBuffer = true;
+            boolean endOfFile = false;
+
+            while (!endOfFile) {
+                ByteBuffer buffer = waitFor(bufferPool::acquire, inflateWaitNanos, inflateBusyNanos);
+                byte[] bytes = buffer.array();
+                System.arraycopy(carry, 0, bytes, 0, carry.length);
+                int length = carry.length;
+                int read;
+                while (length < bytes.length && (read = in.read(bytes, length, bytes.length - length)) > 0) {
+                    length += read;
+                }
+                endOfFile = length < bytes.length;
+                buffer.limit(length);
+
+                int from = firstBuffer ? FineScanner.findFinesArrayStart(buffer) : 0;
+                firstBuffer = false;
+                int to = endOfFile ? length : findLastFineStart(bytes, from, length);
+                if (to < 0) {
+                    bufferPool.release(buffer);
+                    throw new IllegalStateException("Fine in '" + file.getName() + "' is larger than a buffer of "
+                            + bufferPool.getBufferSize() + " bytes");
+                }
+                carry = new byte[length - to];
+                System.arraycopy(bytes, to, carry, 0, carry.length);
+
+                Batch batch = new Batch(buffer, from, to);
+                waitFor(() -> {
+                    batches.put(batch);
+                    return batch;
+                }, inflateWaitNanos, inflateBusyNanos);
+            }
+        }
+    }
+
+    private FinesAccumulator parse() throws InterruptedException {
+        FinesAccumulator accumulator = new FinesAccumulator();
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                Batch batch = waitFor(batches::take, parseWaitNanos, parseBusyNanos);
+                if (batch == END) {
+                    return accumulator;
+                }
+                try {
+                    new FineScanner(batch.getBuffer(), batch.getFrom(), batch.getTo()).scan(accumulator);
+                } finally {
+                    bufferPool.release(batch.getBuffer());
+                }
+            }
+        } finally {
+            parseBusyNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the position of the {@code {} of the last {@code },{} in {@code [from, to)}, or -1 if there is none.
+     */
+    static int findLastFineStart(byte[] bytes, int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            if (bytes[i] != '{') {
+                continue;
+            }
+            int j = skipWhitespaceBackward(bytes, from, i - 1);
+            if (j <= from || bytes[j] != ',') {
+                continue;
+            }
+            j = skipWhitespaceBackward(bytes, from, j - 1);
+            if (j >= from && bytes[j] == '}') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespaceBackward(byte[] bytes, int from, int i) {
+        while (i >= from && (bytes[i] == ' ' || bytes[i] == '\n' || bytes[i] == '\r' || bytes[i] == '\t')) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Runs a blocking hand-over, adds the time it blocked to {@code waitNanos} and takes it out of the busy time.
+     */
+    private static <T> T waitFor(Callable<T> handOver, AtomicLong waitNanos, AtomicLong busyNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return handOver.call();
+        } catch (InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            long waited = System.nanoTime() - start;
+            waitNanos.addAndGet(waited);
+            busyNanos.addAndGet(-waited);
+        }
+    }
+
+    @Value
+    private static class Batch {
+
+        ByteBuffer buffer;
+        int from;
+        int to;
+
+    }
+
+}
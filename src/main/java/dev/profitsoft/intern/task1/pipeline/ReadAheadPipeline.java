@@ -0,0 +1,274 @@
+package dev.profitsoft.intern.task1.pipeline;
+
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.metrics.PipelineMetrics;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import lombok.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Aggregates fines files while their next chunks are already being read.
+ * The calling thread cuts the files into chunks that fit a buffer of a {@link BufferPool}
+ * and starts an {@link AsynchronousFileChannel} read into a free buffer for every chunk in order.
+ * Because it blocks when no buffer is free, at most {@code bufferCount * bufferSize} bytes are read ahead.
+ * Parsers scan the filled buffers and return them to the pool, so disk reads and parsing overlap.
+ * A file is opened when its first chunk is read and closed when the read of its last chunk completes,
+ * so only the files being read ahead hold a descriptor.
+ */
+public class ReadAheadPipeline {
+
+    private static final Batch END = new Batch(null, null, 0);
+
+    private final int parserThreads;
+    private final BufferPool bufferPool;
+    private final long chunkSize;
+    private final BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+
+    private final AtomicLong readWaitNanos = new AtomicLong();
+    private final AtomicLong readBusyNanos = new AtomicLong();
+    private final AtomicLong parseWaitNanos = new AtomicLong();
+    private final AtomicLong parseBusyNanos = new AtomicLong();
+    private List<StageStatistic> stageStatistics = List.of();
+
+    /**
+     * @param bufferCount number of chunks read ahead, {@code bufferCount * bufferSize} is the memory budget
+     */
+    public ReadAheadPipeline(int parserThreads, int bufferCount, int bufferSize) {
+        if (bufferCount <= parserThreads) {
+            throw new IllegalArgumentException("There should be more buffers than parser threads");
+        }
+        this.parserThreads = parserThreads;
+        this.bufferPool = new BufferPool(bufferCount, bufferSize, true);
+        this.chunkSize = bufferSize - bufferSize / 8;
+    }
+
+    public FinesAccumulator aggregate(List<File> fineFiles) {
+        return aggregate(fineFiles, new PipelineMetrics());
+    }
+
+    /**
+     * Aggregates the files and measures every chunk as a unit of {@code metrics}, its queue wait being
+     * the time the filled buffer waited for a parser.
+     */
+    public FinesAccumulator aggregate(List<File> fineFiles, PipelineMetrics metrics) {
+        ExecutorService executorService = Executors.newFixedThreadPool(parserThreads);
+        List<AsynchronousFileChannel> channels = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        batches.clear();
+        readWaitNanos.set(0);
+        readBusyNanos.set(0);
+        parseWaitNanos.set(0);
+        parseBusyNanos.set(0);
+        long start = System.nanoTime();
+
+        try {
+            List<Future<FinesAccumulator>> parsers = new ArrayList<>();
+            for (int i = 0; i < parserThreads; i++) {
+                parsers.add(executorService.submit(() -> parse(failure, metrics)));
+            }
+
+            try {
+                readAhead(fineFiles, channels, failure);
+            } finally {
+                for (int i = 0; i < parserThreads; i++) {
+                    batches.put(END);
+                }
+            }
+
+            FinesAccumulator allStatistic = new FinesAccumulator();
+            for (Future<FinesAccumulator> parser : parsers) {
+                FinesAccumulator partial = parser.get();
+                long mergeStart = System.nanoTime();
+                allStatistic.merge(partial);
+                metrics.addMergeNanos(System.nanoTime() - mergeStart);
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return allStatistic;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+            // files whose last chunk was never read because of a failure
+            for (AsynchronousFileChannel channel : channels) {
+                close(channel);
+            }
+            long wall = System.nanoTime() - start;
+            stageStatistics = List.of(
+                    new StageStatistic("read", 1, readBusyNanos.get(), readWaitNanos.get(), wall),
+                    new StageStatistic("parse", parserThreads, parseBusyNanos.get(), parseWaitNanos.get(), wall));
+        }
+    }
+
+    /**
+     * For the read stage busy time is the time the calling thread spent starting reads and waiting for them,
+     * wait time is the time it waited for a free buffer, i.e. for the parsers.
+     */
+    public List<StageStatistic> getStageStatistics() {
+        return stageStatistics;
+    }
+
+    private void readAhead(List<File> fineFiles, List<AsynchronousFileChannel> channels,
+                           AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<List<FineChunk>> chunksByFile = new ArrayList<>();
+        int chunkCount = 0;
+        for (File fineFile : fineFiles) {
+            List<FineChunk> chunks = FineFileSplitter.split(fineFile, chunkSize);
+            chunksByFile.add(chunks);
+            chunkCount += chunks.size();
+        }
+
+        CountDownLatch pendingReads = new CountDownLatch(chunkCount);
+        int started = 0;
+        try {
+            for (List<FineChunk> chunks : chunksByFile) {
+                if (chunks.isEmpty() || failure.get() != null) {
+                    continue;
+                }
+                AsynchronousFileChannel channel = AsynchronousFileChannel.open(
+                        chunks.get(0).getFile().toPath(), StandardOpenOption.READ);
+                channels.add(channel);
+                AtomicInteger unreadChunks = new AtomicInteger(chunks.size());
+                for (FineChunk chunk : chunks) {
+                    if (failure.get() != null) {
+                        break;
+                    }
+                    if (chunk.getSize() > bufferPool.getBufferSize()) {
+                        throw new IllegalStateException("Fine in '" + chunk.getFile().getName()
+                                + "' is larger than a buffer of " + bufferPool.getBufferSize() + " bytes");
+                    }
+                    long acquireStart = System.nanoTime();
+                    ByteBuffer buffer = bufferPool.acquire();
+                    readWaitNanos.addAndGet(System.nanoTime() - acquireStart);
+                    buffer.limit((int) chunk.getSize());
+                    read(channel, unreadChunks, chunk, buffer, pendingReads, failure);
+                    started++;
+                }
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            for (int i = started; i < chunkCount; i++) {
+                pendingReads.countDown();
+            }
+            pendingReads.await();
+            readBusyNanos.addAndGet(System.nanoTime() - start - readWaitNanos.get());
+        }
+    }
+
+    private void read(AsynchronousFileChannel channel, AtomicInteger unreadChunks, FineChunk chunk, ByteBuffer buffer,
+                      CountDownLatch pendingReads, AtomicReference<Throwable> failure) {
+        channel.read(buffer, chunk.getStart() + buffer.position(), null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer read, Void attachment) {
+                if (read < 0 && buffer.hasRemaining()) {
+                    failed(new IOException("'" + chunk.getFile().getName() + "' is shorter than expected"), attachment);
+                } else if (buffer.hasRemaining()) {
+                    read(channel, unreadChunks, chunk, buffer, pendingReads, failure);
+                } else {
+                    buffer.flip();
+                    chunkRead(channel, unreadChunks);
+                    batches.add(new Batch(buffer, chunk, System.nanoTime()));
+                    pendingReads.countDown();
+                }
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                failure.compareAndSet(null, e);
+                chunkRead(channel, unreadChunks);
+                bufferPool.release(buffer);
+                pendingReads.countDown();
+            }
+        });
+    }
+
+    private static void chunkRead(AsynchronousFileChannel channel, AtomicInteger unreadChunks) {
+        if (unreadChunks.decrementAndGet() == 0) {
+            close(channel);
+        }
+    }
+
+    private static void close(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the chunks of the channel are read already
+        }
+    }
+
+    private FinesAccumulator parse(AtomicReference<Throwable> failure, PipelineMetrics metrics)
+            throws InterruptedException {
+        FinesAccumulator accumulator = new FinesAccumulator();
+        AggregationEngine.PartialAggregator<Batch, Long> scanner = metrics.meter(
+                batch -> new FineScanner(batch.getBuffer(), 0, batch.getBuffer().limit()).scan(accumulator),
+                batch -> batch.getChunk().getFile(), batch -> batch.getChunk().getSize(), Long::longValue);
+        long start = System.nanoTime();
+        long waited = 0;
+        try {
+            while (true) {
+                long takeStart = System.nanoTime();
+                Batch batch = batches.take();
+                waited += System.nanoTime() - takeStart;
+                if (batch == END) {
+                    return accumulator;
+                }
+                try {
+                    if (failure.get() == null) {
+                        scanner.aggregate(batch, batch.getReadyNanos());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, new IllegalStateException(
+                            "Failed to parse '" + batch.getChunk().getFile().getName() + "' at byte "
+                                    + batch.getChunk().getStart() + ": " + e.getMessage(), e));
+                } finally {
+                    bufferPool.release(batch.getBuffer());
+                }
+            }
+        } finally {
+            parseWaitNanos.addAndGet(waited);
+            parseBusyNanos.addAndGet(System.nanoTime() - start - waited);
+        }
+    }
+
+    @Value
+    private static class Batch {
+
+        ByteBuffer buffer;
+        FineChunk chunk;
+        long readyNanos;
+
+    }
+
+}
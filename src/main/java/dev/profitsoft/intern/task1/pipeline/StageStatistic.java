@@ -0,0 +1,30 @@
+package dev.profitsoft.intern.task1.pipeline;
+
+import lombok.Value;
+
+/**
+ * Time the threads of a pipeline stage spent working and waiting on the neighbouring stages.
+ */
+@Value
+public class StageStatistic {
+
+    String name;
+    int threads;
+    long busyNanos;
+    long waitNanos;
+    long wallNanos;
+
+    /**
+     * Share of the wall time the stage threads spent working, from 0 to 1.
+     */
+    public double getUtilisation() {
+        return wallNanos == 0 ? 0 : (double) busyNanos / ((long) threads * wallNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d threads, busy %d ms, waiting %d ms, utilisation %.0f%%",
+                name, threads, busyNanos / 1_000_000, waitNanos / 1_000_000, getUtilisation() * 100);
+    }
+
+}
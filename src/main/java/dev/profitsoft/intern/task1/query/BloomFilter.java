@@ -0,0 +1,63 @@
+package dev.profitsoft.intern.task1.query;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Bloom filter over 64-bit hashes, about 1% false positives at the size given to the constructor.
+ */
+class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_COUNT = 7;
+
+    private final long[] bits;
+
+    BloomFilter(int expectedKeys) {
+        this(new long[Math.max(1, (expectedKeys * BITS_PER_KEY + 63) / 64)]);
+    }
+
+    private BloomFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    void add(long hash) {
+        long bitCount = bits.length * 64L;
+        long h1 = hash;
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        long bitCount = bits.length * 64L;
+        long h1 = hash;
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(bits.length);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    static BloomFilter readFrom(DataInput in) throws IOException {
+        long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new BloomFilter(bits);
+    }
+
+}
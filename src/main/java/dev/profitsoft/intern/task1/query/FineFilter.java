@@ -0,0 +1,117 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.scan.FineScanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link FineQuery} prepared for the scanner: the date range as epoch seconds, the types as a bitmask
+ * and the names as bytes and hashes.
+ */
+class FineFilter {
+
+    private static final long FIRST_NAME_SEED = 0x9e3779b97f4a7c15L;
+    private static final long LAST_NAME_SEED = 0xc2b2ae3d27d4eb4fL;
+
+    private final boolean dateRange;
+    private final long fromEpochSecond;
+    private final long toEpochSecond;
+    private final int typeMask;
+    private final byte[] firstName;
+    private final byte[] lastName;
+    private final long firstNameHash;
+    private final long lastNameHash;
+
+    FineFilter(FineQuery query) {
+        dateRange = query.hasDateRange();
+        fromEpochSecond = query.getFromEpochSecond();
+        toEpochSecond = query.getToEpochSecond();
+        typeMask = query.getTypeMask();
+        firstName = bytesOf(query.getFirstName());
+        lastName = bytesOf(query.getLastName());
+        firstNameHash = firstName == null ? 0 : firstNameHash(firstName, 0, firstName.length);
+        lastNameHash = lastName == null ? 0 : lastNameHash(lastName, 0, lastName.length);
+    }
+
+    boolean matches(FineScanner fine) {
+        if ((typeMask & (1 << fine.getTypeOrdinal())) == 0) {
+            return false;
+        }
+        if (dateRange) {
+            if (!fine.hasDateTime()) {
+                return false;
+            }
+            long epochSecond = fine.getEpochSecond();
+            if (epochSecond < fromEpochSecond || epochSecond >= toEpochSecond) {
+                return false;
+            }
+        }
+        return (firstName == null || equals(fine.getBuffer(), fine.getFirstNameStart(), fine.getFirstNameEnd(), firstName))
+                && (lastName == null || equals(fine.getBuffer(), fine.getLastNameStart(), fine.getLastNameEnd(), lastName));
+    }
+
+    /**
+     * Returns {@code false} if no fine described by the zone map can match.
+     */
+    boolean mayMatch(ZoneMap zone) {
+        if ((typeMask & zone.getTypeMask()) == 0) {
+            return false;
+        }
+        if (dateRange && (zone.getMaxEpochSecond() < fromEpochSecond || zone.getMinEpochSecond() >= toEpochSecond)) {
+            return false;
+        }
+        return (firstName == null || zone.getNames().mightContain(firstNameHash))
+                && (lastName == null || zone.getNames().mightContain(lastNameHash));
+    }
+
+    static long firstNameHash(ByteBuffer buffer, int start, int end) {
+        return hash(buffer, start, end, FIRST_NAME_SEED);
+    }
+
+    static long lastNameHash(ByteBuffer buffer, int start, int end) {
+        return hash(buffer, start, end, LAST_NAME_SEED);
+    }
+
+    private static long firstNameHash(byte[] name, int start, int end) {
+        return hash(ByteBuffer.wrap(name), start, end, FIRST_NAME_SEED);
+    }
+
+    private static long lastNameHash(byte[] name, int start, int end) {
+        return hash(ByteBuffer.wrap(name), start, end, LAST_NAME_SEED);
+    }
+
+    /**
+     * FNV-1a over the bytes followed by a 64-bit finalizer, so that the hashes spread over the Bloom filter bits.
+     */
+    private static long hash(ByteBuffer buffer, int start, int end, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = start; i < end; i++) {
+            hash ^= buffer.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static boolean equals(ByteBuffer buffer, int start, int end, byte[] expected) {
+        if (start < 0 || end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
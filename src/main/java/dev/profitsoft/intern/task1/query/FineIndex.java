@@ -0,0 +1,84 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zone maps of all chunks of a fines file, kept in a sidecar {@code <file>.zonemap}.
+ * Like {@link PartialAggregateCache}, a sidecar is used only while its {@link PartialAggregateCache.FileKey} matches.
+ */
+@Value
+public class FineIndex {
+
+    public static final String SUFFIX = ".zonemap";
+    private static final int MAGIC = 0x5a4f4e45;
+    private static final int VERSION = 1;
+
+    List<ZoneMap> zones;
+
+    /**
+     * Returns the index of the file or {@code null} if there is no valid one for the key.
+     */
+    public static FineIndex load(File fineFile, PartialAggregateCache.FileKey key) {
+        File sidecar = sidecarOf(fineFile);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            PartialAggregateCache.FileKey cachedKey =
+                    new PartialAggregateCache.FileKey(in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+            if (!cachedKey.equals(key)) {
+                return null;
+            }
+            int zoneCount = in.readInt();
+            List<ZoneMap> zones = new ArrayList<>(zoneCount);
+            for (int i = 0; i < zoneCount; i++) {
+                zones.add(ZoneMap.readFrom(in));
+            }
+            return new FineIndex(zones);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void store(File fineFile, PartialAggregateCache.FileKey key) throws IOException {
+        Path sidecar = sidecarOf(fineFile).toPath();
+        Path temp = Files.createTempFile(sidecar.getParent(), fineFile.getName(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key.getPath());
+            out.writeLong(key.getSize());
+            out.writeLong(key.getLastModified());
+            out.writeLong(key.getFingerprint());
+            out.writeInt(zones.size());
+            for (ZoneMap zone : zones) {
+                zone.writeTo(out);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static File sidecarOf(File fineFile) {
+        return new File(fineFile.getAbsoluteFile().getParentFile(), fineFile.getName() + SUFFIX);
+    }
+
+}
@@ -0,0 +1,67 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.model.FineType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+/**
+ * Filter of an ad-hoc question over the fines directory. Every condition left {@code null} matches all fines.
+ * Names are compared with the raw JSON strings of the files.
+ */
+@Value
+@Builder
+public class FineQuery {
+
+    /**
+     * Inclusive start of the {@code date_time} range.
+     */
+    LocalDateTime from;
+
+    /**
+     * Exclusive end of the {@code date_time} range.
+     */
+    LocalDateTime to;
+
+    Set<FineType> types;
+
+    String firstName;
+
+    String lastName;
+
+    public boolean hasDateRange() {
+        return from != null || to != null;
+    }
+
+    /**
+     * {@link #getFrom()} as UTC epoch seconds, {@link Long#MIN_VALUE} if it is not set.
+     */
+    public long getFromEpochSecond() {
+        return from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * {@link #getTo()} as UTC epoch seconds, {@link Long#MAX_VALUE} if it is not set.
+     */
+    public long getToEpochSecond() {
+        return to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Bit {@code 1 << ordinal} of every type of {@link #getTypes()}, all the bits of {@link FineType} if it is not set.
+     */
+    public int getTypeMask() {
+        if (types == null) {
+            return (1 << FineType.values().length) - 1;
+        }
+        int mask = 0;
+        for (FineType type : types) {
+            mask |= 1 << type.ordinal();
+        }
+        return mask;
+    }
+
+}
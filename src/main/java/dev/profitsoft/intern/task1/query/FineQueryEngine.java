@@ -0,0 +1,72 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers a {@link FineQuery} over fines files, skipping every chunk whose {@link ZoneMap} cannot match.
+ * A file without a valid {@link FineIndex} is scanned completely once, and its index is built during that scan.
+ */
+public class FineQueryEngine {
+
+    public static final long ZONE_SIZE = 1024 * 1024;
+
+    public static QueryResult query(List<File> fineFiles, FineQuery query, int nThreads) {
+        FineFilter filter = new FineFilter(query);
+        try (AggregationEngine engine = new AggregationEngine(nThreads)) {
+            return engine.aggregate(fineFiles, fineFile -> queryFile(fineFile, filter),
+                    QueryResult::merge, QueryResult::new);
+        }
+    }
+
+    private static QueryResult queryFile(File fineFile, FineFilter filter) throws IOException {
+        PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+        FineIndex index = FineIndex.load(fineFile, key);
+        return index == null ? indexFile(fineFile, key, filter) : queryZones(fineFile, index, filter);
+    }
+
+    private static QueryResult queryZones(File fineFile, FineIndex index, FineFilter filter) throws IOException {
+        QueryResult result = new QueryResult();
+        for (ZoneMap zone : index.getZones()) {
+            if (!filter.mayMatch(zone)) {
+                result.skipped(zone);
+                continue;
+            }
+            zone.toChunk(fineFile).scan(fine -> {
+                if (filter.matches(fine)) {
+                    result.getStatistic().add(fine.getTypeOrdinal(), fine.getMinorUnits(), fine.getScale());
+                }
+            });
+            result.scanned(zone);
+        }
+        return result;
+    }
+
+    private static QueryResult indexFile(File fineFile, PartialAggregateCache.FileKey key, FineFilter filter)
+            throws IOException {
+        QueryResult result = new QueryResult();
+        List<ZoneMap> zones = new ArrayList<>();
+        for (FineChunk chunk : FineFileSplitter.split(fineFile, ZONE_SIZE)) {
+            ZoneMapBuilder zoneMapBuilder = new ZoneMapBuilder(chunk);
+            chunk.scan(fine -> {
+                zoneMapBuilder.visit(fine);
+                if (filter.matches(fine)) {
+                    result.getStatistic().add(fine.getTypeOrdinal(), fine.getMinorUnits(), fine.getScale());
+                }
+            });
+            ZoneMap zone = zoneMapBuilder.build();
+            zones.add(zone);
+            result.scanned(zone);
+        }
+        new FineIndex(zones).store(fineFile, key);
+        return result;
+    }
+
+}
@@ -0,0 +1,44 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import lombok.Getter;
+
+/**
+ * Totals of the fines matching a {@link FineQuery} and how much of the directory had to be read for them.
+ */
+@Getter
+public class QueryResult {
+
+    private final FinesAccumulator statistic = new FinesAccumulator();
+    private long scannedZones;
+    private long skippedZones;
+    private long scannedBytes;
+    private long skippedBytes;
+
+    void scanned(ZoneMap zone) {
+        scannedZones++;
+        scannedBytes += zone.getEnd() - zone.getStart();
+    }
+
+    void skipped(ZoneMap zone) {
+        skippedZones++;
+        skippedBytes += zone.getEnd() - zone.getStart();
+    }
+
+    public QueryResult merge(QueryResult other) {
+        statistic.merge(other.statistic);
+        scannedZones += other.scannedZones;
+        skippedZones += other.skippedZones;
+        scannedBytes += other.scannedBytes;
+        skippedBytes += other.skippedBytes;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d fines, scanned %d zones (%d MB), skipped %d zones (%d MB)",
+                statistic.getTotalCount(), scannedZones, scannedBytes / (1024 * 1024),
+                skippedZones, skippedBytes / (1024 * 1024));
+    }
+
+}
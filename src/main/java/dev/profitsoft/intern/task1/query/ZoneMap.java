@@ -0,0 +1,49 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Summary of a {@link FineChunk}: its byte range, number of fines, min/max {@code date_time} in epoch seconds,
+ * bitmask of the fine types and a Bloom filter of the first and last names.
+ * A chunk without any dated fine has {@code minEpochSecond > maxEpochSecond}.
+ */
+@Value
+public class ZoneMap {
+
+    long start;
+    long end;
+    long count;
+    long minEpochSecond;
+    long maxEpochSecond;
+    int typeMask;
+    @Getter(AccessLevel.PACKAGE)
+    BloomFilter names;
+
+    public FineChunk toChunk(File fineFile) {
+        return new FineChunk(fineFile, start, end);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(start);
+        out.writeLong(end);
+        out.writeLong(count);
+        out.writeLong(minEpochSecond);
+        out.writeLong(maxEpochSecond);
+        out.writeInt(typeMask);
+        names.writeTo(out);
+    }
+
+    static ZoneMap readFrom(DataInput in) throws IOException {
+        return new ZoneMap(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readInt(),
+                BloomFilter.readFrom(in));
+    }
+
+}
@@ -0,0 +1,70 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Collects the {@link ZoneMap} of a chunk while the chunk is scanned for a query.
+ */
+class ZoneMapBuilder implements FineVisitor {
+
+    private final FineChunk chunk;
+    private long count;
+    private long minEpochSecond = Long.MAX_VALUE;
+    private long maxEpochSecond = Long.MIN_VALUE;
+    private int typeMask;
+    private long[] nameHashes = new long[64];
+    private int nameHashCount;
+
+    ZoneMapBuilder(FineChunk chunk) {
+        this.chunk = chunk;
+    }
+
+    @Override
+    public void visit(FineScanner fine) {
+        count++;
+        typeMask |= 1 << fine.getTypeOrdinal();
+        if (fine.hasDateTime()) {
+            long epochSecond = fine.getEpochSecond();
+            minEpochSecond = Math.min(minEpochSecond, epochSecond);
+            maxEpochSecond = Math.max(maxEpochSecond, epochSecond);
+        }
+        if (fine.getFirstNameStart() >= 0) {
+            addNameHash(FineFilter.firstNameHash(fine.getBuffer(), fine.getFirstNameStart(), fine.getFirstNameEnd()));
+        }
+        if (fine.getLastNameStart() >= 0) {
+            addNameHash(FineFilter.lastNameHash(fine.getBuffer(), fine.getLastNameStart(), fine.getLastNameEnd()));
+        }
+    }
+
+    /**
+     * Sizes the Bloom filter by the number of distinct names, which is much smaller than the number of fines.
+     */
+    ZoneMap build() {
+        long[] hashes = Arrays.copyOf(nameHashes, nameHashCount);
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+
+        BloomFilter names = new BloomFilter(distinct);
+        for (int i = 0; i < distinct; i++) {
+            names.add(hashes[i]);
+        }
+        return new ZoneMap(chunk.getStart(), chunk.getEnd(), count, minEpochSecond, maxEpochSecond, typeMask, names);
+    }
+
+    private void addNameHash(long hash) {
+        if (nameHashCount == nameHashes.length) {
+            nameHashes = Arrays.copyOf(nameHashes, nameHashCount * 2);
+        }
+        nameHashes[nameHashCount++] = hash;
+    }
+
+}
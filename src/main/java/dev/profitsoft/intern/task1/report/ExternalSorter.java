@@ -0,0 +1,240 @@
+package dev.profitsoft.intern.task1.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Sorts more rows than fit in memory. Rows are collected up to {@code maxRowsInMemory}, then sorted and written
+ * to a run file with a {@link RowCodec}. {@link #forEachSorted} merges at most {@code maxFanIn} runs at a time
+ * through a priority queue holding one row per run, writing the result of each merge as a new run until
+ * the last merge can go straight to the consumer. Memory is bounded by the buffer of rows, or by
+ * {@code maxFanIn} rows and stream buffers of {@link #RUN_BUFFER_SIZE} bytes while merging.
+ */
+public class ExternalSorter<T> implements AutoCloseable {
+
+    public static final int RUN_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_FAN_IN = 64;
+
+    private final Comparator<? super T> comparator;
+    private final RowCodec<T> codec;
+    private final int maxRowsInMemory;
+    private final int maxFanIn;
+    private final File tempDirectory;
+    private final List<T> buffer = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private long rowCount;
+    private int runCount;
+    private int mergePassCount;
+
+    public ExternalSorter(Comparator<? super T> comparator, RowCodec<T> codec, int maxRowsInMemory, File tempDirectory) {
+        this(comparator, codec, maxRowsInMemory, DEFAULT_MAX_FAN_IN, tempDirectory);
+    }
+
+    public ExternalSorter(Comparator<? super T> comparator, RowCodec<T> codec, int maxRowsInMemory, int maxFanIn,
+                          File tempDirectory) {
+        if (maxRowsInMemory < 1) {
+            throw new IllegalArgumentException("At least one row should fit in memory");
+        }
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException("At least two runs should be merged at once");
+        }
+        this.comparator = comparator;
+        this.codec = codec;
+        this.maxRowsInMemory = maxRowsInMemory;
+        this.maxFanIn = maxFanIn;
+        this.tempDirectory = tempDirectory;
+    }
+
+    public void add(T row) {
+        buffer.add(row);
+        rowCount++;
+        if (buffer.size() >= maxRowsInMemory) {
+            writeRun();
+        }
+    }
+
+    /**
+     * Passes all the added rows to the consumer in order and deletes the run files.
+     */
+    public void forEachSorted(Consumer<? super T> consumer) {
+        if (runs.isEmpty()) {
+            buffer.sort(comparator);
+            buffer.forEach(consumer);
+            buffer.clear();
+            return;
+        }
+        writeRun();
+
+        try {
+            while (runs.size() > maxFanIn) {
+                List<File> inputs = new ArrayList<>(runs.subList(0, maxFanIn));
+                File merged = createRunFile();
+                runs.add(merged);
+                try (DataOutputStream out = openRun(merged)) {
+                    merge(inputs, rows -> writeLong(out, rows), row -> write(out, row));
+                }
+                runs.removeAll(inputs);
+                mergePassCount++;
+            }
+            merge(new ArrayList<>(runs), rows -> { }, consumer);
+            mergePassCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            close();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Number of runs written while adding rows.
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Number of merges made by {@link #forEachSorted}, including the last one into the consumer.
+     */
+    public int getMergePassCount() {
+        return mergePassCount;
+    }
+
+    @Override
+    public void close() {
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void writeRun() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        buffer.sort(comparator);
+        try {
+            File run = createRunFile();
+            runs.add(run);
+            try (DataOutputStream out = openRun(run)) {
+                out.writeLong(buffer.size());
+                for (T row : buffer) {
+                    codec.write(out, row);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runCount++;
+        buffer.clear();
+    }
+
+    /**
+     * Merges the runs into the consumer, passing the total number of their rows to {@code rowCount} first,
+     * and deletes them.
+     */
+    private void merge(List<File> inputs, LongConsumer rowCount, Consumer<? super T> consumer) throws IOException {
+        List<Run<T>> openRuns = new ArrayList<>(inputs.size());
+        PriorityQueue<Run<T>> queue = new PriorityQueue<>(inputs.size(), (a, b) -> comparator.compare(a.head, b.head));
+        try {
+            long rows = 0;
+            for (File file : inputs) {
+                Run<T> run = new Run<>(file, codec);
+                openRuns.add(run);
+                rows += run.remaining;
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+            rowCount.accept(rows);
+            while (!queue.isEmpty()) {
+                Run<T> run = queue.poll();
+                consumer.accept(run.head);
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+        } finally {
+            for (Run<T> run : openRuns) {
+                run.close();
+            }
+            for (File file : inputs) {
+                file.delete();
+            }
+        }
+    }
+
+    private File createRunFile() throws IOException {
+        return File.createTempFile("fines-run-", ".bin", tempDirectory);
+    }
+
+    private static DataOutputStream openRun(File run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run.toPath()), RUN_BUFFER_SIZE));
+    }
+
+    private static void writeLong(DataOutputStream out, long value) {
+        try {
+            out.writeLong(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(DataOutputStream out, T row) {
+        try {
+            codec.write(out, row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Run<T> {
+
+        private final DataInputStream in;
+        private final RowCodec<T> codec;
+        private long remaining;
+        private T head;
+
+        Run(File file, RowCodec<T> codec) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), RUN_BUFFER_SIZE));
+            this.codec = codec;
+            this.remaining = in.readLong();
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            remaining--;
+            head = codec.read(in);
+            return true;
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
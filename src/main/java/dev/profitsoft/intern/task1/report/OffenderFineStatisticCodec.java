@@ -0,0 +1,46 @@
+package dev.profitsoft.intern.task1.report;
+
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class OffenderFineStatisticCodec implements RowCodec<OffenderFineStatistic> {
+
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    @Override
+    public void write(DataOutput out, OffenderFineStatistic row) throws IOException {
+        writeNullable(out, row.getFirstName());
+        writeNullable(out, row.getLastName());
+        out.writeLong(row.getDay() == null ? NO_DAY : row.getDay().toEpochDay());
+        out.writeLong(row.getCount());
+        out.writeUTF(row.getSum().toString());
+        out.writeUTF(row.getMin().toString());
+        out.writeUTF(row.getMax().toString());
+    }
+
+    @Override
+    public OffenderFineStatistic read(DataInput in) throws IOException {
+        String firstName = readNullable(in);
+        String lastName = readNullable(in);
+        long epochDay = in.readLong();
+        return new OffenderFineStatistic(firstName, lastName, epochDay == NO_DAY ? null : LocalDate.ofEpochDay(epochDay),
+                in.readLong(), new BigDecimal(in.readUTF()), new BigDecimal(in.readUTF()), new BigDecimal(in.readUTF()));
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+}
@@ -0,0 +1,16 @@
+package dev.profitsoft.intern.task1.report;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary form of a report row for the run files of {@link ExternalSorter}.
+ */
+public interface RowCodec<T> {
+
+    void write(DataOutput out, T row) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+}
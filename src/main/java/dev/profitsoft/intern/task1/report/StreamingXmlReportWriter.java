@@ -0,0 +1,121 @@
+package dev.profitsoft.intern.task1.report;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import com.fasterxml.jackson.dataformat.xml.util.DefaultXmlPrettyPrinter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import javax.xml.namespace.QName;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Writes a {@code <fines_statistic>} document row by row through one {@link ToXmlGenerator}, so a report
+ * is never materialised in memory. Rows are serialised with the same annotations as {@code FinesStatistic}:
+ * <pre>
+ * try (StreamingXmlReportWriter writer = new StreamingXmlReportWriter(file)) {
+ *     writer.startSection("by_offender");
+ *     rows.forEach(row -> writer.writeRow("offender", row));
+ *     writer.endSection();
+ * }
+ * </pre>
+ */
+public class StreamingXmlReportWriter implements AutoCloseable {
+
+    public static final String ROOT_ELEMENT = "fines_statistic";
+    private static final XmlMapper xmlMapper = createXmlMapper();
+
+    private final OutputStream out;
+    private final ToXmlGenerator generator;
+    private boolean inSection;
+    private long rowCount;
+
+    public StreamingXmlReportWriter(File file) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 64 * 1024);
+        this.generator = xmlMapper.getFactory().createGenerator(out);
+        generator.setPrettyPrinter(new DefaultXmlPrettyPrinter());
+        generator.initGenerator();
+        generator.setNextName(new QName(ROOT_ELEMENT));
+        generator.writeStartObject();
+    }
+
+    /**
+     * Returns the mapper used for the rows, configured like the other XML outputs of the project.
+     */
+    public static XmlMapper getXmlMapper() {
+        return xmlMapper;
+    }
+
+    public void startSection(String name) {
+        if (inSection) {
+            throw new IllegalStateException("Section is already started");
+        }
+        try {
+            generator.writeFieldName(name);
+            generator.writeStartObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        inSection = true;
+    }
+
+    public void writeRow(String name, Object row) {
+        if (!inSection) {
+            throw new IllegalStateException("Rows should be written inside a section");
+        }
+        try {
+            generator.writeFieldName(name);
+            xmlMapper.writeValue(generator, row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+    }
+
+    public void endSection() {
+        if (!inSection) {
+            throw new IllegalStateException("Section is not started");
+        }
+        try {
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        inSection = false;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inSection) {
+                endSection();
+            }
+            generator.writeEndObject();
+            generator.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static XmlMapper createXmlMapper() {
+        XmlMapper mapper = new XmlMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.configure(ToXmlGenerator.Feature.WRITE_XML_DECLARATION, true);
+        return mapper;
+    }
+
+}
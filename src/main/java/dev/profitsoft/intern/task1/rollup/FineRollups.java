@@ -0,0 +1,138 @@
+package dev.profitsoft.intern.task1.rollup;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.FinesStatistic;
+import dev.profitsoft.intern.task1.model.MonthlyFineStatistic;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Totals per type plus count, sum, min and max per type x year x month and per offender, filled in one pass.
+ * Month keys pack {@code type | year | month}, offender keys pack the ids of first and last name in a {@link NameDictionary}.
+ */
+public class FineRollups implements FineVisitor {
+
+    private static final FineType[] TYPES = FineType.values();
+    private static final int NO_NAME = -1;
+
+    private final FinesAccumulator totals = new FinesAccumulator();
+    private final LongStatsMap byTypeMonth = new LongStatsMap(TYPES.length * 12);
+    private final LongStatsMap byOffender = new LongStatsMap();
+    private final NameDictionary names = new NameDictionary();
+
+    @Override
+    public void visit(FineScanner fine) {
+        int typeOrdinal = fine.getTypeOrdinal();
+        long minorUnits = fine.getMinorUnits();
+        totals.add(typeOrdinal, minorUnits, fine.getScale());
+
+        if (fine.hasDateTime()) {
+            byTypeMonth.add(monthKey(typeOrdinal, fine.getYear(), fine.getMonth()), minorUnits);
+        }
+
+        int firstName = fine.getFirstNameStart() < 0
+                ? NO_NAME : names.idOf(fine.getBuffer(), fine.getFirstNameStart(), fine.getFirstNameEnd());
+        int lastName = fine.getLastNameStart() < 0
+                ? NO_NAME : names.idOf(fine.getBuffer(), fine.getLastNameStart(), fine.getLastNameEnd());
+        byOffender.add(offenderKey(firstName, lastName), minorUnits);
+    }
+
+    public FineRollups merge(FineRollups other) {
+        totals.merge(other.totals);
+        byTypeMonth.merge(other.byTypeMonth);
+
+        int[] remap = new int[other.names.size()];
+        for (int id = 0; id < remap.length; id++) {
+            remap[id] = names.idOf(other.names.getBytes(id));
+        }
+        other.byOffender.forEach((key, count, sum, min, max) -> byOffender.add(
+                offenderKey(remapName(remap, firstNameOf(key)), remapName(remap, lastNameOf(key))), count, sum, min, max));
+        return this;
+    }
+
+    public FinesAccumulator getTotals() {
+        return totals;
+    }
+
+    public LongStatsMap getByTypeMonth() {
+        return byTypeMonth;
+    }
+
+    public LongStatsMap getByOffender() {
+        return byOffender;
+    }
+
+    public NameDictionary getNames() {
+        return names;
+    }
+
+    public List<MonthlyFineStatistic> getMonthlyStatistic() {
+        List<MonthlyFineStatistic> statistic = new ArrayList<>(byTypeMonth.size());
+        byTypeMonth.forEach((key, count, sum, min, max) -> {
+            FineType type = TYPES[(int) (key >>> 32)];
+            int scale = totals.getScale(type);
+            statistic.add(new MonthlyFineStatistic(type, (int) (key & 0xffffffffL) >>> 4, (int) (key & 0xf), count,
+                    toAmount(sum, scale), toAmount(min, scale), toAmount(max, scale)));
+        });
+        statistic.sort(Comparator.comparing(MonthlyFineStatistic::getType)
+                .thenComparingInt(MonthlyFineStatistic::getYear)
+                .thenComparingInt(MonthlyFineStatistic::getMonth));
+        return statistic;
+    }
+
+    public List<OffenderFineStatistic> getOffenderStatistic() {
+        int scale = 1;
+        for (FineType type : TYPES) {
+            scale = Math.max(scale, totals.getScale(type));
+        }
+
+        int amountScale = scale;
+        List<OffenderFineStatistic> statistic = new ArrayList<>(byOffender.size());
+        byOffender.forEach((key, count, sum, min, max) -> statistic.add(new OffenderFineStatistic(
+                nameOf(firstNameOf(key)), nameOf(lastNameOf(key)), count,
+                toAmount(sum, amountScale), toAmount(min, amountScale), toAmount(max, amountScale))));
+        statistic.sort(Comparator.comparing(OffenderFineStatistic::getSum).reversed());
+        return statistic;
+    }
+
+    public FinesStatistic toFinesStatistic() {
+        return new FinesStatistic(totals.toFines(), getMonthlyStatistic(), getOffenderStatistic());
+    }
+
+    public static long monthKey(int typeOrdinal, int year, int month) {
+        return ((long) typeOrdinal << 32) | ((long) year << 4) | month;
+    }
+
+    public static long offenderKey(int firstName, int lastName) {
+        return ((long) firstName << 32) | (lastName & 0xffffffffL);
+    }
+
+    public static int firstNameOf(long offenderKey) {
+        return (int) (offenderKey >> 32);
+    }
+
+    public static int lastNameOf(long offenderKey) {
+        return (int) offenderKey;
+    }
+
+    private String nameOf(int id) {
+        return id == NO_NAME ? null : names.getName(id);
+    }
+
+    private static int remapName(int[] remap, int id) {
+        return id == NO_NAME ? NO_NAME : remap[id];
+    }
+
+    private static BigDecimal toAmount(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits, FinesAccumulator.SCALE).setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+}
@@ -0,0 +1,130 @@
+package dev.profitsoft.intern.task1.rollup;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a packed {@code long} key to count, sum, min and max of {@code long} values.
+ * Keys and statistics live in parallel primitive arrays, so adding a value allocates nothing.
+ */
+public class LongStatsMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] sums;
+    private long[] mins;
+    private long[] maxs;
+    private int mask;
+    private int size;
+
+    public LongStatsMap() {
+        this(16);
+    }
+
+    public LongStatsMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public void add(long key, long value) {
+        add(key, 1, value, value, value);
+    }
+
+    public void add(long key, long count, long sum, long min, long max) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key " + key + " is reserved");
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            counts[slot] = count;
+            sums[slot] = sum;
+            mins[slot] = min;
+            maxs[slot] = max;
+            if (++size * 4L > keys.length * 3L) {
+                rehash(keys.length << 1);
+            }
+            return;
+        }
+        counts[slot] += count;
+        sums[slot] = Math.addExact(sums[slot], sum);
+        if (min < mins[slot]) {
+            mins[slot] = min;
+        }
+        if (max > maxs[slot]) {
+            maxs[slot] = max;
+        }
+    }
+
+    public LongStatsMap merge(LongStatsMap other) {
+        other.forEach(this::add);
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(StatsConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], counts[slot], sums[slot], mins[slot], maxs[slot]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        long[] oldMins = mins;
+        long[] oldMaxs = maxs;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                sums[slot] = oldSums[i];
+                mins[slot] = oldMins[i];
+                maxs[slot] = oldMaxs[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[capacity];
+        sums = new long[capacity];
+        mins = new long[capacity];
+        maxs = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    @FunctionalInterface
+    public interface StatsConsumer {
+
+        void accept(long key, long count, long sum, long min, long max);
+
+    }
+
+}
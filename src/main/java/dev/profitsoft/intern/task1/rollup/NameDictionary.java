@@ -0,0 +1,154 @@
+package dev.profitsoft.intern.task1.rollup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Assigns dense {@code int} ids to names given as raw JSON string bytes.
+ * A lookup compares bytes in place and copies them only the first time a name is seen.
+ */
+public class NameDictionary {
+
+    private byte[][] names = new byte[16][];
+    private int[] hashes = new int[16];
+    private int[] table = new int[32];
+    private int size;
+
+    public int idOf(ByteBuffer buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && equals(names[id], buffer, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] name = new byte[end - start];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(start + i);
+        }
+        return add(name, hash, slot);
+    }
+
+    public int idOf(byte[] name) {
+        return idOf(ByteBuffer.wrap(name), 0, name.length);
+    }
+
+    /**
+     * Returns the id of the name or -1 if it has not been added.
+     */
+    public int find(byte[] name) {
+        ByteBuffer buffer = ByteBuffer.wrap(name);
+        int hash = hash(buffer, 0, name.length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && equals(names[id], buffer, 0, name.length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public byte[] getBytes(int id) {
+        return names[id];
+    }
+
+    public String getName(int id) {
+        return unescape(new String(names[id], StandardCharsets.UTF_8));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(byte[] name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size << 1);
+            hashes = Arrays.copyOf(hashes, size << 1);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+
+        if (size * 2 > table.length) {
+            table = new int[table.length << 1];
+            int mask = table.length - 1;
+            for (int i = 0; i < size; i++) {
+                int s = hashes[i] & mask;
+                while (table[s] != 0) {
+                    s = (s + 1) & mask;
+                }
+                table[s] = i + 1;
+            }
+        }
+        return id;
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        return (int) LongStatsMap.mix(hash);
+    }
+
+    private static boolean equals(byte[] name, ByteBuffer buffer, int start, int end) {
+        if (name.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String unescape(String raw) {
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        StringBuilder value = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 == raw.length()) {
+                value.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    value.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+        return value.toString();
+    }
+
+}
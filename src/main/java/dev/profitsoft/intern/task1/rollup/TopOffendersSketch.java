@@ -0,0 +1,374 @@
+package dev.profitsoft.intern.task1.rollup;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.TopOffenderStatistic;
+import dev.profitsoft.intern.task1.model.TopOffendersStatistic;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Space-Saving sketch of the offenders with the largest sum of fines in a fixed number of counters.
+ * When all counters are taken, a new offender replaces the one with the smallest sum and inherits that sum as its error,
+ * so every estimate is at most {@link #getErrorBound()} above the true sum, which never exceeds
+ * {@code total / capacity}. Offenders are keyed by a 64-bit hash of their names; names are copied into
+ * per-counter byte arrays that are reused on replacement. Sketches of different workers are combined with {@link #merge}.
+ */
+public class TopOffendersSketch implements FineVisitor {
+
+    private static final int NULL_NAME = -1;
+
+    private final int capacity;
+    private final FinesAccumulator totals = new FinesAccumulator();
+
+    private final long[] keys;
+    private final long[] sums;
+    private final long[] errors;
+    private final byte[][] names;
+    private final int[] firstNameLengths;
+    private final int[] lastNameLengths;
+    private final int[] heap;
+    private final int[] heapPositions;
+    private final int[] table;
+    private final int mask;
+    private int size;
+
+    public TopOffendersSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be positive");
+        }
+        this.capacity = capacity;
+        keys = new long[capacity];
+        sums = new long[capacity];
+        errors = new long[capacity];
+        names = new byte[capacity][];
+        firstNameLengths = new int[capacity];
+        lastNameLengths = new int[capacity];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        mask = table.length - 1;
+    }
+
+    /**
+     * Returns a sketch whose estimates exceed the true sums by at most {@code relativeError * total}.
+     */
+    public static TopOffendersSketch withRelativeError(double relativeError) {
+        if (relativeError <= 0 || relativeError >= 1) {
+            throw new IllegalArgumentException("Relative error should be in (0, 1)");
+        }
+        return new TopOffendersSketch((int) Math.ceil(1 / relativeError));
+    }
+
+    @Override
+    public void visit(FineScanner fine) {
+        long minorUnits = fine.getMinorUnits();
+        totals.add(fine.getTypeOrdinal(), minorUnits, fine.getScale());
+
+        ByteBuffer buffer = fine.getBuffer();
+        int firstStart = fine.getFirstNameStart();
+        int firstEnd = fine.getFirstNameEnd();
+        int lastStart = fine.getLastNameStart();
+        int lastEnd = fine.getLastNameEnd();
+        long key = keyOf(buffer, firstStart, firstEnd, lastStart, lastEnd);
+
+        int slot = find(key);
+        if (slot < 0 && size < capacity) {
+            slot = size++;
+            keys[slot] = key;
+            sums[slot] = minorUnits;
+            errors[slot] = 0;
+            insert(key, slot);
+            copyNames(slot, buffer, firstStart, firstEnd, lastStart, lastEnd);
+            heap[slot] = slot;
+            siftUp(slot);
+            return;
+        }
+        if (slot < 0) {
+            slot = heap[0];
+            remove(keys[slot]);
+            errors[slot] = sums[slot];
+            keys[slot] = key;
+            insert(key, slot);
+            copyNames(slot, buffer, firstStart, firstEnd, lastStart, lastEnd);
+        }
+        sums[slot] = Math.addExact(sums[slot], minorUnits);
+        siftDown(heapPositions[slot]);
+    }
+
+    /**
+     * Combines the sketch of another worker into this one. An offender missing from a full sketch is assumed to have
+     * that sketch's smallest sum, both as estimate and as error, so the error bounds of both sketches add up.
+     */
+    public TopOffendersSketch merge(TopOffendersSketch other) {
+        totals.merge(other.totals);
+        long thisMissing = size == capacity ? getErrorBound() : 0;
+        long otherMissing = other.size == other.capacity ? other.getErrorBound() : 0;
+
+        List<Counter> counters = new ArrayList<>(size + other.size);
+        for (int slot = 0; slot < size; slot++) {
+            int otherSlot = other.find(keys[slot]);
+            counters.add(otherSlot < 0
+                    ? new Counter(this, slot, sums[slot] + otherMissing, errors[slot] + otherMissing)
+                    : new Counter(this, slot, sums[slot] + other.sums[otherSlot], errors[slot] + other.errors[otherSlot]));
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            if (find(other.keys[slot]) < 0) {
+                counters.add(new Counter(other, slot,
+                        other.sums[slot] + thisMissing, other.errors[slot] + thisMissing));
+            }
+        }
+        counters.sort((a, b) -> Long.compare(b.sum, a.sum));
+        if (counters.size() > capacity) {
+            counters = counters.subList(0, capacity);
+        }
+
+        byte[][] mergedNames = new byte[counters.size()][];
+        int[] mergedFirstLengths = new int[counters.size()];
+        int[] mergedLastLengths = new int[counters.size()];
+        long[] mergedKeys = new long[counters.size()];
+        for (int i = 0; i < counters.size(); i++) {
+            Counter counter = counters.get(i);
+            mergedNames[i] = counter.sketch.names[counter.slot];
+            mergedFirstLengths[i] = counter.sketch.firstNameLengths[counter.slot];
+            mergedLastLengths[i] = counter.sketch.lastNameLengths[counter.slot];
+            mergedKeys[i] = counter.sketch.keys[counter.slot];
+        }
+
+        Arrays.fill(table, 0);
+        size = counters.size();
+        for (int i = 0; i < size; i++) {
+            keys[i] = mergedKeys[i];
+            sums[i] = counters.get(i).sum;
+            errors[i] = counters.get(i).error;
+            names[i] = mergedNames[i] == null ? null : mergedNames[i].clone();
+            firstNameLengths[i] = mergedFirstLengths[i];
+            lastNameLengths[i] = mergedLastLengths[i];
+            insert(keys[i], i);
+        }
+        for (int i = 0; i < size; i++) {
+            heap[i] = size - 1 - i;
+            heapPositions[size - 1 - i] = i;
+        }
+        return this;
+    }
+
+    /**
+     * Returns up to {@code k} offenders by descending estimated sum. An offender is marked as guaranteed
+     * when even its lowest possible sum is above the estimate of the first offender left out.
+     */
+    public TopOffendersStatistic getTopOffenders(int k) {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> Long.compare(sums[b], sums[a]));
+        int count = Math.min(k, size);
+        long threshold = count < size ? sums[slots[count]] : 0;
+
+        List<TopOffenderStatistic> offenders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            offenders.add(new TopOffenderStatistic(firstNameOf(slot), lastNameOf(slot), toAmount(sums[slot]),
+                    toAmount(errors[slot]), sums[slot] - errors[slot] > threshold));
+        }
+        return new TopOffendersStatistic(capacity, getMemoryBytes(), toAmount(getErrorBound()),
+                toAmount(getTotalMinorUnits()), offenders);
+    }
+
+    public FinesAccumulator getTotals() {
+        return totals;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Largest possible overestimate of any sum in minor units: the smallest counter once all counters are taken.
+     */
+    public long getErrorBound() {
+        return size < capacity ? 0 : sums[heap[0]];
+    }
+
+    public long getTotalMinorUnits() {
+        long total = 0;
+        for (FineType type : FineType.values()) {
+            total += totals.getMinorUnits(type);
+        }
+        return total;
+    }
+
+    /**
+     * Approximate heap footprint of the counters, including the copied names.
+     */
+    public long getMemoryBytes() {
+        long bytes = (long) capacity * (3 * Long.BYTES + 4 * Integer.BYTES + 8) + (long) table.length * Integer.BYTES;
+        for (int i = 0; i < size; i++) {
+            if (names[i] != null) {
+                bytes += 16 + names[i].length;
+            }
+        }
+        return bytes;
+    }
+
+    private String firstNameOf(int slot) {
+        int length = firstNameLengths[slot];
+        return length == NULL_NAME ? null
+                : NameDictionary.unescape(new String(names[slot], 0, length, StandardCharsets.UTF_8));
+    }
+
+    private String lastNameOf(int slot) {
+        int length = lastNameLengths[slot];
+        int offset = Math.max(0, firstNameLengths[slot]);
+        return length == NULL_NAME ? null
+                : NameDictionary.unescape(new String(names[slot], offset, length, StandardCharsets.UTF_8));
+    }
+
+    private void copyNames(int slot, ByteBuffer buffer, int firstStart, int firstEnd, int lastStart, int lastEnd) {
+        int firstLength = firstStart < 0 ? NULL_NAME : firstEnd - firstStart;
+        int lastLength = lastStart < 0 ? NULL_NAME : lastEnd - lastStart;
+        int length = Math.max(0, firstLength) + Math.max(0, lastLength);
+        byte[] name = names[slot];
+        if (name == null || name.length < length) {
+            name = new byte[length];
+            names[slot] = name;
+        }
+        int offset = 0;
+        for (int i = Math.max(0, firstStart); i < firstEnd; i++) {
+            name[offset++] = buffer.get(i);
+        }
+        for (int i = Math.max(0, lastStart); i < lastEnd; i++) {
+            name[offset++] = buffer.get(i);
+        }
+        firstNameLengths[slot] = firstLength;
+        lastNameLengths[slot] = lastLength;
+    }
+
+    private int find(long key) {
+        int index = (int) LongStatsMap.mix(key) & mask;
+        while (table[index] != 0) {
+            int slot = table[index] - 1;
+            if (keys[slot] == key) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, int slot) {
+        int index = (int) LongStatsMap.mix(key) & mask;
+        while (table[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        table[index] = slot + 1;
+    }
+
+    /**
+     * Removes a key with backward-shift deletion, so lookups need no tombstones.
+     */
+    private void remove(long key) {
+        int index = (int) LongStatsMap.mix(key) & mask;
+        while (keys[table[index] - 1] != key) {
+            index = (index + 1) & mask;
+        }
+        int next = (index + 1) & mask;
+        while (table[next] != 0) {
+            int home = (int) LongStatsMap.mix(keys[table[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                table[index] = table[next];
+                index = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[index] = 0;
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        long sum = sums[slot];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (sums[heap[parent]] <= sum) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapPositions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = slot;
+        heapPositions[slot] = position;
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        long sum = sums[slot];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && sums[heap[child + 1]] < sums[heap[child]]) {
+                child++;
+            }
+            if (sums[heap[child]] >= sum) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPositions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = slot;
+        heapPositions[slot] = position;
+    }
+
+    private static long keyOf(ByteBuffer buffer, int firstStart, int firstEnd, int lastStart, int lastEnd) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashRange(hash, buffer, firstStart, firstEnd);
+        hash = hashRange(hash, buffer, lastStart, lastEnd);
+        return LongStatsMap.mix(hash);
+    }
+
+    private static long hashRange(long hash, ByteBuffer buffer, int start, int end) {
+        if (start < 0) {
+            return (hash ^ 0xff) * 0x100000001b3L;
+        }
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ (buffer.get(i) & 0xff)) * 0x100000001b3L;
+        }
+        return (hash ^ (end - start)) * 0x100000001b3L;
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, FinesAccumulator.SCALE);
+    }
+
+    private static class Counter {
+
+        final TopOffendersSketch sketch;
+        final int slot;
+        final long sum;
+        final long error;
+
+        Counter(TopOffendersSketch sketch, int slot, long sum, long error) {
+            this.sketch = sketch;
+            this.slot = slot;
+            this.sum = sum;
+            this.error = error;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package dev.profitsoft.intern.task1.scan;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import lombok.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Byte range {@code [start, end)} of a fines file holding whole fine objects.
+ */
+@Value
+public class FineChunk {
+
+    File file;
+    long start;
+    long end;
+
+    public long getSize() {
+        return end - start;
+    }
+
+    public ByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        }
+    }
+
+    public long scan(FineVisitor visitor) throws IOException {
+        ByteBuffer buffer = map();
+        return new FineScanner(buffer, 0, buffer.limit()).scan(visitor);
+    }
+
+    public FinesAccumulator scan() throws IOException {
+        FinesAccumulator accumulator = new FinesAccumulator();
+        ByteBuffer buffer = map();
+        new FineScanner(buffer, 0, buffer.limit()).scan(accumulator);
+        return accumulator;
+    }
+
+    /**
+     * Scans like {@link #scan()} and reports the scanned fines to {@code progress} while it runs.
+     */
+    public FinesAccumulator scanWithProgress(LongConsumer progress) throws IOException {
+        FinesAccumulator accumulator = new FinesAccumulator();
+        ByteBuffer buffer = map();
+        new FineScanner(buffer, 0, buffer.limit()).scan(accumulator, progress);
+        return accumulator;
+    }
+
+}
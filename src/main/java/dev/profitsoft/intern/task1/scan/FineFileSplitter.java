@@ -0,0 +1,110 @@
+package dev.profitsoft.intern.task1.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts a fines file into {@link FineChunk}s that can be scanned independently.
+ * A cut is moved forward to the next {@code },{} between two fine objects of the {@code "fines"} array,
+ * confirmed by the first key of the next object ({@code {"key":}). A string value that itself contains such text
+ * could still be taken for a boundary; the generated files never have one.
+ */
+public class FineFileSplitter {
+
+    private static final int HEADER_SIZE = 64 * 1024;
+    private static final int WINDOW_SIZE = 64 * 1024;
+    private static final int MAX_KEY_SIZE = 256;
+
+    public static List<FineChunk> split(File fineFile, long chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive");
+        }
+
+        List<FineChunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(fineFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_SIZE));
+            long start = FineScanner.findFinesArrayStart(header);
+
+            while (start < size) {
+                long end = start + chunkSize >= size ? size : findObjectStart(channel, start + chunkSize, size);
+                chunks.add(new FineChunk(fineFile, start, end));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the position of the {@code {} of the first {@code },{} at or after {@code from},
+     * or {@code size} if there is none.
+     */
+    private static long findObjectStart(FileChannel channel, long from, long size) throws IOException {
+        int state = 0;
+        for (long offset = from; offset < size; offset += WINDOW_SIZE) {
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, size - offset));
+            for (int i = 0; i < window.limit(); i++) {
+                byte b = window.get(i);
+                if (b == '}') {
+                    state = 1;
+                } else if (b == ',' && state == 1) {
+                    state = 2;
+                } else if (b == '{' && state == 2) {
+                    if (startsWithKey(channel, offset + i + 1, size)) {
+                        return offset + i;
+                    }
+                    state = 0;
+                } else if (!isWhitespace(b)) {
+                    state = 0;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Whether the bytes at {@code from} are a quoted key followed by {@code :}, as after the {@code {} of an object.
+     */
+    private static boolean startsWithKey(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(MAX_KEY_SIZE, size - from));
+        int read;
+        long position = from;
+        while (bytes.hasRemaining() && (read = channel.read(bytes, position)) > 0) {
+            position += read;
+        }
+        bytes.flip();
+        int i = skipWhitespace(bytes, 0);
+        if (i >= bytes.limit() || bytes.get(i) != '"') {
+            return false;
+        }
+        for (i++; i < bytes.limit(); i++) {
+            byte b = bytes.get(i);
+            if (b == '\\') {
+                return false;
+            }
+            if (b == '"') {
+                i = skipWhitespace(bytes, i + 1);
+                return i < bytes.limit() && bytes.get(i) == ':';
+            }
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(ByteBuffer bytes, int from) {
+        int i = from;
+        while (i < bytes.limit() && isWhitespace(bytes.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+}
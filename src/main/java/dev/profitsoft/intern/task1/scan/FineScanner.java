@@ -0,0 +1,553 @@
+package dev.profitsoft.intern.task1.scan;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Scans fine objects straight from UTF-8 bytes into a {@link FinesAccumulator}
+ * without creating a {@code Fine}, a {@code String} or a {@code BigDecimal} per record.
+ * Only {@code type} and {@code fine_amount} are decoded, every other value is skipped.
+ */
+public class FineScanner {
+
+    private static final byte[] FINES = bytes("fines");
+    private static final byte[] TYPE = bytes("type");
+    private static final byte[] FINE_AMOUNT = bytes("fine_amount");
+    private static final byte[] DATE_TIME = bytes("date_time");
+    private static final byte[] FIRST_NAME = bytes("first_name");
+    private static final byte[] LAST_NAME = bytes("last_name");
+    private static final int DATE_TIME_LENGTH = "yyyy-MM-dd HH:mm:ss".length();
+    private static final byte[][] TYPE_NAMES = typeNames();
+    private static final long[] POWERS_OF_TEN = powersOfTen();
+    private static final int MAX_DIGITS = 18;
+    private static final int PROGRESS_BATCH = 4096;
+    private static final LongConsumer NO_PROGRESS = count -> {
+    };
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private int typeOrdinal;
+    private long minorUnits;
+    private int scale;
+    private int fineStart;
+    private int fineEnd;
+    private int dateTimeStart;
+    private int firstNameStart;
+    private int firstNameEnd;
+    private int lastNameStart;
+    private int lastNameEnd;
+
+    public FineScanner(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.position = from;
+        this.limit = to;
+    }
+
+    public static FinesAccumulator scanFile(File fineFile) throws IOException {
+        FinesAccumulator accumulator = new FinesAccumulator();
+        ByteBuffer buffer = map(fineFile);
+        new FineScanner(buffer, findFinesArrayStart(buffer), buffer.limit()).scan(accumulator);
+        return accumulator;
+    }
+
+    public static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("File '" + file.getName() + "' is too large to map at once");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Returns the position right after the {@code [} of a buffer starting like {@code {"fines":[}.
+     */
+    public static int findFinesArrayStart(ByteBuffer buffer) {
+        FineScanner scanner = new FineScanner(buffer, 0, buffer.limit());
+        if (scanner.nextNonWhitespace() != '{' || scanner.nextNonWhitespace() != '"') {
+            throw new IllegalStateException("File should start like {\"fines\":[");
+        }
+        int nameStart = scanner.position;
+        scanner.skipString();
+        if (!scanner.equalsRange(nameStart, scanner.position - 1, FINES)
+                || scanner.nextNonWhitespace() != ':' || scanner.nextNonWhitespace() != '[') {
+            throw new IllegalStateException("File should start like {\"fines\":[");
+        }
+        return scanner.position;
+    }
+
+    /**
+     * Scans fine objects until the closing {@code ]} of the array or the end of the range.
+     *
+     * @return number of scanned fines
+     */
+    public long scan(FinesAccumulator accumulator) {
+        return scan(accumulator, NO_PROGRESS);
+    }
+
+    /**
+     * Scans like {@link #scan(FinesAccumulator)} and passes the number of scanned fines to {@code progress}
+     * after every {@value #PROGRESS_BATCH} fines and at the end, so a long range reports progress while it runs.
+     */
+    public long scan(FinesAccumulator accumulator, LongConsumer progress) {
+        long scanned = 0;
+        while (true) {
+            skipWhitespace();
+            if (position >= limit) {
+                progress.accept(scanned % PROGRESS_BATCH);
+                return scanned;
+            }
+            byte b = buffer.get(position++);
+            if (b == ']') {
+                progress.accept(scanned % PROGRESS_BATCH);
+                return scanned;
+            }
+            if (b == ',') {
+                continue;
+            }
+            if (b != '{') {
+                throw error("Fine object should start from {");
+            }
+            readFine(false);
+            accumulator.add(typeOrdinal, minorUnits, scale);
+            if (++scanned % PROGRESS_BATCH == 0) {
+                progress.accept(PROGRESS_BATCH);
+            }
+        }
+    }
+
+    /**
+     * Scans fine objects like {@link #scan(FinesAccumulator)}, but also locates {@code date_time},
+     * {@code first_name} and {@code last_name} and passes every fine to the visitor.
+     * The getters of the scanner describe the current fine only while the visitor runs.
+     *
+     * @return number of scanned fines
+     */
+    public long scan(FineVisitor visitor) {
+        long scanned = 0;
+        while (true) {
+            skipWhitespace();
+            if (position >= limit) {
+                return scanned;
+            }
+            byte b = buffer.get(position++);
+            if (b == ']') {
+                return scanned;
+            }
+            if (b == ',') {
+                continue;
+            }
+            if (b != '{') {
+                throw error("Fine object should start from {");
+            }
+            fineStart = position - 1;
+            readFine(true);
+            fineEnd = position;
+            visitor.visit(this);
+            scanned++;
+        }
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int getTypeOrdinal() {
+        return typeOrdinal;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int getFineStart() {
+        return fineStart;
+    }
+
+    public int getFineEnd() {
+        return fineEnd;
+    }
+
+    public boolean hasDateTime() {
+        return dateTimeStart >= 0;
+    }
+
+    public int getYear() {
+        return digits(dateTimeStart, 4);
+    }
+
+    public int getMonth() {
+        return digits(dateTimeStart + 5, 2);
+    }
+
+    public int getDay() {
+        return digits(dateTimeStart + 8, 2);
+    }
+
+    public int getSecondOfDay() {
+        return digits(dateTimeStart + 11, 2) * 3600 + digits(dateTimeStart + 14, 2) * 60 + digits(dateTimeStart + 17, 2);
+    }
+
+    /**
+     * Seconds since 1970-01-01T00:00:00 of {@code date_time} read as UTC.
+     */
+    public long getEpochSecond() {
+        return epochDay(getYear(), getMonth(), getDay()) * 86_400 + getSecondOfDay();
+    }
+
+    public int getFirstNameStart() {
+        return firstNameStart;
+    }
+
+    public int getFirstNameEnd() {
+        return firstNameEnd;
+    }
+
+    public int getLastNameStart() {
+        return lastNameStart;
+    }
+
+    public int getLastNameEnd() {
+        return lastNameEnd;
+    }
+
+    private void readFine(boolean allFields) {
+        typeOrdinal = -1;
+        scale = -1;
+        dateTimeStart = -1;
+        firstNameStart = -1;
+        firstNameEnd = -1;
+        lastNameStart = -1;
+        lastNameEnd = -1;
+
+        while (true) {
+            byte b = nextNonWhitespace();
+            if (b == '}') {
+                break;
+            }
+            if (b == ',') {
+                continue;
+            }
+            if (b != '"') {
+                throw error("Field name expected");
+            }
+            int nameStart = position;
+            skipString();
+            int nameEnd = position - 1;
+            if (nextNonWhitespace() != ':') {
+                throw error("':' expected after field name");
+            }
+            skipWhitespace();
+
+            if (equalsRange(nameStart, nameEnd, TYPE)) {
+                readType();
+            } else if (equalsRange(nameStart, nameEnd, FINE_AMOUNT)) {
+                readAmount();
+            } else if (allFields && equalsRange(nameStart, nameEnd, DATE_TIME)) {
+                readDateTime();
+            } else if (allFields && equalsRange(nameStart, nameEnd, FIRST_NAME)) {
+                firstNameStart = readStringStart();
+                firstNameEnd = firstNameStart < 0 ? -1 : position - 1;
+            } else if (allFields && equalsRange(nameStart, nameEnd, LAST_NAME)) {
+                lastNameStart = readStringStart();
+                lastNameEnd = lastNameStart < 0 ? -1 : position - 1;
+            } else {
+                skipValue();
+            }
+        }
+
+        if (typeOrdinal < 0 || scale < 0) {
+            throw error("Fine should contain type and fine_amount");
+        }
+    }
+
+    private void readType() {
+        if (next() != '"') {
+            throw error("Fine type should be a string");
+        }
+        int start = position;
+        skipString();
+        int end = position - 1;
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (equalsRange(start, end, TYPE_NAMES[i])) {
+                typeOrdinal = i;
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown fine type '" + decode(start, end) + "' at byte " + start);
+    }
+
+    private void readDateTime() {
+        int start = readStringStart();
+        if (start < 0) {
+            return;
+        }
+        if (position - 1 - start != DATE_TIME_LENGTH) {
+            throw new IllegalStateException("Fine date_time at byte " + start + " should look like yyyy-MM-dd HH:mm:ss");
+        }
+        dateTimeStart = start;
+    }
+
+    private int readStringStart() {
+        if (peek() == 'n') {
+            skipValue();
+            return -1;
+        }
+        if (next() != '"') {
+            throw error("String value expected");
+        }
+        int start = position;
+        skipString();
+        return start;
+    }
+
+    private int digits(int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalStateException("Digit expected in date_time at byte " + i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void readAmount() {
+        int start = position;
+        boolean negative = peek() == '-';
+        if (negative) {
+            position++;
+        }
+
+        long unscaled = 0;
+        int seenDigits = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b >= '0' && b <= '9') {
+                seenDigits++;
+                if (unscaled != 0 || b != '0') {
+                    digits++;
+                }
+                unscaled = unscaled * 10 + (b - '0');
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            position++;
+        }
+        // leading zeros count as seen, so "0" and "-0.0" are amounts while "-", "." and "-." are not
+        if (seenDigits == 0 || digits > MAX_DIGITS) {
+            throw error("Fine amount is not a fixed-point number");
+        }
+
+        int exponent = 0;
+        if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            position++;
+            exponent = readExponent();
+        }
+
+        int amountScale = fractionDigits - exponent;
+        while (amountScale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            amountScale--;
+        }
+        if (amountScale > FinesAccumulator.SCALE) {
+            throw new ArithmeticException("Fine amount at byte " + start + " has more than "
+                    + FinesAccumulator.SCALE + " fraction digits");
+        }
+        int shift = FinesAccumulator.SCALE - amountScale;
+        if (unscaled == 0) {
+            minorUnits = 0;
+        } else if (shift >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Fine amount at byte " + start + " is out of range");
+        } else {
+            try {
+                minorUnits = Math.multiplyExact(unscaled, POWERS_OF_TEN[shift]);
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("Fine amount at byte " + start + " is out of range");
+            }
+        }
+        if (negative) {
+            minorUnits = -minorUnits;
+        }
+        // the same scale BigDecimal.valueOf(double) gives for an amount read as double
+        scale = Math.max(1, amountScale);
+    }
+
+    private int readExponent() {
+        boolean negative = false;
+        if (peek() == '-' || peek() == '+') {
+            negative = next() == '-';
+        }
+        int exponent = 0;
+        int start = position;
+        while (position < limit && buffer.get(position) >= '0' && buffer.get(position) <= '9' && exponent < 1000) {
+            exponent = exponent * 10 + (buffer.get(position++) - '0');
+        }
+        if (position == start) {
+            throw error("Exponent digits expected");
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private void skipValue() {
+        byte b = peek();
+        if (b == '"') {
+            position++;
+            skipString();
+        } else if (b == '{' || b == '[') {
+            skipNested();
+        } else {
+            while (position < limit) {
+                b = buffer.get(position);
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+
+    private void skipNested() {
+        int depth = 0;
+        do {
+            byte b = next();
+            if (b == '"') {
+                skipString();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() {
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                next();
+            }
+        }
+    }
+
+    private boolean equalsRange(int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte nextNonWhitespace() {
+        skipWhitespace();
+        return next();
+    }
+
+    private void skipWhitespace() {
+        while (position < limit && isWhitespace(buffer.get(position))) {
+            position++;
+        }
+    }
+
+    private byte next() {
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        return buffer.get(position++);
+    }
+
+    private byte peek() {
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        return buffer.get(position);
+    }
+
+    private IllegalStateException error(String message) {
+        return new IllegalStateException(message + " (byte " + position + ")");
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, without allocating a {@link java.time.LocalDate}.
+     */
+    public static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Every power of ten that fits into a {@code long}, 10^0 to 10^18.
+     */
+    private static long[] powersOfTen() {
+        long[] powers = new long[19];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; i++) {
+            powers[i] = powers[i - 1] * 10;
+        }
+        return powers;
+    }
+
+    private static byte[][] typeNames() {
+        FineType[] types = FineType.values();
+        byte[][] names = new byte[types.length][];
+        for (FineType type : types) {
+            names[type.ordinal()] = bytes(type.name());
+        }
+        return names;
+    }
+
+}
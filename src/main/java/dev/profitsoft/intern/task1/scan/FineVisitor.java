@@ -0,0 +1,8 @@
+package dev.profitsoft.intern.task1.scan;
+
+@FunctionalInterface
+public interface FineVisitor {
+
+    void visit(FineScanner fine);
+
+}
@@ -0,0 +1,228 @@
+package dev.profitsoft.intern.task1.server;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.MonthlyFineStatistic;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import lombok.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Long-lived HTTP service over the fines of a directory. The fines are indexed once on {@link #start()},
+ * then a background thread ingests added, changed and removed files every {@code ingestIntervalSeconds}.
+ * Requests read the current {@link FinesSnapshot} from a volatile field, so they never block behind ingestion.
+ * <pre>
+ * GET /fines/totals
+ * GET /fines/by-month?type=SPEEDING&amp;year=2019
+ * GET /fines/by-offender?last_name=Petrenko&amp;limit=10
+ * GET /fines/status
+ * </pre>
+ */
+public class FinesHttpServer implements AutoCloseable {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final ObjectMapper responseMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final HttpServer httpServer;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService ingestExecutor;
+    private final AggregationEngine engine;
+    private final FinesIngester ingester;
+    private final long ingestIntervalSeconds;
+    private volatile FinesSnapshot snapshot = FinesSnapshot.EMPTY;
+
+    public FinesHttpServer(File finesDirectory, int port, int nThreads, long ingestIntervalSeconds) throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        this.requestExecutor = Executors.newFixedThreadPool(nThreads);
+        this.ingestExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fines-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.engine = new AggregationEngine(nThreads);
+        this.ingester = new FinesIngester(finesDirectory, engine);
+        this.ingestIntervalSeconds = ingestIntervalSeconds;
+
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/fines/totals", exchange -> respond(exchange, snapshot -> snapshot.getTotals()));
+        httpServer.createContext("/fines/by-month", exchange -> respond(exchange, this::byMonth));
+        httpServer.createContext("/fines/by-offender", exchange -> respond(exchange, this::byOffender));
+        httpServer.createContext("/fines/status", exchange -> respond(exchange, snapshot -> new Status(snapshot)));
+    }
+
+    public void start() throws IOException {
+        ingest();
+        httpServer.start();
+        ingestExecutor.scheduleWithFixedDelay(this::ingestQuietly, ingestIntervalSeconds, ingestIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public FinesSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Scans the changed files and swaps in a new snapshot. Also runs on the background thread.
+     */
+    public synchronized void ingest() throws IOException {
+        FinesSnapshot ingested = ingester.ingest();
+        if (ingested != null) {
+            snapshot = ingested;
+            System.out.println("Snapshot " + ingested.getVersion() + ": " + ingested.getFileCount() + " files, "
+                    + ingested.getFineCount() + " fines");
+        }
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        ingestExecutor.shutdownNow();
+        requestExecutor.shutdownNow();
+        engine.close();
+    }
+
+    private void ingestQuietly() {
+        try {
+            ingest();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ingestion failed, keeping snapshot " + snapshot.getVersion() + ": " + e);
+        }
+    }
+
+    private List<MonthlyFineStatistic> byMonth(FinesSnapshot snapshot, Map<String, String> parameters) {
+        FineType type = parameters.containsKey("type") ? FineType.valueOf(parameters.get("type")) : null;
+        Integer year = parameters.containsKey("year") ? Integer.valueOf(parameters.get("year")) : null;
+        return snapshot.getByMonth().stream()
+                .filter(statistic -> type == null || statistic.getType() == type)
+                .filter(statistic -> year == null || statistic.getYear() == year)
+                .collect(Collectors.toList());
+    }
+
+    private List<OffenderFineStatistic> byOffender(FinesSnapshot snapshot, Map<String, String> parameters) {
+        String firstName = parameters.get("first_name");
+        String lastName = parameters.get("last_name");
+        int limit = parameters.containsKey("limit") ? Integer.parseInt(parameters.get("limit")) : DEFAULT_LIMIT;
+        return snapshot.getByOffender().stream()
+                .filter(statistic -> firstName == null || firstName.equals(statistic.getFirstName()))
+                .filter(statistic -> lastName == null || lastName.equals(statistic.getLastName()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private void respond(HttpExchange exchange, Function<FinesSnapshot, Object> query) throws IOException {
+        respond(exchange, (snapshot, parameters) -> query.apply(snapshot));
+    }
+
+    private void respond(HttpExchange exchange, SnapshotQuery query) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, new ErrorResponse("Only GET is supported"));
+                return;
+            }
+            FinesSnapshot current = snapshot;
+            Object rows;
+            try {
+                rows = query.apply(current, parametersOf(exchange));
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, new ErrorResponse(e.getMessage()));
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("Failed to answer '" + exchange.getRequestURI() + "': " + e);
+                send(exchange, 500, new ErrorResponse("Internal error: " + e.getMessage()));
+                return;
+            }
+            send(exchange, 200, new Response(current.getVersion(), rows));
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = responseMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parametersOf(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    @FunctionalInterface
+    private interface SnapshotQuery {
+
+        Object apply(FinesSnapshot snapshot, Map<String, String> parameters);
+
+    }
+
+    @Value
+    private static class Response {
+
+        long version;
+        Object rows;
+
+    }
+
+    @Value
+    private static class ErrorResponse {
+
+        String error;
+
+    }
+
+    @Value
+    private static class Status {
+
+        long version;
+        String createdAt;
+        int fileCount;
+        long fineCount;
+
+        Status(FinesSnapshot snapshot) {
+            this.version = snapshot.getVersion();
+            this.createdAt = snapshot.getCreatedAt().toString();
+            this.fileCount = snapshot.getFileCount();
+            this.fineCount = snapshot.getFineCount();
+        }
+
+    }
+
+}
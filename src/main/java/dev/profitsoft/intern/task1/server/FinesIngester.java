@@ -0,0 +1,79 @@
+package dev.profitsoft.intern.task1.server;
+
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import dev.profitsoft.intern.task1.rollup.FineRollups;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the rollups of every fines file of a directory and builds a new {@link FinesSnapshot}
+ * when files are added, changed or removed. Only the changed files are scanned.
+ * Not thread-safe, {@link FinesHttpServer} calls it from its single ingest thread.
+ */
+class FinesIngester {
+
+    private static final long CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final File finesDirectory;
+    private final AggregationEngine engine;
+    private final Map<String, PartialAggregateCache.FileKey> keys = new HashMap<>();
+    private final Map<String, FineRollups> rollupsByFile = new HashMap<>();
+    private long version;
+
+    FinesIngester(File finesDirectory, AggregationEngine engine) {
+        this.finesDirectory = finesDirectory;
+        this.engine = engine;
+    }
+
+    /**
+     * Returns a new snapshot or {@code null} if no file has changed since the previous call.
+     */
+    FinesSnapshot ingest() throws IOException {
+        File[] fineFiles = finesDirectory.listFiles(file -> file.isFile() && file.getName().endsWith("fines.json"));
+        Map<String, PartialAggregateCache.FileKey> currentKeys = new HashMap<>();
+        List<File> changedFiles = new ArrayList<>();
+        for (File fineFile : fineFiles == null ? new File[0] : fineFiles) {
+            PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+            currentKeys.put(fineFile.getName(), key);
+            if (!key.equals(keys.get(fineFile.getName()))) {
+                changedFiles.add(fineFile);
+            }
+        }
+        if (changedFiles.isEmpty() && currentKeys.keySet().equals(keys.keySet())) {
+            return null;
+        }
+
+        for (File changedFile : changedFiles) {
+            rollupsByFile.put(changedFile.getName(), scan(changedFile));
+            keys.put(changedFile.getName(), currentKeys.get(changedFile.getName()));
+        }
+        rollupsByFile.keySet().retainAll(currentKeys.keySet());
+        keys.keySet().retainAll(currentKeys.keySet());
+
+        FineRollups allRollups = new FineRollups();
+        for (FineRollups fileRollups : rollupsByFile.values()) {
+            allRollups.merge(fileRollups);
+        }
+        return FinesSnapshot.of(++version, rollupsByFile.size(), allRollups);
+    }
+
+    private FineRollups scan(File fineFile) throws IOException {
+        return engine.aggregate(FineFileSplitter.split(fineFile, CHUNK_SIZE), FinesIngester::scanChunk,
+                FineRollups::merge, FineRollups::new);
+    }
+
+    private static FineRollups scanChunk(FineChunk chunk) throws IOException {
+        FineRollups rollups = new FineRollups();
+        chunk.scan(rollups);
+        return rollups;
+    }
+
+}
@@ -0,0 +1,38 @@
+package dev.profitsoft.intern.task1.server;
+
+import dev.profitsoft.intern.task1.model.Fine;
+import dev.profitsoft.intern.task1.model.MonthlyFineStatistic;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import dev.profitsoft.intern.task1.rollup.FineRollups;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable state served by {@link FinesHttpServer}. Ingestion builds a new snapshot and swaps it in,
+ * so readers never see a half-updated one and never wait for ingestion.
+ */
+@Value
+public class FinesSnapshot {
+
+    public static final FinesSnapshot EMPTY = new FinesSnapshot(0, Instant.EPOCH, 0, 0, List.of(), List.of(), List.of());
+
+    long version;
+    Instant createdAt;
+    int fileCount;
+    long fineCount;
+    List<Fine> totals;
+    List<MonthlyFineStatistic> byMonth;
+    List<OffenderFineStatistic> byOffender;
+
+    /**
+     * Renders the rollups into unmodifiable lists. The lists are never changed afterwards.
+     */
+    static FinesSnapshot of(long version, int fileCount, FineRollups rollups) {
+        return new FinesSnapshot(version, Instant.now(), fileCount, rollups.getTotals().getTotalCount(),
+                List.copyOf(rollups.getTotals().toFines()), List.copyOf(rollups.getMonthlyStatistic()),
+                List.copyOf(rollups.getOffenderStatistic()));
+    }
+
+}
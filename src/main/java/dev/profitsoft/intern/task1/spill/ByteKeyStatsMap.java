@@ -0,0 +1,259 @@
+package dev.profitsoft.intern.task1.spill;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a byte string key to count, sum, min and max of {@code long} values.
+ * Keys are copied into one byte arena and statistics live in parallel primitive arrays, so the map holds no objects
+ * per entry and its size is known exactly. The arrays grow while the old and the new ones together fit into
+ * a byte budget, so the budget also bounds the peak of a resize; {@link #add} returns {@code false} instead of
+ * growing past it.
+ */
+class ByteKeyStatsMap {
+
+    /**
+     * Bytes per entry outside the arena: two table slots, offset, length and hash, count, sum, min and max.
+     */
+    static final int ENTRY_BYTES = 2 * Integer.BYTES + 3 * Integer.BYTES + 4 * Long.BYTES;
+    private static final int MIN_ENTRIES = 16;
+    private static final int INITIAL_ENTRIES = 1024;
+    private static final int MAX_ENTRIES = 1 << 29;
+    private static final int MIN_ARENA_BYTES = 256;
+    private static final int INITIAL_ARENA_BYTES = 64 * 1024;
+    private static final int MAX_ARENA_BYTES = Integer.MAX_VALUE - 8;
+
+    private final long budgetBytes;
+
+    private byte[] arena;
+    private int arenaSize;
+    private int[] table;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] hashes;
+    private long[] counts;
+    private long[] sums;
+    private long[] mins;
+    private long[] maxs;
+    private int mask;
+    private int size;
+
+    ByteKeyStatsMap(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        int entries = INITIAL_ENTRIES;
+        while (entries > MIN_ENTRIES && (long) entries * ENTRY_BYTES > budgetBytes / 4) {
+            entries >>= 1;
+        }
+        int arenaBytes = (int) Math.min(INITIAL_ARENA_BYTES, Math.max(MIN_ARENA_BYTES, budgetBytes / 4));
+        if ((long) entries * ENTRY_BYTES + arenaBytes > budgetBytes) {
+            throw new IllegalArgumentException("Memory budget of " + budgetBytes + " bytes is too small for a group map");
+        }
+        allocate(entries, arenaBytes);
+    }
+
+    /**
+     * Adds the statistics to the key, or returns {@code false} if a new key does not fit into the budget.
+     */
+    boolean add(byte[] key, int length, int hash, long count, long sum, long min, long max) {
+        int slot = slotOf(key, length, hash);
+        int entry = table[slot] - 1;
+        if (entry >= 0) {
+            counts[entry] += count;
+            sums[entry] = Math.addExact(sums[entry], sum);
+            if (min < mins[entry]) {
+                mins[entry] = min;
+            }
+            if (max > maxs[entry]) {
+                maxs[entry] = max;
+            }
+            return true;
+        }
+
+        if (size == offsets.length) {
+            if (!growEntries()) {
+                return false;
+            }
+            slot = slotOf(key, length, hash);
+        }
+        if (arenaSize + length > arena.length && !growArena(length)) {
+            return false;
+        }
+        entry = size++;
+        System.arraycopy(key, 0, arena, arenaSize, length);
+        offsets[entry] = arenaSize;
+        lengths[entry] = length;
+        hashes[entry] = hash;
+        arenaSize += length;
+        counts[entry] = count;
+        sums[entry] = sum;
+        mins[entry] = min;
+        maxs[entry] = max;
+        table[slot] = entry + 1;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bytes currently allocated by the map.
+     */
+    long getMemoryBytes() {
+        return arena.length + (long) offsets.length * ENTRY_BYTES;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        forEach(0, size, consumer);
+    }
+
+    void forEach(int from, int to, EntryConsumer consumer) {
+        for (int entry = from; entry < to; entry++) {
+            consumer.accept(arena, offsets[entry], lengths[entry], hashes[entry],
+                    counts[entry], sums[entry], mins[entry], maxs[entry]);
+        }
+    }
+
+    /**
+     * Reorders the entries in place by {@code (hash >>> shift) & (bucketCount - 1)} and returns the bounds
+     * of each bucket: bucket {@code b} holds entries from {@code bounds[b]} to {@code bounds[b + 1]}.
+     * Lookups are broken afterwards, so the map can only be iterated and then cleared.
+     */
+    int[] sortByHashBits(int shift, int bucketCount) {
+        int bucketMask = bucketCount - 1;
+        int[] bounds = new int[bucketCount + 1];
+        for (int entry = 0; entry < size; entry++) {
+            bounds[((hashes[entry] >>> shift) & bucketMask) + 1]++;
+        }
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bounds[bucket + 1] += bounds[bucket];
+        }
+        int[] next = Arrays.copyOf(bounds, bucketCount);
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            while (next[bucket] < bounds[bucket + 1]) {
+                int entry = next[bucket];
+                int target = (hashes[entry] >>> shift) & bucketMask;
+                if (target == bucket) {
+                    next[bucket]++;
+                } else {
+                    swap(entry, next[target]++);
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Removes all entries and keeps the allocated arrays.
+     */
+    void clear() {
+        Arrays.fill(table, 0);
+        arenaSize = 0;
+        size = 0;
+    }
+
+    private boolean growEntries() {
+        int entries = offsets.length << 1;
+        if (entries > MAX_ENTRIES || getMemoryBytes() + (long) entries * ENTRY_BYTES > budgetBytes) {
+            return false;
+        }
+
+        int[] oldOffsets = offsets;
+        int[] oldLengths = lengths;
+        int[] oldHashes = hashes;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        long[] oldMins = mins;
+        long[] oldMaxs = maxs;
+        allocateEntries(entries);
+        System.arraycopy(oldOffsets, 0, offsets, 0, size);
+        System.arraycopy(oldLengths, 0, lengths, 0, size);
+        System.arraycopy(oldHashes, 0, hashes, 0, size);
+        System.arraycopy(oldCounts, 0, counts, 0, size);
+        System.arraycopy(oldSums, 0, sums, 0, size);
+        System.arraycopy(oldMins, 0, mins, 0, size);
+        System.arraycopy(oldMaxs, 0, maxs, 0, size);
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the arena, or grows it as much as the budget allows if that holds the new key.
+     */
+    private boolean growArena(int length) {
+        long needed = (long) arenaSize + length;
+        long available = budgetBytes - getMemoryBytes();
+        long arenaBytes = Math.min(Math.min(Math.max(needed, (long) arena.length << 1), available), MAX_ARENA_BYTES);
+        if (arenaBytes < needed) {
+            return false;
+        }
+        arena = Arrays.copyOf(arena, (int) arenaBytes);
+        return true;
+    }
+
+    private void allocate(int entries, int arenaBytes) {
+        arena = new byte[arenaBytes];
+        allocateEntries(entries);
+    }
+
+    private void allocateEntries(int entries) {
+        table = new int[entries * 2];
+        offsets = new int[entries];
+        lengths = new int[entries];
+        hashes = new int[entries];
+        counts = new long[entries];
+        sums = new long[entries];
+        mins = new long[entries];
+        maxs = new long[entries];
+        mask = table.length - 1;
+    }
+
+    private void swap(int a, int b) {
+        int offset = offsets[a];
+        offsets[a] = offsets[b];
+        offsets[b] = offset;
+        int length = lengths[a];
+        lengths[a] = lengths[b];
+        lengths[b] = length;
+        int hash = hashes[a];
+        hashes[a] = hashes[b];
+        hashes[b] = hash;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long sum = sums[a];
+        sums[a] = sums[b];
+        sums[b] = sum;
+        long min = mins[a];
+        mins[a] = mins[b];
+        mins[b] = min;
+        long max = maxs[a];
+        maxs[a] = maxs[b];
+        maxs[b] = max;
+    }
+
+    private int slotOf(byte[] key, int length, int hash) {
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && Arrays.equals(arena, offsets[entry], offsets[entry] + lengths[entry], key, 0, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+
+        void accept(byte[] bytes, int offset, int length, int hash, long count, long sum, long min, long max);
+
+    }
+
+}
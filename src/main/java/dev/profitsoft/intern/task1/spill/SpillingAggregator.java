@@ -0,0 +1,398 @@
+package dev.profitsoft.intern.task1.spill;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import dev.profitsoft.intern.task1.rollup.NameDictionary;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Exact count, sum, min and max per offender or per offender and day within a memory budget.
+ * Groups are kept in a {@link ByteKeyStatsMap}; when a new group does not fit, all the groups are written to
+ * {@link #PARTITION_COUNT} spill files by key hash and the map starts over. {@link #forEachGroup} then loads the
+ * partitions one at a time, and a partition that is still too large is split again by other bits of the hash.
+ * Aggregators of different workers are combined with {@link #merge}, which adds the groups of the other one
+ * in memory and takes over its spill files. The budget covers the map including its resizes and the stream buffers:
+ * partitions are written one after another from the map sorted by partition, so at most one spill file is written
+ * and one is read at a time.
+ */
+public class SpillingAggregator implements FineVisitor, AutoCloseable {
+
+    public enum GroupBy {
+        OFFENDER, OFFENDER_DAY
+    }
+
+    static final int PARTITION_COUNT = 64;
+    private static final int PARTITION_BITS = 6;
+    private static final int MAX_LEVEL = 32 / PARTITION_BITS - 1;
+    private static final int MIN_IO_BUFFER_SIZE = 512;
+    private static final int MAX_IO_BUFFER_SIZE = 64 * 1024;
+    private static final int NULL_NAME = -1;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final AtomicInteger spillIds = new AtomicInteger();
+
+    private final GroupBy groupBy;
+    private final long memoryBudgetBytes;
+    private final File spillDirectory;
+    private final int ioBufferSize;
+    private final ByteKeyStatsMap groups;
+    private final List<List<File>> partitions = new ArrayList<>(PARTITION_COUNT);
+    private byte[] key = new byte[256];
+    private int scale = 1;
+    private long spilledGroupCount;
+
+    public SpillingAggregator(GroupBy groupBy, long memoryBudgetBytes, File spillDirectory) {
+        this.groupBy = groupBy;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.spillDirectory = spillDirectory;
+        this.ioBufferSize = (int) Math.max(MIN_IO_BUFFER_SIZE, Math.min(MAX_IO_BUFFER_SIZE, memoryBudgetBytes / 16));
+        this.groups = new ByteKeyStatsMap(memoryBudgetBytes - 2L * ioBufferSize);
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            partitions.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Scans the chunks on {@code nThreads} workers, each with its own aggregator and a share of half the budget,
+     * and merges them into one aggregator with the other half, so that the whole run stays within the budget.
+     */
+    public static SpillingAggregator aggregate(List<FineChunk> chunks, int nThreads, GroupBy groupBy,
+                                               long memoryBudgetBytes, File spillDirectory) {
+        Queue<FineChunk> queue = new ConcurrentLinkedQueue<>(chunks);
+        ExecutorService executorService = Executors.newFixedThreadPool(nThreads);
+        List<Future<SpillingAggregator>> workers = new ArrayList<>(nThreads);
+        SpillingAggregator result = new SpillingAggregator(groupBy, memoryBudgetBytes / 2, spillDirectory);
+        try {
+            for (int i = 0; i < nThreads; i++) {
+                workers.add(executorService.submit(() -> {
+                    SpillingAggregator worker = new SpillingAggregator(groupBy,
+                            memoryBudgetBytes / 2 / nThreads, spillDirectory);
+                    try {
+                        FineChunk chunk;
+                        while ((chunk = queue.poll()) != null) {
+                            chunk.scan(worker);
+                        }
+                        return worker;
+                    } catch (IOException | RuntimeException e) {
+                        worker.close();
+                        throw e;
+                    }
+                }));
+            }
+            for (int i = 0; i < workers.size(); i++) {
+                SpillingAggregator worker = workers.get(i).get();
+                workers.set(i, null);
+                result.merge(worker);
+            }
+            return result;
+        } catch (ExecutionException e) {
+            result.close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            result.close();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Override
+    public void visit(FineScanner fine) {
+        ByteBuffer buffer = fine.getBuffer();
+        int length = 0;
+        length = putName(buffer, fine.getFirstNameStart(), fine.getFirstNameEnd(), length);
+        length = putName(buffer, fine.getLastNameStart(), fine.getLastNameEnd(), length);
+        if (groupBy == GroupBy.OFFENDER_DAY) {
+            length = putInt(fine.hasDateTime()
+                    ? (int) FineScanner.epochDay(fine.getYear(), fine.getMonth(), fine.getDay()) : NO_DAY, length);
+        }
+        if (fine.getScale() > scale) {
+            scale = fine.getScale();
+        }
+        long minorUnits = fine.getMinorUnits();
+        add(key, length, hash(key, length), 1, minorUnits, minorUnits, minorUnits);
+    }
+
+    public SpillingAggregator merge(SpillingAggregator other) {
+        other.groups.forEach((bytes, offset, length, hash, count, sum, min, max) -> {
+            if (length > key.length) {
+                key = new byte[length];
+            }
+            System.arraycopy(bytes, offset, key, 0, length);
+            add(key, length, hash, count, sum, min, max);
+        });
+        other.groups.clear();
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            partitions.get(i).addAll(other.partitions.get(i));
+            other.partitions.get(i).clear();
+        }
+        spilledGroupCount += other.spilledGroupCount;
+        scale = Math.max(scale, other.scale);
+        return this;
+    }
+
+    /**
+     * Passes every group to the consumer exactly once, in no particular order, and deletes the spill files.
+     */
+    public void forEachGroup(Consumer<OffenderFineStatistic> consumer) {
+        if (!hasSpilled()) {
+            groups.forEach((bytes, offset, length, hash, count, sum, min, max) ->
+                    consumer.accept(toStatistic(bytes, offset, count, sum, min, max)));
+            groups.clear();
+            return;
+        }
+        spill();
+        for (List<File> partition : partitions) {
+            mergePartition(new ArrayList<>(partition), 1, consumer);
+            partition.clear();
+        }
+    }
+
+    /**
+     * Number of groups written to spill files, the same group may be counted once per spill.
+     */
+    public long getSpilledGroupCount() {
+        return spilledGroupCount;
+    }
+
+    public boolean hasSpilled() {
+        for (List<File> partition : partitions) {
+            if (!partition.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bytes allocated by the groups plus the stream buffers reserved for spilling.
+     */
+    public long getMemoryBytes() {
+        return groups.getMemoryBytes() + 2L * ioBufferSize;
+    }
+
+    @Override
+    public void close() {
+        for (List<File> partition : partitions) {
+            for (File file : partition) {
+                file.delete();
+            }
+            partition.clear();
+        }
+        groups.clear();
+    }
+
+    private void add(byte[] key, int length, int hash, long count, long sum, long min, long max) {
+        if (!groups.add(key, length, hash, count, sum, min, max)) {
+            spill();
+            if (!groups.add(key, length, hash, count, sum, min, max)) {
+                throw new IllegalStateException("Group key of " + length + " bytes does not fit into a memory budget of "
+                        + memoryBudgetBytes + " bytes");
+            }
+        }
+    }
+
+    private void spill() {
+        if (groups.size() == 0) {
+            return;
+        }
+        writePartitions(groups, 0, partitions);
+        spilledGroupCount += groups.size();
+        groups.clear();
+    }
+
+    /**
+     * Loads the spill files of one partition, splitting it again with the next bits of the hash if it does not fit.
+     */
+    private void mergePartition(List<File> files, int level, Consumer<OffenderFineStatistic> consumer) {
+        if (files.isEmpty()) {
+            return;
+        }
+        ByteKeyStatsMap partition = groups;
+        List<List<File>> subPartitions = null;
+        try {
+            for (File file : files) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), ioBufferSize))) {
+                    long entries = in.readLong();
+                    for (long i = 0; i < entries; i++) {
+                        int length = in.readInt();
+                        if (length > key.length) {
+                            key = new byte[Math.max(length, key.length * 2)];
+                        }
+                        in.readFully(key, 0, length);
+                        int hash = in.readInt();
+                        long count = in.readLong();
+                        long sum = in.readLong();
+                        long min = in.readLong();
+                        long max = in.readLong();
+                        if (!partition.add(key, length, hash, count, sum, min, max)) {
+                            if (level > MAX_LEVEL) {
+                                throw new IllegalStateException("Partition does not fit into a memory budget of "
+                                        + memoryBudgetBytes + " bytes after " + level + " splits");
+                            }
+                            if (subPartitions == null) {
+                                subPartitions = new ArrayList<>(PARTITION_COUNT);
+                                for (int p = 0; p < PARTITION_COUNT; p++) {
+                                    subPartitions.add(new ArrayList<>());
+                                }
+                            }
+                            writePartitions(partition, level, subPartitions);
+                            partition.clear();
+                            partition.add(key, length, hash, count, sum, min, max);
+                        }
+                    }
+                }
+                Files.delete(file.toPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (subPartitions == null) {
+            partition.forEach((bytes, offset, length, hash, count, sum, min, max) ->
+                    consumer.accept(toStatistic(bytes, offset, count, sum, min, max)));
+            partition.clear();
+            return;
+        }
+        writePartitions(partition, level, subPartitions);
+        partition.clear();
+        for (List<File> subPartition : subPartitions) {
+            mergePartition(subPartition, level + 1, consumer);
+        }
+    }
+
+    /**
+     * Writes the map into one new file per non-empty partition, chosen by the {@code level}-th group of hash bits
+     * counting from the top, so that the bits are independent of the table slots, which use the low bits.
+     * The map is sorted by partition in place and has to be cleared afterwards.
+     */
+    private void writePartitions(ByteKeyStatsMap map, int level, List<List<File>> targets) {
+        int shift = 32 - PARTITION_BITS * (level + 1);
+        int[] bounds = map.sortByHashBits(shift, PARTITION_COUNT);
+        try {
+            for (int p = 0; p < PARTITION_COUNT; p++) {
+                if (bounds[p] == bounds[p + 1]) {
+                    continue;
+                }
+                File partitionFile = new File(spillDirectory, "fines-" + spillIds.incrementAndGet() + "-" + p + ".spill");
+                targets.get(p).add(partitionFile);
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(partitionFile.toPath()), ioBufferSize))) {
+                    out.writeLong(bounds[p + 1] - bounds[p]);
+                    map.forEach(bounds[p], bounds[p + 1], (bytes, offset, length, hash, count, sum, min, max) -> {
+                        try {
+                            out.writeInt(length);
+                            out.write(bytes, offset, length);
+                            out.writeInt(hash);
+                            out.writeLong(count);
+                            out.writeLong(sum);
+                            out.writeLong(min);
+                            out.writeLong(max);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OffenderFineStatistic toStatistic(byte[] bytes, int offset, long count, long sum, long min, long max) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int firstLength = buffer.getInt(offset);
+        offset += Integer.BYTES;
+        String firstName = firstLength == NULL_NAME ? null
+                : NameDictionary.unescape(new String(bytes, offset, firstLength, StandardCharsets.UTF_8));
+        offset += Math.max(0, firstLength);
+        int lastLength = buffer.getInt(offset);
+        offset += Integer.BYTES;
+        String lastName = lastLength == NULL_NAME ? null
+                : NameDictionary.unescape(new String(bytes, offset, lastLength, StandardCharsets.UTF_8));
+        offset += Math.max(0, lastLength);
+
+        LocalDate day = null;
+        if (groupBy == GroupBy.OFFENDER_DAY) {
+            int epochDay = buffer.getInt(offset);
+            day = epochDay == NO_DAY ? null : LocalDate.ofEpochDay(epochDay);
+        }
+        return new OffenderFineStatistic(firstName, lastName, day, count, toAmount(sum), toAmount(min), toAmount(max));
+    }
+
+    private BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, FinesAccumulator.SCALE).setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+    private int putName(ByteBuffer buffer, int start, int end, int length) {
+        if (start < 0) {
+            return putInt(NULL_NAME, length);
+        }
+        length = putInt(end - start, length);
+        ensureKeyCapacity(length + end - start);
+        for (int i = start; i < end; i++) {
+            key[length++] = buffer.get(i);
+        }
+        return length;
+    }
+
+    private int putInt(int value, int length) {
+        ensureKeyCapacity(length + Integer.BYTES);
+        key[length] = (byte) (value >>> 24);
+        key[length + 1] = (byte) (value >>> 16);
+        key[length + 2] = (byte) (value >>> 8);
+        key[length + 3] = (byte) value;
+        return length + Integer.BYTES;
+    }
+
+    private void ensureKeyCapacity(int length) {
+        if (length > key.length) {
+            byte[] larger = new byte[Math.max(length, key.length * 2)];
+            System.arraycopy(key, 0, larger, 0, key.length);
+            key = larger;
+        }
+    }
+
+    private static int hash(byte[] key, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (key[i] & 0xff)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+}
@@ -0,0 +1,142 @@
+package dev.profitsoft.intern.task1.store;
+
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.rollup.NameDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Up to a chunk of fines as off-heap columns of primitives in native byte order.
+ * Names are ids of the store's {@link NameDictionary}, -1 for a missing name,
+ * and fines without {@code date_time} have {@link #NO_DATE} as epoch second.
+ */
+class ColumnBlock {
+
+    static final long NO_DATE = Long.MIN_VALUE;
+    static final int ANY_NAME = -2;
+    static final int TYPE_COUNT = FineType.values().length;
+
+    private final int size;
+    private final ByteBuffer types;
+    private final LongBuffer amounts;
+    private final LongBuffer epochSeconds;
+    private final IntBuffer firstNames;
+    private final IntBuffer lastNames;
+    private final int[] scales;
+    /**
+     * Number of fines whose amounts sum up without overflow, the whole block unless amounts are huge.
+     */
+    private final int sumRange;
+
+    ColumnBlock(byte[] types, long[] amounts, long[] epochSeconds, int[] firstNames, int[] lastNames, int size,
+                int[] scales) {
+        this.size = size;
+        this.types = allocate(size).put(types, 0, size);
+        this.amounts = allocate(size * Long.BYTES).asLongBuffer().put(amounts, 0, size);
+        this.epochSeconds = allocate(size * Long.BYTES).asLongBuffer().put(epochSeconds, 0, size);
+        this.firstNames = allocate(size * Integer.BYTES).asIntBuffer().put(firstNames, 0, size);
+        this.lastNames = allocate(size * Integer.BYTES).asIntBuffer().put(lastNames, 0, size);
+        this.scales = scales;
+        long maxAbsAmount = 1;
+        for (int i = 0; i < size; i++) {
+            maxAbsAmount = Math.max(maxAbsAmount, Math.abs(amounts[i]));
+        }
+        this.sumRange = (int) Math.min(Math.max(1, size), Long.MAX_VALUE / maxAbsAmount);
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getScale(int typeOrdinal) {
+        return scales[typeOrdinal];
+    }
+
+    long getOffHeapBytes() {
+        return (long) size * (Byte.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Replaces the block's own name ids by ids of a shared dictionary.
+     */
+    void remapNames(int[] remap) {
+        for (int i = 0; i < size; i++) {
+            int firstName = firstNames.get(i);
+            firstNames.put(i, firstName < 0 ? firstName : remap[firstName]);
+            int lastName = lastNames.get(i);
+            lastNames.put(i, lastName < 0 ? lastName : remap[lastName]);
+        }
+    }
+
+    /**
+     * Adds amount and count of every matching fine to {@code sums} and {@code counts} indexed by type ordinal.
+     * The loops only read the columns they need and turn the conditions into a 0/1 factor instead of branches.
+     * With a date range fines without {@code date_time} never match, even if only one end of the range is set.
+     * Ranges of {@link #sumRange} fines can't overflow a long, so they are summed without checks
+     * and only the range totals are added with {@link Math#addExact}.
+     *
+     * @throws ArithmeticException if a sum overflows
+     */
+    void aggregate(int typeMask, boolean dateRange, long from, long to, int firstName, int lastName,
+                   long[] sums, long[] counts) {
+        long[] rangeSums = new long[TYPE_COUNT];
+        for (int start = 0; start < size; start += sumRange) {
+            int end = (int) Math.min(size, (long) start + sumRange);
+            if (firstName == ANY_NAME && lastName == ANY_NAME) {
+                sumRange(start, end, typeMask, dateRange, from, to, rangeSums, counts);
+            } else {
+                sumRange(start, end, typeMask, dateRange, from, to, firstName, lastName, rangeSums, counts);
+            }
+            for (int type = 0; type < TYPE_COUNT; type++) {
+                sums[type] = addExact(type, sums[type], rangeSums[type]);
+                rangeSums[type] = 0;
+            }
+        }
+    }
+
+    private void sumRange(int start, int end, int typeMask, boolean dateRange, long from, long to,
+                          long[] rangeSums, long[] counts) {
+        for (int i = start; i < end; i++) {
+            int type = types.get(i);
+            long epochSecond = epochSeconds.get(i);
+            int match = (typeMask >>> type) & (epochSecond >= from ? 1 : 0) & (epochSecond < to ? 1 : 0)
+                    & (!dateRange || epochSecond != NO_DATE ? 1 : 0);
+            rangeSums[type] += amounts.get(i) * match;
+            counts[type] += match;
+        }
+    }
+
+    private void sumRange(int start, int end, int typeMask, boolean dateRange, long from, long to,
+                          int firstName, int lastName, long[] rangeSums, long[] counts) {
+        for (int i = start; i < end; i++) {
+            int type = types.get(i);
+            long epochSecond = epochSeconds.get(i);
+            int match = (typeMask >>> type) & (epochSecond >= from ? 1 : 0) & (epochSecond < to ? 1 : 0)
+                    & (!dateRange || epochSecond != NO_DATE ? 1 : 0)
+                    & (firstName == ANY_NAME || firstNames.get(i) == firstName ? 1 : 0)
+                    & (lastName == ANY_NAME || lastNames.get(i) == lastName ? 1 : 0);
+            rangeSums[type] += amounts.get(i) * match;
+            counts[type] += match;
+        }
+    }
+
+    private static long addExact(int type, long sum, long amount) {
+        try {
+            return Math.addExact(sum, amount);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Sum of fine amounts overflows for type " + FineType.values()[type]);
+        }
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        try {
+            return ByteBuffer.allocateDirect(Math.max(1, bytes)).order(ByteOrder.nativeOrder());
+        } catch (OutOfMemoryError e) {
+            throw new IllegalStateException("Fines don't fit into direct memory, raise -XX:MaxDirectMemorySize", e);
+        }
+    }
+
+}
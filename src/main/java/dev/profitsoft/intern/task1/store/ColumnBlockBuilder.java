@@ -0,0 +1,74 @@
+package dev.profitsoft.intern.task1.store;
+
+import dev.profitsoft.intern.task1.rollup.NameDictionary;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Collects the fines of a chunk into short-lived heap arrays and copies them into a {@link ColumnBlock} on {@link #build()}.
+ * Names get ids of the builder's own dictionary until the store remaps them.
+ */
+class ColumnBlockBuilder implements FineVisitor {
+
+    private static final int NO_NAME = -1;
+
+    private final NameDictionary names = new NameDictionary();
+    private final int[] scales = new int[ColumnBlock.TYPE_COUNT];
+    private byte[] types = new byte[1024];
+    private long[] amounts = new long[1024];
+    private long[] epochSeconds = new long[1024];
+    private int[] firstNames = new int[1024];
+    private int[] lastNames = new int[1024];
+    private int size;
+    private ColumnBlock block;
+
+    @Override
+    public void visit(FineScanner fine) {
+        if (size == types.length) {
+            grow();
+        }
+        int type = fine.getTypeOrdinal();
+        types[size] = (byte) type;
+        amounts[size] = fine.getMinorUnits();
+        epochSeconds[size] = fine.hasDateTime() ? fine.getEpochSecond() : ColumnBlock.NO_DATE;
+        firstNames[size] = fine.getFirstNameStart() < 0
+                ? NO_NAME : names.idOf(fine.getBuffer(), fine.getFirstNameStart(), fine.getFirstNameEnd());
+        lastNames[size] = fine.getLastNameStart() < 0
+                ? NO_NAME : names.idOf(fine.getBuffer(), fine.getLastNameStart(), fine.getLastNameEnd());
+        scales[type] = Math.max(scales[type], fine.getScale());
+        size++;
+    }
+
+    NameDictionary getNames() {
+        return names;
+    }
+
+    /**
+     * Copies the fines off the heap and drops the heap arrays.
+     */
+    ColumnBlockBuilder build() {
+        block = new ColumnBlock(types, amounts, epochSeconds, firstNames, lastNames, size, scales);
+        types = null;
+        amounts = null;
+        epochSeconds = null;
+        firstNames = null;
+        lastNames = null;
+        return this;
+    }
+
+    ColumnBlock getBlock() {
+        return block;
+    }
+
+    private void grow() {
+        int capacity = size * 2;
+        types = Arrays.copyOf(types, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+    }
+
+}
@@ -0,0 +1,136 @@
+package dev.profitsoft.intern.task1.store;
+
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.query.FineQuery;
+import dev.profitsoft.intern.task1.rollup.NameDictionary;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resident store of fines in off-heap {@link ColumnBlock}s: 25 bytes per fine outside the Java heap,
+ * plus one shared {@link NameDictionary} on the heap, so the GC does not see the loaded fines at all.
+ * {@link #aggregate(FineQuery)} scans the blocks on all the threads of the store.
+ * The memory is released when the store becomes unreachable, direct buffers cannot be freed explicitly on Java 11.
+ * Direct buffers count against {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size,
+ * so a store larger than that fails to load with an {@link IllegalStateException} unless the limit is raised.
+ */
+public class OffHeapFineStore implements AutoCloseable {
+
+    private static final long BLOCK_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private final AggregationEngine engine;
+    private final List<ColumnBlock> blocks;
+    private final NameDictionary names;
+    private final long size;
+
+    private OffHeapFineStore(AggregationEngine engine, List<ColumnBlock> blocks, NameDictionary names) {
+        this.engine = engine;
+        this.blocks = blocks;
+        this.names = names;
+        long fineCount = 0;
+        for (ColumnBlock block : blocks) {
+            fineCount += block.getSize();
+        }
+        this.size = fineCount;
+    }
+
+    public static OffHeapFineStore load(List<File> fineFiles, int nThreads) {
+        AggregationEngine engine = new AggregationEngine(nThreads);
+        try {
+            List<FineChunk> chunks = new ArrayList<>();
+            for (File fineFile : fineFiles) {
+                chunks.addAll(FineFileSplitter.split(fineFile, BLOCK_CHUNK_SIZE));
+            }
+            List<ColumnBlockBuilder> builders = engine.aggregate(chunks, chunk -> {
+                ColumnBlockBuilder builder = new ColumnBlockBuilder();
+                chunk.scan(builder);
+                List<ColumnBlockBuilder> built = new ArrayList<>();
+                built.add(builder.build());
+                return built;
+            }, (left, right) -> {
+                left.addAll(right);
+                return left;
+            }, ArrayList::new);
+
+            NameDictionary names = new NameDictionary();
+            List<ColumnBlock> blocks = new ArrayList<>(builders.size());
+            for (ColumnBlockBuilder builder : builders) {
+                ColumnBlock block = builder.getBlock();
+                int[] remap = new int[builder.getNames().size()];
+                for (int id = 0; id < remap.length; id++) {
+                    remap[id] = names.idOf(builder.getNames().getBytes(id));
+                }
+                block.remapNames(remap);
+                blocks.add(block);
+            }
+            return new OffHeapFineStore(engine, blocks, names);
+        } catch (IOException e) {
+            engine.close();
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            engine.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Totals per type of the fines matching the query.
+     */
+    public FinesAccumulator aggregate(FineQuery query) {
+        int firstName = nameIdOf(query.getFirstName());
+        int lastName = nameIdOf(query.getLastName());
+        if (firstName == -1 || lastName == -1) {
+            return new FinesAccumulator();
+        }
+        int typeMask = query.getTypeMask();
+        boolean dateRange = query.hasDateRange();
+        long from = query.getFromEpochSecond();
+        long to = query.getToEpochSecond();
+
+        return engine.aggregate(blocks, block -> {
+            long[] sums = new long[ColumnBlock.TYPE_COUNT];
+            long[] counts = new long[ColumnBlock.TYPE_COUNT];
+            block.aggregate(typeMask, dateRange, from, to, firstName, lastName, sums, counts);
+
+            FinesAccumulator accumulator = new FinesAccumulator();
+            for (int type = 0; type < ColumnBlock.TYPE_COUNT; type++) {
+                if (counts[type] > 0) {
+                    accumulator.add(type, sums[type], counts[type], block.getScale(type));
+                }
+            }
+            return accumulator;
+        }, FinesAccumulator::merge, FinesAccumulator::new);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (ColumnBlock block : blocks) {
+            bytes += block.getOffHeapBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        engine.close();
+    }
+
+    /**
+     * Returns {@link ColumnBlock#ANY_NAME} for no filter and -1 for a name that is not in the store.
+     */
+    private int nameIdOf(String name) {
+        return name == null ? ColumnBlock.ANY_NAME : names.find(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,144 @@
+package dev.profitsoft.intern.task1.stream;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.MonthlyFineStatistic;
+import dev.profitsoft.intern.task1.rollup.LongStatsMap;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Tumbling one-month windows of count, sum, min and max per {@link FineType}, keyed by the {@code date_time} of a fine.
+ * The watermark is the latest {@code date_time} seen minus the allowed lateness; a window closes once the watermark
+ * passes its end and is handed to the listener exactly once. Fines for an already closed window are counted as late
+ * and dropped, fines without {@code date_time} are counted as skipped. Only newer fines move the watermark,
+ * so a quiet stream keeps its last window open; {@link #getOpenWindows()} shows it in the meantime.
+ */
+public class MonthlyWindows implements FineVisitor {
+
+    private static final FineType[] TYPES = FineType.values();
+
+    private final long allowedLatenessSeconds;
+    private final Consumer<List<MonthlyFineStatistic>> listener;
+    private final TreeMap<Integer, LongStatsMap> openWindows = new TreeMap<>();
+    private final int[] scales = new int[TYPES.length];
+
+    private long maxEpochSecond = Long.MIN_VALUE;
+    private int closedBefore = Integer.MIN_VALUE;
+    private long acceptedCount;
+    private long lateCount;
+    private long skippedCount;
+
+    public MonthlyWindows(long allowedLatenessSeconds, Consumer<List<MonthlyFineStatistic>> listener) {
+        this.allowedLatenessSeconds = allowedLatenessSeconds;
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void visit(FineScanner fine) {
+        if (!fine.hasDateTime()) {
+            skippedCount++;
+            return;
+        }
+        int month = monthIndex(fine.getYear(), fine.getMonth());
+        if (month < closedBefore) {
+            lateCount++;
+            return;
+        }
+
+        int typeOrdinal = fine.getTypeOrdinal();
+        openWindows.computeIfAbsent(month, key -> new LongStatsMap(TYPES.length))
+                .add(typeOrdinal, fine.getMinorUnits());
+        if (fine.getScale() > scales[typeOrdinal]) {
+            scales[typeOrdinal] = fine.getScale();
+        }
+        acceptedCount++;
+
+        long epochSecond = fine.getEpochSecond();
+        if (epochSecond > maxEpochSecond) {
+            maxEpochSecond = epochSecond;
+            closeWindowsBefore(watermarkMonth());
+        }
+    }
+
+    /**
+     * Closes every open window, e.g. when the stream ends.
+     */
+    public synchronized void flush() {
+        closeWindowsBefore(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the current values of the windows that are still open.
+     */
+    public synchronized List<MonthlyFineStatistic> getOpenWindows() {
+        List<MonthlyFineStatistic> statistic = new ArrayList<>();
+        for (Map.Entry<Integer, LongStatsMap> window : openWindows.entrySet()) {
+            statistic.addAll(toStatistic(window.getKey(), window.getValue()));
+        }
+        return statistic;
+    }
+
+    public synchronized long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public synchronized long getLateCount() {
+        return lateCount;
+    }
+
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    private void closeWindowsBefore(int month) {
+        while (!openWindows.isEmpty() && openWindows.firstKey() < month) {
+            Map.Entry<Integer, LongStatsMap> window = openWindows.pollFirstEntry();
+            listener.accept(toStatistic(window.getKey(), window.getValue()));
+        }
+        if (month > closedBefore) {
+            closedBefore = month;
+        }
+    }
+
+    /**
+     * Returns the first month that the watermark has not passed yet.
+     */
+    private int watermarkMonth() {
+        long watermark = maxEpochSecond - allowedLatenessSeconds;
+        long epochDay = Math.floorDiv(watermark, 86_400L);
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return monthIndex(date.getYear(), date.getMonthValue());
+    }
+
+    private List<MonthlyFineStatistic> toStatistic(int month, LongStatsMap window) {
+        List<MonthlyFineStatistic> statistic = new ArrayList<>(window.size());
+        window.forEach((key, count, sum, min, max) -> {
+            FineType type = TYPES[(int) key];
+            int scale = scales[(int) key];
+            statistic.add(new MonthlyFineStatistic(type, Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1,
+                    count, toAmount(sum, scale), toAmount(min, scale), toAmount(max, scale)));
+        });
+        statistic.sort(Comparator.comparing(MonthlyFineStatistic::getType));
+        return statistic;
+    }
+
+    private static int monthIndex(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private static BigDecimal toAmount(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits, FinesAccumulator.SCALE).setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+}
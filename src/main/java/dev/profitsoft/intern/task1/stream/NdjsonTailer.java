@@ -0,0 +1,255 @@
+package dev.profitsoft.intern.task1.stream;
+
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a growing NDJSON file like {@code tail -f} and passes every complete line to a {@link FineVisitor}.
+ * A partial last line waits for the next poll. When the file is renamed away and recreated, the rest of
+ * the old file is read before switching to the new one; when it is truncated in place, reading restarts from 0.
+ * Lines that fail to parse are counted as rejected and skipped; an exception of the visitor is not a parse error
+ * and is thrown from {@link #poll()} after the line that caused it.
+ */
+public class NdjsonTailer implements AutoCloseable {
+
+    private final File file;
+    private final FineVisitor visitor;
+    private final ByteBuffer buffer;
+    private final FineVisitor guardedVisitor;
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+    private long lineCount;
+    private long rejectedCount;
+    private long rotationCount;
+    private ScheduledExecutorService scheduler;
+
+    public NdjsonTailer(File file, FineVisitor visitor, int bufferSize) {
+        this.file = file;
+        this.visitor = visitor;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.guardedVisitor = fine -> {
+            try {
+                visitor.visit(fine);
+            } catch (RuntimeException e) {
+                throw new VisitorException(e);
+            }
+        };
+    }
+
+    /**
+     * Polls the file every {@code pollMillis} on a background thread.
+     */
+    public void start(long pollMillis) {
+        start(pollMillis, () -> {
+        });
+    }
+
+    /**
+     * Polls the file every {@code pollMillis} on a background thread and runs {@code afterLines} after every poll
+     * that read lines. A fine is passed to the visitor within {@code pollMillis} of its line being written, so
+     * {@code afterLines} can publish state of the visitor that doesn't wait for later fines, like open windows.
+     */
+    public synchronized void start(long pollMillis, Runnable afterLines) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Tailer is already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ndjson-tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (poll() > 0) {
+                    afterLines.run();
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Failed to read '" + file + "': " + e.getMessage());
+            }
+        }, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads everything appended since the last poll.
+     *
+     * @return number of complete lines read
+     */
+    public synchronized long poll() {
+        try {
+            long lines = 0;
+            if (channel == null && !open()) {
+                return 0;
+            }
+            Object currentKey = currentFileKey();
+            if (currentKey != null && !currentKey.equals(fileKey)) {
+                lines += readAvailable();
+                closeChannel();
+                rotationCount++;
+                if (!open()) {
+                    return lines;
+                }
+            } else if (channel.size() < position) {
+                position = 0;
+                buffer.clear();
+                rotationCount++;
+            }
+            return lines + readAvailable();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized long getLineCount() {
+        return lineCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public synchronized long getRotationCount() {
+        return rotationCount;
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService scheduler;
+        synchronized (this) {
+            scheduler = this.scheduler;
+            this.scheduler = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        fileKey = currentFileKey();
+        position = 0;
+        buffer.clear();
+        return true;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private Object currentFileKey() throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return Objects.requireNonNullElse(attributes.fileKey(), attributes.creationTime());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private long readAvailable() throws IOException {
+        // lines left in the buffer after a failure of the visitor come first
+        long lines = scanLines();
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            position += read;
+            lines += scanLines();
+            if (!buffer.hasRemaining()) {
+                throw new IllegalStateException("Line in '" + file.getName() + "' is larger than a buffer of "
+                        + buffer.capacity() + " bytes");
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Scans the complete lines of the buffer and moves the partial last line to its start.
+     */
+    private long scanLines() {
+        long lines = 0;
+        int end = buffer.position();
+        int lineStart = 0;
+        try {
+            for (int i = 0; i < end; i++) {
+                if (buffer.get(i) != '\n') {
+                    continue;
+                }
+                int from = lineStart;
+                lineStart = i + 1;
+                if (i > from) {
+                    lines++;
+                    scanLine(from, i);
+                }
+            }
+        } finally {
+            // a line the visitor failed on is consumed too, so it is not visited again by the next poll
+            buffer.flip();
+            buffer.position(lineStart);
+            buffer.compact();
+            lineCount += lines;
+        }
+        return lines;
+    }
+
+    private void scanLine(int from, int to) {
+        try {
+            new FineScanner(buffer, from, to).scan(guardedVisitor);
+        } catch (VisitorException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // any parse error of one line, e.g. an ArithmeticException for an amount out of range, rejects the line
+            rejectedCount++;
+        }
+    }
+
+    /**
+     * Carries an exception of the visitor through the scanner, so it is not taken for a parse error.
+     */
+    private static class VisitorException extends RuntimeException {
+
+        VisitorException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+
+    }
+
+}
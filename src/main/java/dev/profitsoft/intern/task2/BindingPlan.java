@@ -0,0 +1,163 @@
+package dev.profitsoft.intern.task2;
+
+import dev.profitsoft.intern.task2.annotation.Property;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Reflective binder for classes without a generated one, resolved once: the constructor and field setters
+ * as {@link MethodHandle}s, property names and precompiled formatters. Plans are cached per class by
+ * {@link PropertyBinders}, so binding an instance is only lookup, convert and set for each field.
+ */
+final class BindingPlan implements PropertyBinder<Object> {
+
+    private static final String DEFAULT_FORMAT = "dd.MM.yyyy HH:mm:ss";
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle constructor;
+    private final FieldBinding[] bindings;
+
+    BindingPlan(Class<?> clazz) {
+        this.constructor = findConstructor(clazz);
+        Field[] fields = clazz.getDeclaredFields();
+        List<FieldBinding> bindings = new ArrayList<>(fields.length);
+        for (Field field : fields) {
+            bindings.add(new FieldBinding(field));
+        }
+        this.bindings = bindings.toArray(new FieldBinding[0]);
+    }
+
+    @Override
+    public Object bind(Properties properties) {
+        Object instance = newInstance();
+        for (FieldBinding binding : bindings) {
+            binding.bind(instance, properties);
+        }
+        return instance;
+    }
+
+    private Object newInstance() {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> clazz) {
+        try {
+            return MethodHandles.lookup()
+                    .unreflectConstructor(clazz.getDeclaredConstructor())
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Class '" + clazz.getName() + "' has no default constructor", e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class FieldBinding {
+
+        private final String fieldName;
+        private final String propertyName;
+        private final boolean annotated;
+        private final Converter converter;
+        private final MethodHandle setter;
+
+        FieldBinding(Field field) {
+            Property property = field.getAnnotation(Property.class);
+            this.fieldName = field.getName();
+            this.annotated = property != null;
+            this.propertyName = property != null && !property.name().isBlank() ? property.name() : fieldName;
+            this.converter = converterFor(field.getType(), property != null ? property.format() : DEFAULT_FORMAT);
+            this.setter = converter != null ? findSetter(field) : null;
+        }
+
+        void bind(Object instance, Properties properties) {
+            String value;
+            if (annotated) {
+                value = PropertyBinders.require(properties, propertyName, fieldName);
+            } else {
+                value = properties.getProperty(propertyName);
+                if (value == null) {
+                    return;
+                }
+            }
+            if (converter == null) {
+                return;
+            }
+
+            Object converted = converter.convert(value);
+            try {
+                setter.invokeExact(instance, converted);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private Converter converterFor(Class<?> type, String pattern) {
+            if (type == String.class) {
+                return value -> value;
+            } else if (type == int.class || type == Integer.class) {
+                return value -> PropertyBinders.parseInt(propertyName, value);
+            } else if (type == Instant.class) {
+                return instantConverter(pattern);
+            }
+            return null;
+        }
+
+        private Converter instantConverter(String pattern) {
+            DateTimeFormatter formatter;
+            try {
+                formatter = DateTimeFormatter.ofPattern(pattern);
+            } catch (IllegalArgumentException e) {
+                return value -> {
+                    throw new RuntimeException(
+                            String.format("Incorrect pattern '%s' on field '%s'", pattern, propertyName), e);
+                };
+            }
+            return value -> PropertyBinders.parseInstant(propertyName, value, formatter, pattern);
+        }
+
+        private static MethodHandle findSetter(Field field) {
+            field.setAccessible(true);
+            MethodHandle setter;
+            try {
+                setter = MethodHandles.lookup().unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                // e.g. a static final field: fail only if a property is actually bound to it
+                MethodHandle thrower = MethodHandles.throwException(void.class, RuntimeException.class)
+                        .bindTo(new RuntimeException(e));
+                return MethodHandles.dropArguments(thrower, 0, Object.class, Object.class);
+            }
+            if (Modifier.isStatic(field.getModifiers())) {
+                setter = MethodHandles.dropArguments(setter, 0, Object.class);
+            }
+            return setter.asType(SETTER_TYPE);
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+
+        Object convert(String value);
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package dev.profitsoft.intern.task2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an instance bound from a properties file up to date. A background thread watches the directory of the file
+ * through a {@link WatchService}, waits until no change came for {@code debounceMillis} and binds a new instance,
+ * which is then published with a single volatile write. {@link #get()} is one volatile read without locks.
+ * Published instances are never modified afterwards and should be treated as read-only by the readers.
+ * If the new file can't be bound, the previous instance stays current and the error goes to the error handler.
+ * An exception thrown by the error handler is printed and doesn't stop the watching.
+ */
+public class LiveProperties<T> implements AutoCloseable {
+
+    private final Class<T> clazz;
+    private final Path path;
+    private final long debounceMillis;
+    private final Consumer<RuntimeException> errorHandler;
+
+    private volatile T current;
+    private volatile RuntimeException lastError;
+    private long reloadCount;
+    private long failureCount;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Binds the file once, so a broken file fails here instead of leaving readers without an instance.
+     */
+    public LiveProperties(Class<T> clazz, Path path, long debounceMillis, Consumer<RuntimeException> errorHandler) {
+        this.clazz = clazz;
+        this.path = path.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.errorHandler = errorHandler;
+        this.current = ClassCreator.loadFromProperties(clazz, this.path);
+    }
+
+    /**
+     * Starts watching the file on a daemon thread. The file is bound once more after the watch is registered,
+     * so a change made between the constructor and this call is not missed.
+     */
+    public synchronized void start() {
+        if (watchService != null) {
+            throw new IllegalStateException("Properties are already watched");
+        }
+        try {
+            watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reload();
+        WatchService service = watchService;
+        watcher = new Thread(() -> watch(service), "properties-watcher-" + path.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Returns the current instance.
+     */
+    public T get() {
+        return current;
+    }
+
+    /**
+     * Binds the file now and publishes the result.
+     *
+     * @return {@code false} if the file can't be bound and the previous instance is kept
+     */
+    public synchronized boolean reload() {
+        T next;
+        try {
+            next = ClassCreator.loadFromProperties(clazz, path);
+        } catch (RuntimeException e) {
+            failureCount++;
+            lastError = e;
+            reportError(e);
+            return false;
+        }
+        current = next;
+        lastError = null;
+        reloadCount++;
+        return true;
+    }
+
+    public synchronized long getReloadCount() {
+        return reloadCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns the error of the last reload, or {@code null} if it succeeded.
+     */
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public void close() {
+        WatchService service;
+        Thread thread;
+        synchronized (this) {
+            service = watchService;
+            thread = watcher;
+            watchService = null;
+            watcher = null;
+        }
+        if (service == null) {
+            return;
+        }
+        try {
+            service.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                if (!isFileChanged(service.take())) {
+                    continue;
+                }
+                // events of other files in the directory don't postpone the reload
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    WatchKey key = service.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (key == null) {
+                        break;
+                    }
+                    if (isFileChanged(key)) {
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                    }
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || path.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        if (!key.reset()) {
+            reportError(new IllegalStateException("Directory of '" + path + "' is no longer watched"));
+        }
+        return changed;
+    }
+
+    private void reportError(RuntimeException error) {
+        try {
+            errorHandler.accept(error);
+        } catch (RuntimeException e) {
+            System.out.println("Error handler of '" + path + "' failed on '" + error.getMessage() + "': " + e);
+        }
+    }
+
+}
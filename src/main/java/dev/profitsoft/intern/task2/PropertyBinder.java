@@ -0,0 +1,14 @@
+package dev.profitsoft.intern.task2;
+
+import java.util.Properties;
+
+/**
+ * Creates an instance of {@code T} and fills its fields from properties.
+ * Implementations are generated at compile time by {@code PropertyBinderProcessor} as {@code <Class>_PropertyBinder}
+ * next to the bound class; classes without one are bound by a reflective {@link BindingPlan}.
+ */
+public interface PropertyBinder<T> {
+
+    T bind(Properties properties);
+
+}
@@ -0,0 +1,91 @@
+package dev.profitsoft.intern.task2;
+
+import dev.profitsoft.intern.task2.exception.PropertyNotFoundException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Properties;
+
+/**
+ * Finds the binder of a class and holds the conversions shared by generated binders and {@link BindingPlan},
+ * so both report the same errors. The binder is looked up once per class: the generated
+ * {@code <Class>_PropertyBinder} if it is on the class path, otherwise a reflective plan.
+ */
+public final class PropertyBinders {
+
+    public static final String BINDER_SUFFIX = "_PropertyBinder";
+
+    private static final ClassValue<PropertyBinder<?>> BINDERS = new ClassValue<>() {
+        @Override
+        protected PropertyBinder<?> computeValue(Class<?> type) {
+            PropertyBinder<?> generated = findGenerated(type);
+            return generated != null ? generated : new BindingPlan(type);
+        }
+    };
+
+    private PropertyBinders() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PropertyBinder<T> of(Class<T> clazz) {
+        return (PropertyBinder<T>) BINDERS.get(clazz);
+    }
+
+    /**
+     * Name of the generated binder: the binary name of the class with {@code $} replaced by {@code _}, plus the suffix.
+     */
+    public static String binderName(String packageName, String binaryName) {
+        String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        return prefix + simpleName.replace('$', '_') + BINDER_SUFFIX;
+    }
+
+    public static String require(Properties properties, String propertyName, String fieldName) {
+        String value = properties.getProperty(propertyName);
+        if (value == null) {
+            throw new PropertyNotFoundException(String.format(
+                    "Property '%s' not found in properties file for field '%s'", propertyName, fieldName));
+        }
+        return value;
+    }
+
+    public static int parseInt(String propertyName, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Property '%s' with value '%s' can't parse to int", propertyName, value), e);
+        }
+    }
+
+    public static Instant parseInstant(String propertyName, String value, DateTimeFormatter formatter, String pattern) {
+        try {
+            return LocalDateTime.parse(value, formatter).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property '%s' with value '%s' can't parse with pattern '%s'", propertyName, value, pattern), e);
+        }
+    }
+
+    private static PropertyBinder<?> findGenerated(Class<?> type) {
+        Class<?> binderClass;
+        try {
+            binderClass = Class.forName(binderName(type.getPackageName(), type.getName()), true, type.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!PropertyBinder.class.isAssignableFrom(binderClass)) {
+            throw new IllegalStateException("Class '" + binderClass.getName() + "' is not a property binder");
+        }
+        try {
+            return (PropertyBinder<?>) binderClass.getDeclaredConstructor().newInstance();
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Can't create binder '" + binderClass.getName() + "'", e);
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+package dev.profitsoft.intern.task2.processor;
+
+import dev.profitsoft.intern.task2.PropertyBinders;
+import dev.profitsoft.intern.task2.annotation.Property;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <Class>_PropertyBinder} for every class with {@link Property} fields. The binder creates
+ * the instance with {@code new}, assigns fields directly or through their Lombok setters and parses dates
+ * with formatters created once, following the same rules and errors as the reflective binding.
+ * A class the generated code can't bind (no accessible no-arg constructor, a Lombok constructor with arguments,
+ * a private field without a Lombok setter or with a hand-written one, a static or final field,
+ * an incorrect pattern) is reported with a note and left to reflection.
+ */
+@SupportedAnnotationTypes(PropertyBinderProcessor.PROPERTY_ANNOTATION)
+public class PropertyBinderProcessor extends AbstractProcessor {
+
+    static final String PROPERTY_ANNOTATION = "dev.profitsoft.intern.task2.annotation.Property";
+    private static final String DEFAULT_FORMAT = "dd.MM.yyyy HH:mm:ss";
+    private static final List<String> LOMBOK_CONSTRUCTORS = List.of("lombok.AllArgsConstructor",
+            "lombok.RequiredArgsConstructor", "lombok.Builder", "lombok.experimental.SuperBuilder", "lombok.Value");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Property.class)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                types.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (TypeElement type : types) {
+            generateBinder(type);
+        }
+        return false;
+    }
+
+    private void generateBinder(TypeElement type) {
+        String unsupported = checkType(type);
+        List<String> formatters = new ArrayList<>();
+        List<String> statements = new ArrayList<>();
+        if (unsupported == null) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                unsupported = addField(type, field, formatters, statements);
+                if (unsupported != null) {
+                    break;
+                }
+            }
+        }
+        if (unsupported != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "No property binder is generated, " + unsupported + "; reflection will be used", type);
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String binderName = PropertyBinders.binderName(packageName, binaryName);
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(binderName, type).openWriter())) {
+            writeBinder(out, packageName, binderName.substring(binderName.lastIndexOf('.') + 1),
+                    type.getQualifiedName().toString(), formatters, statements);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String checkType(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "'" + type.getSimpleName() + "' is not a concrete class";
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            return "'" + type.getSimpleName() + "' is generic";
+        }
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            TypeElement enclosingType = (TypeElement) enclosing;
+            if (enclosingType.getModifiers().contains(Modifier.PRIVATE)
+                    || enclosingType.getNestingKind() == NestingKind.LOCAL
+                    || enclosingType.getNestingKind() == NestingKind.ANONYMOUS
+                    || enclosingType.getNestingKind() == NestingKind.MEMBER
+                    && !enclosingType.getModifiers().contains(Modifier.STATIC)) {
+                return "'" + type.getSimpleName() + "' is not accessible from its package";
+            }
+        }
+        return checkConstructor(type);
+    }
+
+    /**
+     * Returns why {@code new T()} may not compile once Lombok has generated its constructors, or {@code null}.
+     * javac's implicit default constructor is trusted only if no Lombok annotation can replace it.
+     */
+    private String checkConstructor(TypeElement type) {
+        String name = "'" + type.getSimpleName() + "'";
+        AnnotationMirror noArgs = findAnnotation(type, "lombok.NoArgsConstructor");
+        if (noArgs != null) {
+            return isAccessible(noArgs, "access") && annotationValue(noArgs, "staticName").isEmpty()
+                    ? null : name + " has a private Lombok no-args constructor";
+        }
+
+        boolean declared = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (processingEnv.getElementUtils().getOrigin(constructor) == Elements.Origin.MANDATED) {
+                continue;
+            }
+            declared = true;
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return null;
+            }
+        }
+        for (String annotation : LOMBOK_CONSTRUCTORS) {
+            if (findAnnotation(type, annotation) != null) {
+                return name + " has a Lombok constructor with arguments (@" + annotation + ")";
+            }
+        }
+        if (declared) {
+            return name + " has no accessible default constructor";
+        }
+
+        AnnotationMirror data = findAnnotation(type, "lombok.Data");
+        if (data != null) {
+            // @Data replaces the default constructor by one taking the final and @NonNull fields
+            if (!annotationValue(data, "staticConstructor").isEmpty()) {
+                return name + " has a private Lombok constructor";
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)
+                        && (field.getModifiers().contains(Modifier.FINAL) && field.getConstantValue() == null
+                        || findAnnotation(field, "lombok.NonNull") != null)) {
+                    return name + " has a Lombok constructor with arguments (@lombok.Data)";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the statements binding the field, or returns why the generated code can't bind it.
+     */
+    private String addField(TypeElement type, VariableElement field, List<String> formatters, List<String> statements) {
+        Property property = field.getAnnotation(Property.class);
+        String fieldName = field.getSimpleName().toString();
+        String propertyName = property != null && !property.name().isBlank() ? property.name() : fieldName;
+        String conversion = conversionOf(field.asType(), propertyName, property, formatters);
+
+        if (conversion == null) {
+            if (property != null) {
+                statements.add("PropertyBinders.require(properties, " + literal(propertyName) + ", "
+                        + literal(fieldName) + ");");
+            }
+            return null;
+        }
+        if (conversion.isEmpty()) {
+            return "pattern '" + property.format() + "' on field '" + fieldName + "' is incorrect";
+        }
+        if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.FINAL)) {
+            return "field '" + fieldName + "' is static or final";
+        }
+
+        String assignment;
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            assignment = "instance." + fieldName + " = " + conversion + ";";
+        } else {
+            String unsupported = checkLombokSetter(type, field);
+            if (unsupported != null) {
+                return unsupported;
+            }
+            assignment = "instance." + setterName(fieldName) + "(" + conversion + ");";
+        }
+
+        if (property != null) {
+            statements.add("value = PropertyBinders.require(properties, " + literal(propertyName) + ", "
+                    + literal(fieldName) + ");");
+            statements.add(assignment);
+        } else {
+            statements.add("value = properties.getProperty(" + literal(propertyName) + ");");
+            statements.add("if (value != null) {");
+            statements.add("    " + assignment);
+            statements.add("}");
+        }
+        return null;
+    }
+
+    /**
+     * Returns the expression converting {@code value} to the field type, {@code null} for types that are not bound,
+     * or an empty string if the date pattern is incorrect.
+     */
+    private String conversionOf(TypeMirror type, String propertyName, Property property, List<String> formatters) {
+        if (type.getKind() == TypeKind.INT || isType(type, "java.lang.Integer")) {
+            return "PropertyBinders.parseInt(" + literal(propertyName) + ", value)";
+        }
+        if (isType(type, "java.lang.String")) {
+            return "value";
+        }
+        if (!isType(type, "java.time.Instant")) {
+            return null;
+        }
+
+        String pattern = property != null ? property.format() : DEFAULT_FORMAT;
+        try {
+            DateTimeFormatter.ofPattern(pattern);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+        String formatter = "FORMAT_" + formatters.size() / 2;
+        formatters.add("private static final String " + formatter + "_PATTERN = " + literal(pattern) + ";");
+        formatters.add("private static final DateTimeFormatter " + formatter
+                + " = DateTimeFormatter.ofPattern(" + formatter + "_PATTERN);");
+        return "PropertyBinders.parseInstant(" + literal(propertyName) + ", value, " + formatter + ", "
+                + formatter + "_PATTERN)";
+    }
+
+    /**
+     * Returns why the private field can't be set through a setter generated by Lombok, or {@code null}.
+     * A hand-written setter may validate or have side effects the reflective binding skips, so it is never called.
+     */
+    private String checkLombokSetter(TypeElement type, VariableElement field) {
+        String fieldName = field.getSimpleName().toString();
+        String setterName = setterName(fieldName);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(setterName) && !isLombokGenerated(method)) {
+                return "private field '" + fieldName + "' has a hand-written setter";
+            }
+        }
+
+        AnnotationMirror setter = findAnnotation(field, "lombok.Setter");
+        if (setter == null) {
+            setter = findAnnotation(type, "lombok.Setter");
+        }
+        if (setter != null ? isAccessible(setter, "value") : findAnnotation(type, "lombok.Data") != null) {
+            return null;
+        }
+        return "private field '" + fieldName + "' has no Lombok setter";
+    }
+
+    /**
+     * Lombok marks what it generates with {@code @SuppressWarnings("all")} and optionally {@code @lombok.Generated};
+     * members are visible here only if Lombok ran before this processor.
+     */
+    private static boolean isLombokGenerated(ExecutableElement method) {
+        if (findAnnotation(method, "lombok.Generated") != null) {
+            return true;
+        }
+        AnnotationMirror suppressWarnings = findAnnotation(method, "java.lang.SuppressWarnings");
+        return suppressWarnings != null && annotationValue(suppressWarnings, "value").contains("\"all\"");
+    }
+
+    /**
+     * Whether the {@code lombok.AccessLevel} attribute, PUBLIC by default, lets the binder in the same package in.
+     */
+    private static boolean isAccessible(AnnotationMirror annotation, String attribute) {
+        String access = annotationValue(annotation, attribute);
+        return !access.equals("PRIVATE") && !access.equals("NONE");
+    }
+
+    /**
+     * Returns the attribute as written in the source, or an empty string if it is not set.
+     */
+    private static String annotationValue(AnnotationMirror annotation, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                Object value = entry.getValue().getValue();
+                return value instanceof VariableElement
+                        ? ((VariableElement) value).getSimpleName().toString() : entry.getValue().toString();
+            }
+        }
+        return "";
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private static String setterName(String fieldName) {
+        return "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    private static void writeBinder(PrintWriter out, String packageName, String binderName, String typeName,
+                                    List<String> formatters, List<String> statements) {
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("import dev.profitsoft.intern.task2.PropertyBinder;");
+        out.println("import dev.profitsoft.intern.task2.PropertyBinders;");
+        out.println();
+        out.println("import java.time.format.DateTimeFormatter;");
+        out.println("import java.util.Properties;");
+        out.println();
+        out.println("@javax.annotation.processing.Generated(\"" + PropertyBinderProcessor.class.getName() + "\")");
+        out.println("public final class " + binderName + " implements PropertyBinder<" + typeName + "> {");
+        out.println();
+        for (String formatter : formatters) {
+            out.println("    " + formatter);
+        }
+        if (!formatters.isEmpty()) {
+            out.println();
+        }
+        out.println("    @Override");
+        out.println("    public " + typeName + " bind(Properties properties) {");
+        out.println("        " + typeName + " instance = new " + typeName + "();");
+        out.println("        String value;");
+        for (String statement : statements) {
+            out.println("        " + statement);
+        }
+        out.println("        return instance;");
+        out.println("    }");
+        out.println();
+        out.println("}");
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                // octal, a unicode escape of a line break would end the literal
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+}
@@ -0,0 +1,63 @@
+package dev.profitsoft.intern.task1;
+
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FinesGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void createFineFiles_sameSeed() throws IOException {
+        List<File> oneThread = FinesGenerator.createFineFiles(config("one", 1).build());
+        List<File> fourThreads = FinesGenerator.createFineFiles(config("four", 4).build());
+
+        assertThat(oneThread)
+                .hasSize(6);
+        for (int i = 0; i < oneThread.size(); i++) {
+            assertThat(Files.readAllBytes(fourThreads.get(i).toPath()))
+                    .isEqualTo(Files.readAllBytes(oneThread.get(i).toPath()));
+        }
+    }
+
+    @Test
+    public void createFineFiles_compact() throws IOException {
+        List<File> files = FinesGenerator.createFineFiles(config("compact", 2).pretty(false).build());
+
+        assertThat(Files.readString(files.get(0).toPath()))
+                .startsWith("{\"fines\":[{\"date_time\":\"2000-");
+        assertThat(FineScanner.scanFile(files.get(0)).getTotalCount())
+                .isEqualTo(1000);
+    }
+
+    @Test
+    public void createFineFiles_targetBytes() throws IOException {
+        List<File> files = FinesGenerator.createFineFiles(config("target", 2).targetBytes(1_000_000).build());
+
+        assertThat(files)
+                .hasSize(7);
+        assertThat(files.get(6).getName())
+                .isEqualTo("2000_1_fines.json");
+    }
+
+    private FinesGeneratorConfig.FinesGeneratorConfigBuilder config(String directory, int threads) {
+        return FinesGeneratorConfig.builder()
+                .directory(tempDir.resolve(directory).toFile())
+                .seed(42)
+                .fileCount(6)
+                .years(6)
+                .finesPerFile(1000)
+                .threads(threads);
+    }
+
+}
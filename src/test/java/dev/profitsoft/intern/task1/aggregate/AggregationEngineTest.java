@@ -0,0 +1,55 @@
+package dev.profitsoft.intern.task1.aggregate;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AggregationEngineTest {
+
+    @Test
+    public void aggregate() {
+        List<Integer> units = IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+
+        try (AggregationEngine engine = new AggregationEngine(4)) {
+            long sum = engine.aggregate(units, unit -> (long) unit, Long::sum, () -> 0L);
+
+            assertThat(sum)
+                    .isEqualTo(500_500L);
+        }
+    }
+
+    @Test
+    public void aggregate_empty() {
+        try (AggregationEngine engine = new AggregationEngine(2)) {
+            long sum = engine.aggregate(Collections.<Integer>emptyList(), unit -> (long) unit, Long::sum, () -> 0L);
+
+            assertThat(sum)
+                    .isZero();
+        }
+    }
+
+    @Test
+    public void aggregate_failure() {
+        List<Integer> units = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+        try (AggregationEngine engine = new AggregationEngine(4)) {
+            assertThatThrownBy(() -> engine.aggregate(units, unit -> {
+                if (unit == 42) {
+                    throw new IOException("broken unit");
+                }
+                return (long) unit;
+            }, Long::sum, () -> 0L))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasRootCauseMessage("broken unit");
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package dev.profitsoft.intern.task1.aggregate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelismControllerTest {
+
+    @Test
+    public void next_growsWhileRateRises() {
+        ParallelismController controller = new ParallelismController(2, 1, 8);
+
+        assertThat(controller.next(100, 0.9)).isEqualTo(3);
+        assertThat(controller.next(150, 0.9)).isEqualTo(4);
+        assertThat(controller.next(200, 0.9)).isEqualTo(5);
+    }
+
+    @Test
+    public void next_reversesWhenRateFalls() {
+        ParallelismController controller = new ParallelismController(2, 1, 8);
+
+        controller.next(100, 0.9);
+
+        assertThat(controller.next(90, 0.9)).isEqualTo(2);
+    }
+
+    @Test
+    public void next_growsWhenWaitingOnIo() {
+        ParallelismController controller = new ParallelismController(4, 1, 8);
+        controller.next(100, 0.3);
+
+        assertThat(controller.next(101, 0.3)).isEqualTo(6);
+        assertThat(controller.getReason()).contains("I/O");
+    }
+
+    @Test
+    public void next_shrinksWhenCpuBound() {
+        ParallelismController controller = new ParallelismController(4, 1, 8);
+        controller.next(100, 0.95);
+
+        assertThat(controller.next(101, 0.95)).isEqualTo(4);
+    }
+
+    @Test
+    public void next_returnsToPeak() {
+        ParallelismController controller = new ParallelismController(2, 1, 8);
+        controller.next(100, 0.9);
+        controller.next(200, 0.9);
+        controller.next(210, 0.9);
+
+        assertThat(controller.next(120, 0.9)).isEqualTo(4);
+    }
+
+    @Test
+    public void next_staysInBounds() {
+        ParallelismController controller = new ParallelismController(8, 1, 8);
+
+        assertThat(controller.next(100, 0.1)).isEqualTo(8);
+    }
+
+    @Test
+    public void next_keepsClimbOnWindowWithoutProgress() {
+        ParallelismController controller = new ParallelismController(2, 1, 8);
+        controller.next(100, 0.9);
+        controller.next(150, 0.9);
+
+        assertThat(controller.next(0, 0.9)).isEqualTo(4);
+        assertThat(controller.getReason()).contains("no progress");
+        assertThat(controller.next(200, 0.9)).isEqualTo(5);
+    }
+
+    @Test
+    public void adaptiveAggregator_countsProgressInsideUnit() {
+        List<String> log = new CopyOnWriteArrayList<>();
+
+        new AdaptiveAggregator(1, 1, 20, log::add).aggregate(List.of(1), (unit, progress) -> {
+            for (int i = 0; i < 10; i++) {
+                progress.accept(100);
+                LockSupport.parkNanos(20_000_000);
+            }
+            return unit;
+        }, Integer::sum, () -> 0);
+
+        assertThat(log).anyMatch(line -> line.matches("window \\d+: [1-9]\\d* records/s.*"));
+    }
+
+    @Test
+    public void adaptiveAggregator() {
+        List<Integer> units = IntStream.rangeClosed(1, 2000).boxed().collect(Collectors.toList());
+
+        long sum = new AdaptiveAggregator(2, 4, 5, message -> { })
+                .aggregate(units, (unit, progress) -> {
+                    progress.accept(1);
+                    return (long) unit;
+                }, Long::sum, () -> 0L);
+
+        assertThat(sum)
+                .isEqualTo(2001000L);
+    }
+
+}
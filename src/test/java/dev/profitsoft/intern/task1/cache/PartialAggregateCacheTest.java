@@ -0,0 +1,66 @@
+package dev.profitsoft.intern.task1.cache;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartialAggregateCacheTest {
+
+    private static final String FINES = "{\"fines\":[{\"type\":\"SPEEDING\",\"fine_amount\":340.0}," +
+            "{\"type\":\"RED_LIGHT\",\"fine_amount\":610.0}]}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void load() throws IOException {
+        File fineFile = writeFile(FINES);
+        PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+        PartialAggregateCache.store(fineFile, key, FineScanner.scanFile(fineFile));
+
+        FinesAccumulator cached = PartialAggregateCache.load(fineFile, PartialAggregateCache.keyOf(fineFile));
+
+        assertThat(cached)
+                .isNotNull();
+        assertThat(cached.toFines())
+                .isEqualTo(FineScanner.scanFile(fineFile).toFines());
+        assertThat(cached.getCount(FineType.RED_LIGHT))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void load_changedFile() throws IOException {
+        File fineFile = writeFile(FINES);
+        PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+        PartialAggregateCache.store(fineFile, key, FineScanner.scanFile(fineFile));
+
+        writeFile(FINES.replace("340.0", "510.0"));
+
+        assertThat(PartialAggregateCache.load(fineFile, PartialAggregateCache.keyOf(fineFile)))
+                .isNull();
+    }
+
+    @Test
+    public void load_noSidecar() throws IOException {
+        File fineFile = writeFile(FINES);
+
+        assertThat(PartialAggregateCache.load(fineFile, PartialAggregateCache.keyOf(fineFile)))
+                .isNull();
+    }
+
+    private File writeFile(String json) throws IOException {
+        File file = tempDir.resolve("2020_fines.json").toFile();
+        Files.writeString(file.toPath(), json);
+        return file;
+    }
+
+}
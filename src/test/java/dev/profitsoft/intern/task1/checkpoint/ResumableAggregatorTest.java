@@ -0,0 +1,112 @@
+package dev.profitsoft.intern.task1.checkpoint;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.cache.PartialAggregateCache;
+import dev.profitsoft.intern.task1.model.Fine;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResumableAggregatorTest {
+
+    private static final long SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void aggregate_quarantinesMalformedFine() throws IOException {
+        File fineFile = Files.writeString(tempDir.resolve("2019_fines.json"), "{\"fines\":[" +
+                "{\"type\":\"SPEEDING\",\"fine_amount\":340.0}," +
+                "{\"type\":\"FLYING\",\"fine_amount\":1.0}," +
+                "{\"type\":\"SPEEDING\",\"fine_amount\":\"oops\"}," +
+                "{\"type\":\"RED_LIGHT\",\"fine_amount\":610.0}]}").toFile();
+        ResumableAggregator aggregator = new ResumableAggregator(SEGMENT_SIZE);
+
+        FinesAccumulator statistic = aggregator.aggregate(fineFile);
+
+        assertThat(statistic.toFines())
+                .containsExactlyInAnyOrder(
+                        new Fine(FineType.SPEEDING, new BigDecimal("340.0")),
+                        new Fine(FineType.RED_LIGHT, new BigDecimal("610.0")));
+        assertThat(aggregator.getQuarantined())
+                .isEqualTo(2);
+        List<String> quarantine = Files.readAllLines(ResumableAggregator.quarantineOf(fineFile).toPath());
+        assertThat(quarantine)
+                .hasSize(2);
+        assertThat(quarantine.get(0))
+                .startsWith("{\"offset\":50,")
+                .contains("Unknown fine type 'FLYING'");
+        assertThat(quarantine.get(1))
+                .contains("\\\"oops\\\"");
+    }
+
+    @Test
+    public void aggregate_resumesFromCheckpoint() throws IOException {
+        File fineFile = createFineFile();
+        FinesAccumulator expected = FineScanner.scanFile(fineFile);
+        List<FineChunk> segments = FineFileSplitter.split(fineFile, SEGMENT_SIZE);
+        FineChunk lastSegment = segments.get(segments.size() - 1);
+        PartialAggregateCache.FileKey key = PartialAggregateCache.keyOf(fineFile);
+
+        FinesAccumulator beforeCrash = new FinesAccumulator();
+        for (FineChunk segment : segments.subList(0, segments.size() - 1)) {
+            beforeCrash.merge(segment.scan());
+        }
+        new FileCheckpoint(key, lastSegment.getStart(), 0, 0, beforeCrash).store(fineFile);
+        ResumableAggregator aggregator = new ResumableAggregator(SEGMENT_SIZE);
+
+        assertThat(aggregator.aggregate(fineFile).toFines())
+                .isEqualTo(expected.toFines());
+        assertThat(aggregator.getResumedBytes())
+                .isEqualTo(lastSegment.getStart());
+        assertThat(FileCheckpoint.load(fineFile, key).getOffset())
+                .isEqualTo(fineFile.length());
+    }
+
+    @Test
+    public void aggregate_doesNotRereadCommittedSegments() throws IOException {
+        File fineFile = createFineFile();
+        List<FineChunk> segments = FineFileSplitter.split(fineFile, SEGMENT_SIZE);
+        FineChunk lastSegment = segments.get(segments.size() - 1);
+        new FileCheckpoint(PartialAggregateCache.keyOf(fineFile), lastSegment.getStart(), 0, 0,
+                new FinesAccumulator()).store(fineFile);
+
+        assertThat(new ResumableAggregator(SEGMENT_SIZE).aggregate(fineFile).getTotalCount())
+                .isEqualTo(lastSegment.scan().getTotalCount());
+    }
+
+    @Test
+    public void aggregate_ignoresCheckpointOfChangedFile() throws IOException {
+        File fineFile = createFineFile();
+        new FileCheckpoint(new PartialAggregateCache.FileKey("other", 1, 1, 1), fineFile.length(), 0, 0,
+                new FinesAccumulator()).store(fineFile);
+
+        assertThat(new ResumableAggregator(SEGMENT_SIZE).aggregate(fineFile).toFines())
+                .isEqualTo(FineScanner.scanFile(fineFile).toFines());
+    }
+
+    private File createFineFile() throws IOException {
+        return FinesGenerator.createFineFiles(FinesGeneratorConfig.builder()
+                .directory(tempDir.toFile())
+                .seed(5)
+                .fileCount(1)
+                .finesPerFile(3_000)
+                .build()).get(0);
+    }
+
+}
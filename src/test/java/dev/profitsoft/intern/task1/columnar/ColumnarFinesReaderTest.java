@@ -0,0 +1,85 @@
+package dev.profitsoft.intern.task1.columnar;
+
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnarFinesReaderTest {
+
+    private static final String FINES = "{\n" +
+            "  \"fines\" : [ {\n" +
+            "    \"date_time\" : \"2019-03-12 10:15:00\",\n" +
+            "    \"first_name\" : \"Ivan\",\n" +
+            "    \"last_name\" : \"Ivanov\",\n" +
+            "    \"type\" : \"SPEEDING\",\n" +
+            "    \"fine_amount\" : 340.0\n" +
+            "  }, {\n" +
+            "    \"date_time\" : \"2019-07-01 23:59:59\",\n" +
+            "    \"first_name\" : \"Tom\",\n" +
+            "    \"last_name\" : \"Ivanov\",\n" +
+            "    \"type\" : \"ALCOHOL_INTOXICATION\",\n" +
+            "    \"fine_amount\" : 17000.0\n" +
+            "  }, {\n" +
+            "    \"date_time\" : \"2019-12-31 00:00:00\",\n" +
+            "    \"first_name\" : \"Ivan\",\n" +
+            "    \"last_name\" : \"Tomov\",\n" +
+            "    \"type\" : \"SPEEDING\",\n" +
+            "    \"fine_amount\" : 0.55\n" +
+            "  } ]\n" +
+            "}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void aggregate() throws IOException {
+        File jsonFile = writeJson();
+        List<File> columnarFiles = ColumnarFinesWriter.convertAll(List.of(jsonFile));
+
+        ColumnarFinesReader reader = ColumnarFinesReader.open(columnarFiles.get(0));
+
+        assertThat(reader.getCount())
+                .isEqualTo(3);
+        assertThat(reader.aggregate().toFines())
+                .isEqualTo(FineScanner.scanFile(jsonFile).toFines());
+    }
+
+    @Test
+    public void columns() throws IOException {
+        File jsonFile = writeJson();
+        File columnarFile = ColumnarFinesWriter.columnarFileOf(jsonFile);
+        ColumnarFinesWriter.convert(jsonFile, columnarFile);
+
+        ColumnarFinesReader reader = ColumnarFinesReader.open(columnarFile);
+
+        assertThat(reader.getType(1))
+                .isEqualTo(FineType.ALCOHOL_INTOXICATION);
+        assertThat(reader.getAmountMinorUnits(2))
+                .isEqualTo(55);
+        assertThat(reader.getDateTime(1))
+                .isEqualTo(LocalDateTime.of(2019, 7, 1, 23, 59, 59));
+        assertThat(reader.getName(reader.getFirstNameId(2)))
+                .isEqualTo("Ivan");
+        assertThat(reader.getLastNameId(0))
+                .isEqualTo(reader.getLastNameId(1));
+        assertThat(reader.getName(reader.getLastNameId(2)))
+                .isEqualTo("Tomov");
+    }
+
+    private File writeJson() throws IOException {
+        File file = tempDir.resolve("2019_fines.json").toFile();
+        Files.writeString(file.toPath(), FINES);
+        return file;
+    }
+
+}
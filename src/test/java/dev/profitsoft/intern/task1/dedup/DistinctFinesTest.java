@@ -0,0 +1,115 @@
+package dev.profitsoft.intern.task1.dedup;
+
+import dev.profitsoft.intern.task1.Task1;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DistinctFinesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void visit() {
+        DistinctFines distinctFines = new DistinctFines(new FingerprintSet(16));
+
+        scan(distinctFines,
+                fine("2019-01-01 10:00:00", "Ivan", "Ivanov", "SPEEDING", "100"),
+                fine("2019-01-01 10:00:00", "Ivan", "Ivanov", "SPEEDING", "100.00"),
+                fine("2019-01-01 10:00:01", "Ivan", "Ivanov", "SPEEDING", "100"),
+                fine("2019-01-01 10:00:00", "Ivan", "Ivanova", "SPEEDING", "100"),
+                fine("2019-01-01 10:00:00", "Ivan", "Ivanov", "RED_LIGHT", "100"),
+                fine("2019-01-01 10:00:00", "Ivan", "Ivanov", "SPEEDING", "100.01"));
+
+        assertThat(distinctFines.getDuplicateCount()).isEqualTo(1);
+        assertThat(distinctFines.getTotals().getCount(FineType.SPEEDING)).isEqualTo(4);
+        assertThat(distinctFines.getTotals().getCount(FineType.RED_LIGHT)).isEqualTo(1);
+    }
+
+    @Test
+    public void getDistinctFineStatistic_acrossFiles() throws IOException {
+        String shared = fine("2019-12-31 23:59:59", "Leo", "Leonov", "NO_SEAT_BELT", "510.0");
+        writeFineFile("2019_fines.json", shared, fine("2019-05-01 10:00:00", "Tom", "Tomov", "NO_SEAT_BELT", "20.0"));
+        writeFineFile("2020_fines.json", fine("2020-01-01 00:00:00", "Tom", "Tomov", "NO_SEAT_BELT", "20.0"), shared);
+
+        DistinctFines distinctFines = Task1.getDistinctFineStatistic(tempDir.toFile(), 2);
+
+        assertThat(distinctFines.getDuplicateCount()).isEqualTo(1);
+        assertThat(distinctFines.getTotals().getAmount(FineType.NO_SEAT_BELT)).isEqualTo(new BigDecimal("550.0"));
+    }
+
+    @Test
+    public void add_concurrently() throws Exception {
+        FingerprintSet fingerprints = new FingerprintSet(100_000);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> added = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                added.add(executorService.submit(() -> {
+                    int count = 0;
+                    for (long fingerprint = 0; fingerprint < 50_000; fingerprint++) {
+                        if (fingerprints.add(fingerprint * 0x9e3779b97f4a7c15L)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> future : added) {
+                total += future.get();
+            }
+
+            assertThat(total).isEqualTo(50_000);
+            assertThat(fingerprints.size()).isEqualTo(50_000);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void add_full() {
+        FingerprintSet fingerprints = new FingerprintSet(10);
+
+        assertThatThrownBy(() -> {
+            for (long fingerprint = 1; fingerprint < 100; fingerprint++) {
+                fingerprints.add(fingerprint);
+            }
+        })
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("full");
+    }
+
+    private void writeFineFile(String name, String... fines) throws IOException {
+        Files.writeString(tempDir.resolve(name), "{\"fines\":[" + String.join(",", fines) + "]}");
+    }
+
+    private static void scan(DistinctFines distinctFines, String... fines) {
+        byte[] bytes = ("{\"fines\":[" + String.join(",", fines) + "]}").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        new FineScanner(buffer, FineScanner.findFinesArrayStart(buffer), buffer.limit()).scan(distinctFines);
+    }
+
+    private static String fine(String dateTime, String firstName, String lastName, String type, String amount) {
+        return String.format("{\"date_time\":\"%s\",\"first_name\":\"%s\",\"last_name\":\"%s\",\"type\":\"%s\",\"fine_amount\":%s}",
+                dateTime, firstName, lastName, type, amount);
+    }
+
+}
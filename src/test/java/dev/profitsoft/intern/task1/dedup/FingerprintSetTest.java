@@ -0,0 +1,43 @@
+package dev.profitsoft.intern.task1.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FingerprintSetTest {
+
+    @Test
+    public void add_acrossShards() {
+        FingerprintSet fingerprints = new FingerprintSet(1000, 256);
+
+        assertThat(fingerprints.getShardCount())
+                .isEqualTo(8);
+        for (long i = 0; i < 1000; i++) {
+            assertThat(fingerprints.add(i * 0x9E3779B97F4A7C15L))
+                    .isTrue();
+        }
+        for (long i = 0; i < 1000; i++) {
+            assertThat(fingerprints.add(i * 0x9E3779B97F4A7C15L))
+                    .isFalse();
+        }
+        assertThat(fingerprints.size())
+                .isEqualTo(1000);
+        assertThat(fingerprints.getOffHeapBytes())
+                .isBetween(8L * 256 * Long.BYTES, 8L * 257 * Long.BYTES);
+    }
+
+    @Test
+    public void add_fullShard() {
+        FingerprintSet fingerprints = new FingerprintSet(1000, 256);
+
+        assertThatThrownBy(() -> {
+            for (long fingerprint = 1; fingerprint < 1000; fingerprint++) {
+                fingerprints.add(fingerprint);
+            }
+        })
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("full");
+    }
+
+}
@@ -0,0 +1,126 @@
+package dev.profitsoft.intern.task1.distributed;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FinesCoordinatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<File> fineFiles;
+    private FinesAccumulator expected;
+
+    @BeforeEach
+    public void createFineFiles() throws IOException {
+        fineFiles = FinesGenerator.createFineFiles(FinesGeneratorConfig.builder()
+                .directory(tempDir.toFile())
+                .seed(13)
+                .fileCount(6)
+                .finesPerFile(2_000)
+                .years(6)
+                .build());
+        expected = new FinesAccumulator();
+        for (File fineFile : fineFiles) {
+            expected.merge(FineScanner.scanFile(fineFile));
+        }
+    }
+
+    @Test
+    public void aggregate_twoWorkerProcesses() throws IOException {
+        try (FinesCoordinator coordinator = new FinesCoordinator(0)) {
+            coordinator.startLocalWorker(1);
+            coordinator.startLocalWorker(1);
+
+            assertThat(coordinator.aggregate(fineFiles).toFines())
+                    .isEqualTo(expected.toFines());
+        }
+    }
+
+    @Test
+    public void aggregate_reassignsShardOfDeadWorker() throws IOException {
+        try (FinesCoordinator coordinator = new FinesCoordinator(0);
+             Socket deadWorker = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+            DataOutputStream out = new DataOutputStream(deadWorker.getOutputStream());
+            out.writeInt(WorkerProtocol.MAGIC);
+            out.writeInt(WorkerProtocol.VERSION);
+            out.flush();
+            Thread dieOnFirstTask = new Thread(() -> {
+                try {
+                    DataInputStream in = new DataInputStream(deadWorker.getInputStream());
+                    in.readByte();
+                    in.readUTF();
+                    deadWorker.close();
+                } catch (IOException e) {
+                    // the coordinator is closed
+                }
+            });
+            dieOnFirstTask.start();
+            coordinator.startLocalWorker(1);
+
+            assertThat(coordinator.aggregate(fineFiles).toFines())
+                    .isEqualTo(expected.toFines());
+        }
+    }
+
+    @Test
+    public void aggregate_reassignsShardOfSilentWorker() throws IOException {
+        List<String> log = new CopyOnWriteArrayList<>();
+        try (FinesCoordinator coordinator = new FinesCoordinator(0, 2 * WorkerProtocol.HEARTBEAT_MILLIS, log::add);
+             Socket silentWorker = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+            DataOutputStream out = new DataOutputStream(silentWorker.getOutputStream());
+            out.writeInt(WorkerProtocol.MAGIC);
+            out.writeInt(WorkerProtocol.VERSION);
+            out.flush();
+            coordinator.startLocalWorker(1);
+
+            assertThat(coordinator.aggregate(fineFiles).toFines())
+                    .isEqualTo(expected.toFines());
+            assertThat(coordinator.getReassignedShardCount()).isEqualTo(1);
+            assertThat(log).anyMatch(line -> line.contains("is reassigned"));
+        }
+    }
+
+    @Test
+    public void aggregate_shutsDownWorkerAfterError() throws Exception {
+        try (FinesCoordinator coordinator = new FinesCoordinator(0)) {
+            Process worker = coordinator.startLocalWorker(1);
+
+            assertThatThrownBy(() -> coordinator.aggregate(List.of(new File(tempDir.toFile(), "missing.json"))))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("missing.json");
+            assertThat(worker.waitFor(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    public void aggregate_allWorkersDead() throws Exception {
+        try (FinesCoordinator coordinator = new FinesCoordinator(0)) {
+            coordinator.startLocalWorker(1).destroyForcibly().waitFor();
+
+            assertThatThrownBy(() -> coordinator.aggregate(fineFiles))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("All workers are dead");
+        }
+    }
+
+}
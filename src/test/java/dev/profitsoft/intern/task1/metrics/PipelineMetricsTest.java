@@ -0,0 +1,113 @@
+package dev.profitsoft.intern.task1.metrics;
+
+import dev.profitsoft.intern.task1.aggregate.AggregationEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class PipelineMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void meter_countsUnitsBytesAndRecordsPerFile() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        File first = new File("first_fines.json");
+        File second = new File("second_fines.json");
+        AggregationEngine.PartialAggregator<File, Long> aggregator = metrics.meter(
+                file -> 10L, file -> file, file -> 100, records -> records);
+
+        aggregator.aggregate(first);
+        aggregator.aggregate(first);
+        aggregator.aggregate(second);
+
+        assertThat(metrics.getUnitCount()).isEqualTo(3);
+        assertThat(metrics.getByteCount()).isEqualTo(300);
+        assertThat(metrics.getRecordCount()).isEqualTo(30);
+        assertThat(metrics.getReport().getFiles())
+                .extracting(FileMetrics::getFile, FileMetrics::getUnits, FileMetrics::getRecords)
+                .containsExactly(
+                        tuple("first_fines.json", 2L, 20L),
+                        tuple("second_fines.json", 1L, 10L));
+    }
+
+    @Test
+    public void register() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        PipelineMetrics otherRun = new PipelineMetrics();
+        metrics.addRecords(new File("fines.json"), 42);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.register();
+        otherRun.register();
+        try {
+            assertThat(server.getAttribute(metrics.getObjectName(), "RecordCount"))
+                    .isEqualTo(42L);
+            assertThat(server.getAttribute(otherRun.getObjectName(), "RecordCount"))
+                    .isEqualTo(0L);
+        } finally {
+            metrics.unregister();
+            otherRun.unregister();
+        }
+
+        assertThat(server.isRegistered(metrics.getObjectName())).isFalse();
+    }
+
+    @Test
+    public void meter_measuresQueueWaitFromSubmission() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        AggregationEngine.PartialAggregator<File, Long> aggregator = metrics.meter(
+                file -> 1L, file -> file, file -> 1, records -> records);
+        Thread.sleep(200);
+
+        try (AggregationEngine engine = new AggregationEngine(1)) {
+            engine.aggregate(List.of(new File("first_fines.json")), aggregator, Long::sum, () -> 0L);
+            Thread.sleep(200);
+            engine.aggregate(List.of(new File("second_fines.json")), aggregator, Long::sum, () -> 0L);
+        }
+
+        assertThat(metrics.getUnitCount()).isEqualTo(2);
+        assertThat(metrics.getQueueWaitMaxMillis()).isLessThan(100);
+    }
+
+    @Test
+    public void writeReport() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        AggregationEngine.PartialAggregator<File, Long> aggregator = metrics.meter(
+                file -> 1L, file -> file, file -> 1, records -> records);
+        aggregator.aggregate(new File("fines.json"));
+        metrics.finish();
+        File report = tempDir.resolve("report.json").toFile();
+
+        metrics.writeReport(report);
+
+        assertThat(Files.readString(report.toPath()))
+                .contains("\"record_count\" : 1")
+                .contains("\"parse_latency_p99_millis\"")
+                .contains("\"file\" : \"fines.json\"");
+    }
+
+    @Test
+    public void getPercentileNanos() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1_000_000);
+
+        assertThat(histogram.getPercentileNanos(50)).isBetween(1000L, 2000L);
+        assertThat(histogram.getPercentileNanos(100)).isEqualTo(1_000_000);
+        assertThat(histogram.getCount()).isEqualTo(100);
+    }
+
+}
@@ -0,0 +1,73 @@
+package dev.profitsoft.intern.task1.pipeline;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GzipFinesPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void aggregate() throws IOException {
+        List<File> jsonFiles = FinesGenerator.createFineFiles(config("json", FinesGeneratorConfig.OutputFormat.JSON));
+        List<File> gzipFiles = FinesGenerator.createFineFiles(config("gzip", FinesGeneratorConfig.OutputFormat.JSON_GZIP));
+        FinesAccumulator expected = new FinesAccumulator();
+        for (File jsonFile : jsonFiles) {
+            expected.merge(FineScanner.scanFile(jsonFile));
+        }
+
+        GzipFinesPipeline pipeline = new GzipFinesPipeline(2, 3, 6, 4096);
+        FinesAccumulator actual = pipeline.aggregate(gzipFiles);
+
+        assertThat(actual.getTotalCount())
+                .isEqualTo(3 * 2000);
+        assertThat(actual.toFines())
+                .isEqualTo(expected.toFines());
+        assertThat(pipeline.getStageStatistics())
+                .extracting(StageStatistic::getName)
+                .containsExactly("inflate", "parse");
+    }
+
+    @Test
+    public void aggregate_fineLargerThanBuffer() throws IOException {
+        List<File> gzipFiles = FinesGenerator.createFineFiles(config("gzip", FinesGeneratorConfig.OutputFormat.JSON_GZIP));
+
+        assertThatThrownBy(() -> new GzipFinesPipeline(1, 1, 2, 64).aggregate(gzipFiles))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void findLastFineStart() {
+        byte[] bytes = "{\"a\":1} ,\n {\"a\":2}, {\"a\":3".getBytes();
+
+        assertThat(GzipFinesPipeline.findLastFineStart(bytes, 0, bytes.length))
+                .isEqualTo(20);
+        assertThat(GzipFinesPipeline.findLastFineStart(bytes, 0, 7))
+                .isEqualTo(-1);
+    }
+
+    private FinesGeneratorConfig config(String directory, FinesGeneratorConfig.OutputFormat format) {
+        return FinesGeneratorConfig.builder()
+                .directory(tempDir.resolve(directory).toFile())
+                .seed(7)
+                .fileCount(3)
+                .years(3)
+                .finesPerFile(2000)
+                .format(format)
+                .build();
+    }
+
+}
@@ -0,0 +1,90 @@
+package dev.profitsoft.intern.task1.pipeline;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.metrics.PipelineMetrics;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadAheadPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void aggregate() throws IOException {
+        List<File> fineFiles = createFineFiles();
+        FinesAccumulator expected = new FinesAccumulator();
+        for (File fineFile : fineFiles) {
+            expected.merge(FineScanner.scanFile(fineFile));
+        }
+
+        ReadAheadPipeline pipeline = new ReadAheadPipeline(2, 3, 16 * 1024);
+        FinesAccumulator actual = pipeline.aggregate(fineFiles);
+
+        assertThat(actual.getTotalCount())
+                .isEqualTo(3 * 2000);
+        assertThat(actual.toFines())
+                .isEqualTo(expected.toFines());
+        assertThat(pipeline.getStageStatistics())
+                .extracting(StageStatistic::getName)
+                .containsExactly("read", "parse");
+    }
+
+    @Test
+    public void aggregate_metered() throws IOException {
+        List<File> fineFiles = createFineFiles();
+        PipelineMetrics metrics = new PipelineMetrics();
+
+        new ReadAheadPipeline(2, 3, 16 * 1024).aggregate(fineFiles, metrics);
+
+        assertThat(metrics.getRecordCount())
+                .isEqualTo(3 * 2000);
+        assertThat(metrics.getByteCount())
+                .isPositive()
+                .isLessThanOrEqualTo(fineFiles.stream().mapToLong(File::length).sum());
+        assertThat(metrics.getFileCount())
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void aggregate_fineLargerThanBuffer() throws IOException {
+        List<File> fineFiles = createFineFiles();
+
+        assertThatThrownBy(() -> new ReadAheadPipeline(1, 2, 64).aggregate(fineFiles))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("larger than a buffer");
+    }
+
+    @Test
+    public void aggregate_malformedFine() throws IOException {
+        File fineFile = Files.writeString(tempDir.resolve("2019_fines.json"),
+                "{\"fines\":[{\"type\":\"PARKING\",\"fine_amount\":1.0}]}").toFile();
+
+        assertThatThrownBy(() -> new ReadAheadPipeline(1, 2, 4096).aggregate(List.of(fineFile)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("2019_fines.json")
+                .hasMessageContaining("Unknown fine type 'PARKING'");
+    }
+
+    private List<File> createFineFiles() throws IOException {
+        return FinesGenerator.createFineFiles(FinesGeneratorConfig.builder()
+                .directory(tempDir.toFile())
+                .seed(17)
+                .fileCount(3)
+                .finesPerFile(2000)
+                .build());
+    }
+
+}
@@ -0,0 +1,108 @@
+package dev.profitsoft.intern.task1.query;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.model.Fine;
+import dev.profitsoft.intern.task1.model.FineType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FineQueryEngineTest {
+
+    private static final String FINES = "{\"fines\":[" +
+            "{\"date_time\":\"2019-08-01 10:00:00\",\"first_name\":\"Ivan\",\"last_name\":\"Petrenko\",\"type\":\"ALCOHOL_INTOXICATION\",\"fine_amount\":800.0}," +
+            "{\"date_time\":\"2019-10-01 00:00:00\",\"first_name\":\"Ivan\",\"last_name\":\"Shevchenko\",\"type\":\"ALCOHOL_INTOXICATION\",\"fine_amount\":900.0}," +
+            "{\"date_time\":\"2019-07-15 12:30:00\",\"first_name\":\"Olena\",\"last_name\":\"Petrenko\",\"type\":\"SPEEDING\",\"fine_amount\":340.5}," +
+            "{\"date_time\":\"2019-07-01 00:00:00\",\"first_name\":\"Olena\",\"last_name\":\"Kovalenko\",\"type\":\"ALCOHOL_INTOXICATION\",\"fine_amount\":1000.0}]}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void query() throws IOException {
+        File fineFile = writeFile("2019_fines.json", FINES);
+        FineQuery alcoholInQ3 = FineQuery.builder()
+                .from(LocalDateTime.of(2019, 7, 1, 0, 0))
+                .to(LocalDateTime.of(2019, 10, 1, 0, 0))
+                .types(Set.of(FineType.ALCOHOL_INTOXICATION))
+                .build();
+
+        QueryResult result = FineQueryEngine.query(List.of(fineFile), alcoholInQ3, 1);
+
+        assertThat(result.getStatistic().toFines())
+                .containsExactly(new Fine(FineType.ALCOHOL_INTOXICATION, new BigDecimal("1800.0")));
+        assertThat(FineIndex.sidecarOf(fineFile))
+                .exists();
+    }
+
+    @Test
+    public void query_byName() throws IOException {
+        File fineFile = writeFile("2019_fines.json", FINES);
+        FineQuery petrenko = FineQuery.builder().lastName("Petrenko").build();
+
+        QueryResult first = FineQueryEngine.query(List.of(fineFile), petrenko, 1);
+        QueryResult second = FineQueryEngine.query(List.of(fineFile), petrenko, 1);
+
+        assertThat(second.getStatistic().toFines())
+                .isEqualTo(first.getStatistic().toFines())
+                .containsExactlyInAnyOrder(
+                        new Fine(FineType.SPEEDING, new BigDecimal("340.5")),
+                        new Fine(FineType.ALCOHOL_INTOXICATION, new BigDecimal("800.0")));
+    }
+
+    @Test
+    public void query_skipsZones() throws IOException {
+        List<File> fineFiles = FinesGenerator.createFineFiles(FinesGeneratorConfig.builder()
+                .directory(tempDir.toFile())
+                .seed(7)
+                .fileCount(3)
+                .finesPerFile(20_000)
+                .years(3)
+                .build());
+        FineQuery query = FineQuery.builder()
+                .from(LocalDateTime.of(2001, 7, 1, 0, 0))
+                .to(LocalDateTime.of(2001, 10, 1, 0, 0))
+                .types(Set.of(FineType.ALCOHOL_INTOXICATION))
+                .build();
+
+        QueryResult indexing = FineQueryEngine.query(fineFiles, query, 2);
+        QueryResult indexed = FineQueryEngine.query(fineFiles, query, 2);
+
+        assertThat(indexing.getSkippedZones())
+                .isZero();
+        assertThat(indexed.getSkippedZones())
+                .isPositive();
+        assertThat(indexed.getStatistic().toFines())
+                .isEqualTo(indexing.getStatistic().toFines())
+                .isNotEmpty();
+    }
+
+    @Test
+    public void query_staleIndex() throws IOException {
+        File fineFile = writeFile("2019_fines.json", FINES);
+        FineQuery ivan = FineQuery.builder().firstName("Ivan").build();
+        FineQueryEngine.query(List.of(fineFile), ivan, 1);
+
+        writeFile("2019_fines.json", FINES.replace("Olena", "Ivan"));
+        fineFile.setLastModified(fineFile.lastModified() + 2000);
+
+        assertThat(FineQueryEngine.query(List.of(fineFile), ivan, 1).getStatistic().getTotalCount())
+                .isEqualTo(4);
+    }
+
+    private File writeFile(String name, String json) throws IOException {
+        return Files.writeString(tempDir.resolve(name), json).toFile();
+    }
+
+}
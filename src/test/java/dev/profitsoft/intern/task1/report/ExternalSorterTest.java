@@ -0,0 +1,90 @@
+package dev.profitsoft.intern.task1.report;
+
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExternalSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void forEachSorted_mergesRuns() {
+        Comparator<OffenderFineStatistic> bySumDescending = Comparator.comparing(OffenderFineStatistic::getSum).reversed();
+        List<OffenderFineStatistic> rows = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 10_000; i++) {
+            rows.add(new OffenderFineStatistic("Name" + i, i % 10 == 0 ? null : "Last" + i,
+                    i % 2 == 0 ? null : LocalDate.ofEpochDay(18_000 + i % 365), i,
+                    BigDecimal.valueOf(random.nextLong(1_000_000), 2), BigDecimal.ONE, BigDecimal.TEN));
+        }
+
+        List<OffenderFineStatistic> sorted = new ArrayList<>();
+        try (ExternalSorter<OffenderFineStatistic> sorter = new ExternalSorter<>(bySumDescending,
+                new OffenderFineStatisticCodec(), 1000, tempDir.toFile())) {
+            rows.forEach(sorter::add);
+            assertThat(sorter.getRunCount()).isEqualTo(10);
+
+            sorter.forEachSorted(sorted::add);
+        }
+
+        assertThat(sorted)
+                .isSortedAccordingTo(bySumDescending)
+                .containsExactlyInAnyOrderElementsOf(rows);
+        assertThat(tempDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void forEachSorted_boundedFanIn() {
+        List<OffenderFineStatistic> rows = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 5_000; i++) {
+            rows.add(new OffenderFineStatistic("Name" + i, "Last", random.nextLong(1000),
+                    BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+        }
+
+        List<OffenderFineStatistic> sorted = new ArrayList<>();
+        try (ExternalSorter<OffenderFineStatistic> sorter = new ExternalSorter<>(
+                Comparator.comparing(OffenderFineStatistic::getCount), new OffenderFineStatisticCodec(), 100, 4,
+                tempDir.toFile())) {
+            rows.forEach(sorter::add);
+            assertThat(sorter.getRunCount()).isEqualTo(50);
+
+            sorter.forEachSorted(sorted::add);
+            // every merge of 4 runs leaves 3 runs fewer: 16 merges down to 2 runs, then the final one
+            assertThat(sorter.getMergePassCount()).isEqualTo(17);
+        }
+
+        assertThat(sorted)
+                .isSortedAccordingTo(Comparator.comparing(OffenderFineStatistic::getCount))
+                .containsExactlyInAnyOrderElementsOf(rows);
+        assertThat(tempDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void forEachSorted_inMemory() {
+        try (ExternalSorter<OffenderFineStatistic> sorter = new ExternalSorter<>(
+                Comparator.comparing(OffenderFineStatistic::getCount), new OffenderFineStatisticCodec(), 10, tempDir.toFile())) {
+            for (int count = 5; count > 0; count--) {
+                sorter.add(new OffenderFineStatistic("A", "B", count, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+            }
+            List<Long> counts = new ArrayList<>();
+            sorter.forEachSorted(row -> counts.add(row.getCount()));
+
+            assertThat(counts).containsExactly(1L, 2L, 3L, 4L, 5L);
+            assertThat(sorter.getRunCount()).isZero();
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package dev.profitsoft.intern.task1.report;
+
+import dev.profitsoft.intern.task1.model.Fine;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.FinesStatistic;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StreamingXmlReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void writeRow_sameAsMapper() throws IOException {
+        List<Fine> fines = List.of(new Fine(FineType.SPEEDING, new BigDecimal("340.5")),
+                new Fine(FineType.RED_LIGHT, new BigDecimal("610")));
+        List<OffenderFineStatistic> offenders = List.of(
+                new OffenderFineStatistic("Ivan", "Ivanov", LocalDate.of(2019, 3, 12), 2,
+                        new BigDecimal("850.0"), new BigDecimal("340.0"), new BigDecimal("510.0")),
+                new OffenderFineStatistic(null, "Tomov", 1,
+                        new BigDecimal("1.0"), new BigDecimal("1.0"), new BigDecimal("1.0")));
+        File expected = tempDir.resolve("expected.xml").toFile();
+        StreamingXmlReportWriter.getXmlMapper().writeValue(expected, new FinesStatistic(fines, null, offenders));
+
+        File actual = tempDir.resolve("actual.xml").toFile();
+        try (StreamingXmlReportWriter writer = new StreamingXmlReportWriter(actual)) {
+            writer.startSection("fines");
+            fines.forEach(fine -> writer.writeRow("fine", fine));
+            writer.endSection();
+            writer.startSection("by_offender");
+            offenders.forEach(offender -> writer.writeRow("offender", offender));
+            writer.endSection();
+
+            assertThat(writer.getRowCount()).isEqualTo(4);
+        }
+
+        assertThat(Files.readString(actual.toPath()))
+                .isEqualTo(Files.readString(expected.toPath()));
+    }
+
+    @Test
+    public void writeRow_outsideSection() throws IOException {
+        try (StreamingXmlReportWriter writer = new StreamingXmlReportWriter(tempDir.resolve("report.xml").toFile())) {
+            assertThatThrownBy(() -> writer.writeRow("fine", new Fine(FineType.SPEEDING, BigDecimal.ONE)))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+}
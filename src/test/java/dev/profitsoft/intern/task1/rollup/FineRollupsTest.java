@@ -0,0 +1,93 @@
+package dev.profitsoft.intern.task1.rollup;
+
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.MonthlyFineStatistic;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FineRollupsTest {
+
+    @Test
+    public void visit() {
+        FineRollups rollups = scan(
+                fine("2019-03-12 10:15:00", "Ivan", "Ivanov", FineType.SPEEDING, "340.0"),
+                fine("2019-03-20 08:00:00", "Ivan", "Ivanov", FineType.SPEEDING, "510.0"),
+                fine("2019-04-01 00:00:00", "Tom", "Tomov", FineType.SPEEDING, "340.0"));
+
+        List<MonthlyFineStatistic> monthly = rollups.getMonthlyStatistic();
+
+        assertThat(monthly)
+                .containsExactly(
+                        new MonthlyFineStatistic(FineType.SPEEDING, 2019, 3, 2,
+                                new BigDecimal("850.0"), new BigDecimal("340.0"), new BigDecimal("510.0")),
+                        new MonthlyFineStatistic(FineType.SPEEDING, 2019, 4, 1,
+                                new BigDecimal("340.0"), new BigDecimal("340.0"), new BigDecimal("340.0")));
+        assertThat(rollups.getOffenderStatistic())
+                .first()
+                .isEqualTo(new OffenderFineStatistic("Ivan", "Ivanov", 2,
+                        new BigDecimal("850.0"), new BigDecimal("340.0"), new BigDecimal("510.0")));
+    }
+
+    @Test
+    public void merge() {
+        FineRollups left = scan(
+                fine("2020-01-01 00:00:00", "Ivan", "Ivanov", FineType.RED_LIGHT, "610.0"),
+                fine("2020-01-02 00:00:00", "Leo", "Leonov", FineType.RED_LIGHT, "610.0"));
+        FineRollups right = scan(
+                fine("2020-01-03 00:00:00", "Leo", "Leonov", FineType.RED_LIGHT, "700.0"),
+                fine("2020-02-01 00:00:00", "Ivan", "Ivanov", FineType.NO_SEAT_BELT, "510.0"));
+
+        FineRollups merged = left.merge(right);
+
+        assertThat(merged.getTotals().getAmount(FineType.RED_LIGHT))
+                .isEqualTo(new BigDecimal("1920.0"));
+        assertThat(merged.getOffenderStatistic())
+                .containsExactly(
+                        new OffenderFineStatistic("Leo", "Leonov", 2,
+                                new BigDecimal("1310.0"), new BigDecimal("610.0"), new BigDecimal("700.0")),
+                        new OffenderFineStatistic("Ivan", "Ivanov", 2,
+                                new BigDecimal("1120.0"), new BigDecimal("510.0"), new BigDecimal("610.0")));
+        assertThat(merged.getMonthlyStatistic())
+                .hasSize(2);
+    }
+
+    @Test
+    public void visit_manyOffenders() {
+        StringBuilder json = new StringBuilder("{\"fines\":[");
+        for (int i = 0; i < 10_000; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append(fine("2020-01-01 00:00:00", "Name" + i, "Last" + (i % 7), FineType.SPEEDING, "1.5"));
+        }
+        FineRollups rollups = scanJson(json.append("]}").toString());
+
+        assertThat(rollups.getByOffender().size())
+                .isEqualTo(10_000);
+        assertThat(rollups.getNames().size())
+                .isEqualTo(10_007);
+    }
+
+    private FineRollups scan(String... fines) {
+        return scanJson("{\"fines\":[" + String.join(",", fines) + "]}");
+    }
+
+    private FineRollups scanJson(String json) {
+        ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        FineRollups rollups = new FineRollups();
+        new FineScanner(buffer, FineScanner.findFinesArrayStart(buffer), buffer.limit()).scan(rollups);
+        return rollups;
+    }
+
+    private String fine(String dateTime, String firstName, String lastName, FineType type, String amount) {
+        return String.format("{\"date_time\":\"%s\",\"first_name\":\"%s\",\"last_name\":\"%s\",\"type\":\"%s\",\"fine_amount\":%s}",
+                dateTime, firstName, lastName, type, amount);
+    }
+
+}
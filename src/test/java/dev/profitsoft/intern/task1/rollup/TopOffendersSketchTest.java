@@ -0,0 +1,107 @@
+package dev.profitsoft.intern.task1.rollup;
+
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.TopOffenderStatistic;
+import dev.profitsoft.intern.task1.model.TopOffendersStatistic;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class TopOffendersSketchTest {
+
+    @Test
+    public void visit_exactWhileCountersLast() {
+        TopOffendersSketch sketch = scan(new TopOffendersSketch(10),
+                fine("Ivan", "Ivanov", "100.0"),
+                fine("Leo", "Leonov", "300.0"),
+                fine("Ivan", "Ivanov", "250.5"),
+                "{\"last_name\":\"Tomov\",\"type\":\"SPEEDING\",\"fine_amount\":50}");
+
+        TopOffendersStatistic top = sketch.getTopOffenders(2);
+
+        assertThat(top.getOffenders())
+                .containsExactly(
+                        new TopOffenderStatistic("Ivan", "Ivanov", new BigDecimal("350.50"), new BigDecimal("0.00"), true),
+                        new TopOffenderStatistic("Leo", "Leonov", new BigDecimal("300.00"), new BigDecimal("0.00"), true));
+        assertThat(top.getTotal()).isEqualTo(new BigDecimal("700.50"));
+        assertThat(top.getErrorBound()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(sketch.getTopOffenders(10).getOffenders().get(2).getFirstName()).isNull();
+    }
+
+    @Test
+    public void visit_heavyHittersAmongManyOffenders() {
+        List<String> fines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            fines.add(fine("Name" + i, "Last" + i, "1.0"));
+            if (i % 10 == 0) {
+                fines.add(fine("Heavy", "Hitter", "5.0"));
+            }
+            if (i % 20 == 0) {
+                fines.add(fine("Second", "Hitter", "5.0"));
+            }
+        }
+        TopOffendersSketch sketch = scan(new TopOffendersSketch(100), fines.toArray(new String[0]));
+
+        TopOffendersStatistic top = sketch.getTopOffenders(2);
+
+        assertThat(top.getOffenders())
+                .extracting(TopOffenderStatistic::getFirstName)
+                .containsExactly("Heavy", "Second");
+        assertThat(top.getOffenders())
+                .allMatch(TopOffenderStatistic::isGuaranteed);
+        assertThat(sketch.size()).isEqualTo(100);
+        assertThat(sketch.getErrorBound())
+                .isPositive()
+                .isLessThanOrEqualTo(sketch.getTotalMinorUnits() / 100);
+    }
+
+    @Test
+    public void merge() {
+        TopOffendersSketch left = scan(new TopOffendersSketch(3),
+                fine("Ivan", "Ivanov", "100.0"),
+                fine("Leo", "Leonov", "10.0"));
+        TopOffendersSketch right = scan(new TopOffendersSketch(3),
+                fine("Leo", "Leonov", "20.0"),
+                fine("Tom", "Tomov", "40.0"),
+                fine("Ivan", "Ivanov", "1.0"));
+
+        TopOffendersStatistic top = left.merge(right).getTopOffenders(3);
+
+        assertThat(top.getOffenders())
+                .extracting(TopOffenderStatistic::getLastName, TopOffenderStatistic::getSum)
+                .containsExactly(
+                        tuple("Ivanov", new BigDecimal("101.00")),
+                        tuple("Tomov", new BigDecimal("40.00")),
+                        tuple("Leonov", new BigDecimal("30.00")));
+        assertThat(left.getTotals().getAmount(FineType.SPEEDING)).isEqualTo(new BigDecimal("171.0"));
+    }
+
+    @Test
+    public void withRelativeError() {
+        assertThat(TopOffendersSketch.withRelativeError(0.001).getCapacity()).isEqualTo(1000);
+        assertThatThrownBy(() -> TopOffendersSketch.withRelativeError(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TopOffendersSketch scan(TopOffendersSketch sketch, String... fines) {
+        byte[] bytes = ("{\"fines\":[" + String.join(",", fines) + "]}").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        new FineScanner(buffer, FineScanner.findFinesArrayStart(buffer), buffer.limit()).scan(sketch);
+        return sketch;
+    }
+
+    private static String fine(String firstName, String lastName, String amount) {
+        return String.format("{\"first_name\":\"%s\",\"last_name\":\"%s\",\"type\":\"SPEEDING\",\"fine_amount\":%s}",
+                firstName, lastName, amount);
+    }
+
+}
@@ -0,0 +1,111 @@
+package dev.profitsoft.intern.task1.scan;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FineFileSplitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void split() throws IOException {
+        File file = writeFines(1000);
+
+        List<FineChunk> chunks = FineFileSplitter.split(file, 4096);
+        FinesAccumulator accumulator = new FinesAccumulator();
+        for (FineChunk chunk : chunks) {
+            accumulator.merge(chunk.scan());
+        }
+
+        assertThat(chunks)
+                .hasSizeGreaterThan(1);
+        assertThat(chunks.get(chunks.size() - 1).getEnd())
+                .isEqualTo(file.length());
+        assertThat(accumulator.getTotalCount())
+                .isEqualTo(1000);
+        assertThat(accumulator.getAmount(FineType.SPEEDING))
+                .isEqualTo(FineScanner.scanFile(file).getAmount(FineType.SPEEDING));
+        assertThat(accumulator.getAmount(FineType.RED_LIGHT))
+                .isEqualTo(new BigDecimal("305000.0"));
+    }
+
+    @Test
+    public void split_chunkLargerThanFile() throws IOException {
+        File file = writeFines(10);
+
+        List<FineChunk> chunks = FineFileSplitter.split(file, file.length() * 2);
+
+        assertThat(chunks)
+                .hasSize(1);
+        assertThat(chunks.get(0).scan().getTotalCount())
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void split_emptyArray() throws IOException {
+        File file = tempDir.resolve("empty_fines.json").toFile();
+        Files.writeString(file.toPath(), "{ \"fines\" : [ ] }");
+
+        List<FineChunk> chunks = FineFileSplitter.split(file, 1);
+
+        assertThat(chunks.stream().mapToLong(chunk -> {
+            try {
+                return chunk.scan().getTotalCount();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).sum()).isZero();
+    }
+
+    @Test
+    public void split_boundaryInsideString() throws IOException {
+        File file = tempDir.resolve("names_fines.json").toFile();
+        Files.writeString(file.toPath(), "{\"fines\":["
+                + "{\"first_name\":\"a},{b\",\"type\":\"SPEEDING\",\"fine_amount\":1},"
+                + "{\"first_name\":\"a},{ \\\"b\",\"type\":\"SPEEDING\",\"fine_amount\":2}]}");
+
+        List<FineChunk> chunks = FineFileSplitter.split(file, 1);
+        FinesAccumulator accumulator = new FinesAccumulator();
+        for (FineChunk chunk : chunks) {
+            accumulator.merge(chunk.scan());
+        }
+
+        assertThat(chunks)
+                .hasSize(2);
+        assertThat(accumulator.getCount(FineType.SPEEDING))
+                .isEqualTo(2);
+    }
+
+    private File writeFines(int count) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"fines\" : [ ");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            FineType type = i % 2 == 0 ? FineType.SPEEDING : FineType.RED_LIGHT;
+            json.append("{\n    \"date_time\" : \"2020-01-01 00:00:00\",\n")
+                    .append("    \"first_name\" : \"Ivan\",\n    \"last_name\" : \"Ivanov\",\n")
+                    .append("    \"type\" : \"").append(type).append("\",\n")
+                    .append("    \"fine_amount\" : ").append(type == FineType.SPEEDING ? "340.0" : "610.0")
+                    .append("\n  }");
+        }
+        json.append(" ]\n}");
+
+        File file = tempDir.resolve("2020_fines.json").toFile();
+        Files.writeString(file.toPath(), json);
+        return file;
+    }
+
+}
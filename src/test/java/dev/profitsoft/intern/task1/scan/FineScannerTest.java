@@ -0,0 +1,143 @@
+package dev.profitsoft.intern.task1.scan;
+
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FineScannerTest {
+
+    private static final String FINES = "{\n" +
+            "  \"fines\" : [ {\n" +
+            "    \"date_time\" : \"2019-03-12 10:15:00\",\n" +
+            "    \"first_name\" : \"Ivan\",\n" +
+            "    \"last_name\" : \"Ivanov\",\n" +
+            "    \"type\" : \"SPEEDING\",\n" +
+            "    \"fine_amount\" : 340.0\n" +
+            "  }, {\n" +
+            "    \"date_time\" : \"2019-07-01 23:59:59\",\n" +
+            "    \"first_name\" : \"Tom\",\n" +
+            "    \"last_name\" : \"Tom\\\"ov\",\n" +
+            "    \"type\" : \"ALCOHOL_INTOXICATION\",\n" +
+            "    \"fine_amount\" : 17000.0\n" +
+            "  }, {\n" +
+            "    \"type\" : \"SPEEDING\",\n" +
+            "    \"extra\" : {\"nested\" : [1, \"}\"]},\n" +
+            "    \"fine_amount\" : 0.55\n" +
+            "  } ]\n" +
+            "}";
+
+    @Test
+    public void scan() {
+        FinesAccumulator accumulator = scan(FINES);
+
+        assertThat(accumulator.getAmount(FineType.SPEEDING))
+                .isEqualTo(BigDecimal.valueOf(340.0).add(BigDecimal.valueOf(0.55)));
+        assertThat(accumulator.getAmount(FineType.ALCOHOL_INTOXICATION))
+                .isEqualTo(BigDecimal.valueOf(17000.0));
+        assertThat(accumulator.getCount(FineType.SPEEDING))
+                .isEqualTo(2);
+        assertThat(accumulator.toFines())
+                .hasSize(2);
+    }
+
+    @Test
+    public void scan_exponent() {
+        FinesAccumulator accumulator = scan("{\"fines\":[{\"type\":\"RED_LIGHT\",\"fine_amount\":6.1E2}]}");
+
+        assertThat(accumulator.getAmount(FineType.RED_LIGHT))
+                .isEqualTo(BigDecimal.valueOf(610.0));
+    }
+
+    @Test
+    public void scan_largeExponent() {
+        FinesAccumulator accumulator = scan("{\"fines\":[{\"type\":\"RED_LIGHT\",\"fine_amount\":1e5},"
+                + "{\"type\":\"RED_LIGHT\",\"fine_amount\":2E+6},{\"type\":\"RED_LIGHT\",\"fine_amount\":0e30}]}");
+
+        assertThat(accumulator.getAmount(FineType.RED_LIGHT))
+                .isEqualTo(BigDecimal.valueOf(2_100_000.0));
+        assertThat(accumulator.getCount(FineType.RED_LIGHT))
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void scan_exponentOutOfRange() {
+        assertThatThrownBy(() -> scan("{\"fines\":[{\"type\":\"RED_LIGHT\",\"fine_amount\":1e17}]}"))
+                .isInstanceOf(ArithmeticException.class)
+                .hasMessageEndingWith("is out of range");
+    }
+
+    @Test
+    public void scan_incorrectStart() {
+        assertThatThrownBy(() -> scan("{\"penalties\":[]}"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("File should start like {\"fines\":[");
+    }
+
+    @Test
+    public void scan_unknownType() {
+        assertThatThrownBy(() -> scan("{\"fines\":[{\"type\":\"PARKING\",\"fine_amount\":1.0}]}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unknown fine type 'PARKING'");
+    }
+
+    @Test
+    public void scan_amountWithoutDigits() {
+        for (String amount : new String[]{"-", ".", "-.", "-e5"}) {
+            assertThatThrownBy(() -> scan("{\"fines\":[{\"type\":\"RED_LIGHT\",\"fine_amount\":" + amount + "}]}"))
+                    .as(amount)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageStartingWith("Fine amount is not a fixed-point number");
+        }
+    }
+
+    @Test
+    public void scan_zeroAmounts() {
+        FinesAccumulator accumulator = scan("{\"fines\":[{\"type\":\"RED_LIGHT\",\"fine_amount\":0},"
+                + "{\"type\":\"RED_LIGHT\",\"fine_amount\":-0.0},{\"type\":\"RED_LIGHT\",\"fine_amount\":00.50}]}");
+
+        assertThat(accumulator.getAmount(FineType.RED_LIGHT))
+                .isEqualByComparingTo("0.5");
+        assertThat(accumulator.getCount(FineType.RED_LIGHT))
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void scan_tooPrecise() {
+        assertThatThrownBy(() -> scan("{\"fines\":[{\"type\":\"RED_LIGHT\",\"fine_amount\":1.001}]}"))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void scan_overflow() {
+        String fine = "{\"type\":\"RED_LIGHT\",\"fine_amount\":90000000000000000}";
+
+        assertThatThrownBy(() -> scan("{\"fines\":[" + fine + "," + fine + "]}"))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void epochDay() {
+        assertThat(FineScanner.epochDay(2019, 7, 1))
+                .isEqualTo(LocalDate.of(2019, 7, 1).toEpochDay());
+        assertThat(FineScanner.epochDay(2000, 2, 29))
+                .isEqualTo(LocalDate.of(2000, 2, 29).toEpochDay());
+        assertThat(FineScanner.epochDay(1969, 12, 31))
+                .isEqualTo(-1);
+    }
+
+    private FinesAccumulator scan(String json) {
+        ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        FinesAccumulator accumulator = new FinesAccumulator();
+        new FineScanner(buffer, FineScanner.findFinesArrayStart(buffer), buffer.limit()).scan(accumulator);
+        return accumulator;
+    }
+
+}
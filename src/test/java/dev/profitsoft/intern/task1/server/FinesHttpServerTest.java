@@ -0,0 +1,112 @@
+package dev.profitsoft.intern.task1.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FinesHttpServerTest {
+
+    private static final String FINES_2019 = "{\"fines\":[" +
+            "{\"date_time\":\"2019-08-01 10:00:00\",\"first_name\":\"Ivan\",\"last_name\":\"Petrenko\",\"type\":\"SPEEDING\",\"fine_amount\":340.0}," +
+            "{\"date_time\":\"2019-08-02 10:00:00\",\"first_name\":\"Olena\",\"last_name\":\"Kovalenko\",\"type\":\"RED_LIGHT\",\"fine_amount\":610.0}]}";
+    private static final String FINES_2020 = "{\"fines\":[" +
+            "{\"date_time\":\"2020-01-05 08:00:00\",\"first_name\":\"Ivan\",\"last_name\":\"Petrenko\",\"type\":\"SPEEDING\",\"fine_amount\":510.0}]}";
+
+    @TempDir
+    Path tempDir;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private FinesHttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        Files.writeString(tempDir.resolve("2019_fines.json"), FINES_2019);
+        server = new FinesHttpServer(tempDir.toFile(), 0, 2, 3600);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void totals() throws Exception {
+        assertThat(get("/fines/totals"))
+                .startsWith("{\"version\":1,")
+                .contains("{\"type\":\"SPEEDING\",\"fine_amount\":340.0}")
+                .contains("{\"type\":\"RED_LIGHT\",\"fine_amount\":610.0}");
+    }
+
+    @Test
+    public void byMonth() throws Exception {
+        assertThat(get("/fines/by-month?type=RED_LIGHT&year=2019"))
+                .contains("\"type\":\"RED_LIGHT\",\"year\":2019,\"month\":8,\"count\":1")
+                .doesNotContain("SPEEDING");
+    }
+
+    @Test
+    public void byOffender() throws Exception {
+        assertThat(get("/fines/by-offender?last_name=Petrenko"))
+                .contains("\"first_name\":\"Ivan\",\"last_name\":\"Petrenko\",\"count\":1")
+                .doesNotContain("Kovalenko");
+    }
+
+    @Test
+    public void badRequest() throws Exception {
+        HttpResponse<String> response = send("/fines/by-month?type=FLYING");
+
+        assertThat(response.statusCode())
+                .isEqualTo(400);
+    }
+
+    @Test
+    public void ingest_newFile() throws Exception {
+        FinesSnapshot before = server.getSnapshot();
+        Files.writeString(tempDir.resolve("2020_fines.json"), FINES_2020);
+
+        server.ingest();
+
+        assertThat(before.getFineCount())
+                .isEqualTo(2);
+        assertThat(server.getSnapshot().getFineCount())
+                .isEqualTo(3);
+        assertThat(get("/fines/status"))
+                .contains("\"version\":2")
+                .contains("\"file_count\":2");
+        assertThat(get("/fines/by-offender?last_name=Petrenko"))
+                .contains("\"count\":2,\"sum\":850.0");
+    }
+
+    @Test
+    public void ingest_unchanged() throws Exception {
+        server.ingest();
+
+        assertThat(server.getSnapshot().getVersion())
+                .isEqualTo(1);
+    }
+
+    private String get(String path) throws Exception {
+        HttpResponse<String> response = send(path);
+        assertThat(response.statusCode())
+                .isEqualTo(200);
+        return response.body();
+    }
+
+    private HttpResponse<String> send(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+}
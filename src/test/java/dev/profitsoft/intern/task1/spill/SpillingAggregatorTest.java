@@ -0,0 +1,168 @@
+package dev.profitsoft.intern.task1.spill;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.model.OffenderFineStatistic;
+import dev.profitsoft.intern.task1.rollup.FineRollups;
+import dev.profitsoft.intern.task1.scan.FineChunk;
+import dev.profitsoft.intern.task1.scan.FineFileSplitter;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SpillingAggregatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void aggregate_spillsAndStaysExact() throws IOException {
+        List<FineChunk> chunks = createFineChunks();
+        FineRollups rollups = new FineRollups();
+        for (FineChunk chunk : chunks) {
+            chunk.scan(rollups);
+        }
+
+        File spillDirectory = Files.createDirectory(tempDir.resolve("spill")).toFile();
+        assertThat(groups(chunks, SpillingAggregator.GroupBy.OFFENDER, 64 * 1024 * 1024, spillDirectory))
+                .containsExactlyInAnyOrderElementsOf(rollups.getOffenderStatistic());
+
+        List<OffenderFineStatistic> inMemory = groups(chunks, SpillingAggregator.GroupBy.OFFENDER_DAY,
+                64 * 1024 * 1024, spillDirectory);
+        try (SpillingAggregator aggregator = SpillingAggregator.aggregate(chunks, 2,
+                SpillingAggregator.GroupBy.OFFENDER_DAY, 64 * 1024, spillDirectory)) {
+            List<OffenderFineStatistic> spilled = new ArrayList<>();
+            aggregator.forEachGroup(spilled::add);
+
+            assertThat(aggregator.getSpilledGroupCount()).isPositive();
+            assertThat(spilled).containsExactlyInAnyOrderElementsOf(inMemory);
+        }
+        assertThat(spillDirectory.list()).isEmpty();
+    }
+
+    @Test
+    public void forEachGroup_byDay() {
+        SpillingAggregator aggregator = new SpillingAggregator(SpillingAggregator.GroupBy.OFFENDER_DAY,
+                1024 * 1024, tempDir.toFile());
+        scan(aggregator,
+                fine("2019-03-12 10:15:00", "Ivan", "Ivanov", "340.0"),
+                fine("2019-03-12 23:00:00", "Ivan", "Ivanov", "510.0"),
+                fine("2019-03-13 00:00:00", "Ivan", "Ivanov", "100.0"));
+
+        List<OffenderFineStatistic> groups = new ArrayList<>();
+        aggregator.forEachGroup(groups::add);
+
+        assertThat(groups).containsExactlyInAnyOrder(
+                new OffenderFineStatistic("Ivan", "Ivanov", LocalDate.of(2019, 3, 12), 2,
+                        new BigDecimal("850.0"), new BigDecimal("340.0"), new BigDecimal("510.0")),
+                new OffenderFineStatistic("Ivan", "Ivanov", LocalDate.of(2019, 3, 13), 1,
+                        new BigDecimal("100.0"), new BigDecimal("100.0"), new BigDecimal("100.0")));
+        assertThat(aggregator.hasSpilled()).isFalse();
+    }
+
+    @Test
+    public void forEachGroup_splitsLargePartition() {
+        SpillingAggregator aggregator = new SpillingAggregator(SpillingAggregator.GroupBy.OFFENDER,
+                128 * 1024, tempDir.toFile());
+        List<String> fines = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            fines.add(fine("2020-01-01 00:00:00", "Name" + i, "Last" + i % 3, "1.5"));
+        }
+        scan(aggregator, fines.toArray(new String[0]));
+
+        long[] groupCount = new long[1];
+        aggregator.forEachGroup(group -> {
+            assertThat(group.getCount()).isEqualTo(1);
+            groupCount[0]++;
+        });
+
+        assertThat(groupCount[0]).isEqualTo(200_000);
+        assertThat(tempDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void add_staysWithinBudget() {
+        long budget = 100_000;
+        ByteKeyStatsMap map = new ByteKeyStatsMap(budget);
+        byte[] key = new byte[24];
+        int added = 0;
+        while (map.add(key, key.length, Integer.hashCode(added) * 0x9e3779b9, 1, 1, 1, 1)) {
+            ByteBuffer.wrap(key).putInt(++added);
+            assertThat(map.getMemoryBytes()).isLessThanOrEqualTo(budget);
+        }
+
+        assertThat(map.size()).isEqualTo(added).isPositive();
+        assertThat(map.getMemoryBytes()).isLessThanOrEqualTo(budget);
+    }
+
+    @Test
+    public void spillingAggregator_tooSmallBudget() {
+        assertThatThrownBy(() -> new SpillingAggregator(SpillingAggregator.GroupBy.OFFENDER, 1024, tempDir.toFile()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void visit_staysWithinBudget() {
+        SpillingAggregator aggregator = new SpillingAggregator(SpillingAggregator.GroupBy.OFFENDER,
+                64 * 1024, tempDir.toFile());
+        for (int i = 0; i < 5000; i++) {
+            scan(aggregator, fine("2020-01-01 00:00:00", "Name" + i, "Last", "1.5"));
+            assertThat(aggregator.getMemoryBytes()).isLessThanOrEqualTo(64 * 1024);
+        }
+
+        assertThat(aggregator.hasSpilled()).isTrue();
+        aggregator.close();
+    }
+
+    private static List<OffenderFineStatistic> groups(List<FineChunk> chunks, SpillingAggregator.GroupBy groupBy,
+                                                      long memoryBudgetBytes, File spillDirectory) {
+        try (SpillingAggregator aggregator = SpillingAggregator.aggregate(chunks, 2, groupBy, memoryBudgetBytes,
+                spillDirectory)) {
+            List<OffenderFineStatistic> groups = new ArrayList<>();
+            aggregator.forEachGroup(groups::add);
+            assertThat(aggregator.getSpilledGroupCount()).isZero();
+            return groups;
+        }
+    }
+
+    private List<FineChunk> createFineChunks() throws IOException {
+        List<File> fineFiles = FinesGenerator.createFineFiles(FinesGeneratorConfig.builder()
+                .directory(tempDir.resolve("fines").toFile())
+                .seed(21)
+                .fileCount(3)
+                .finesPerFile(5000)
+                .build());
+        List<FineChunk> chunks = new ArrayList<>();
+        for (File fineFile : fineFiles) {
+            chunks.addAll(FineFileSplitter.split(fineFile, 64 * 1024));
+        }
+        return chunks;
+    }
+
+    private static void scan(SpillingAggregator aggregator, String... fines) {
+        byte[] bytes = ("{\"fines\":[" + String.join(",", fines) + "]}").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        new FineScanner(buffer,
+                FineScanner.findFinesArrayStart(buffer), buffer.limit()).scan(aggregator);
+    }
+
+    private static String fine(String dateTime, String firstName, String lastName, String amount) {
+        return String.format("{\"date_time\":\"%s\",\"first_name\":\"%s\",\"last_name\":\"%s\",\"type\":\"SPEEDING\",\"fine_amount\":%s}",
+                dateTime, firstName, lastName, amount);
+    }
+
+}
@@ -0,0 +1,123 @@
+package dev.profitsoft.intern.task1.store;
+
+import dev.profitsoft.intern.task1.FinesGenerator;
+import dev.profitsoft.intern.task1.FinesGeneratorConfig;
+import dev.profitsoft.intern.task1.aggregate.FinesAccumulator;
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.query.FineQuery;
+import dev.profitsoft.intern.task1.query.FineQueryEngine;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OffHeapFineStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<File> fineFiles;
+
+    @BeforeEach
+    public void createFineFiles() throws IOException {
+        fineFiles = FinesGenerator.createFineFiles(FinesGeneratorConfig.builder()
+                .directory(tempDir.toFile())
+                .seed(21)
+                .fileCount(4)
+                .finesPerFile(5_000)
+                .years(4)
+                .build());
+    }
+
+    @Test
+    public void aggregate_all() throws IOException {
+        FinesAccumulator expected = new FinesAccumulator();
+        for (File fineFile : fineFiles) {
+            expected.merge(FineScanner.scanFile(fineFile));
+        }
+
+        try (OffHeapFineStore store = OffHeapFineStore.load(fineFiles, 2)) {
+            assertThat(store.aggregate(FineQuery.builder().build()).toFines())
+                    .isEqualTo(expected.toFines());
+            assertThat(store.getSize())
+                    .isEqualTo(20_000);
+            assertThat(store.getOffHeapBytes())
+                    .isEqualTo(20_000 * 25);
+        }
+    }
+
+    @Test
+    public void aggregate_filtered() {
+        FineQuery query = FineQuery.builder()
+                .from(LocalDateTime.of(2001, 3, 1, 0, 0))
+                .to(LocalDateTime.of(2002, 6, 1, 0, 0))
+                .types(Set.of(FineType.SPEEDING, FineType.RED_LIGHT))
+                .build();
+
+        try (OffHeapFineStore store = OffHeapFineStore.load(fineFiles, 2)) {
+            assertThat(store.aggregate(query).toFines())
+                    .isEqualTo(FineQueryEngine.query(fineFiles, query, 2).getStatistic().toFines())
+                    .isNotEmpty();
+        }
+    }
+
+    @Test
+    public void aggregate_byName() throws IOException {
+        String json = Files.readString(fineFiles.get(0).toPath());
+        int start = json.indexOf("\"last_name\" : \"") + "\"last_name\" : \"".length();
+        String lastName = json.substring(start, json.indexOf('"', start));
+        FineQuery query = FineQuery.builder().lastName(lastName).build();
+
+        try (OffHeapFineStore store = OffHeapFineStore.load(fineFiles, 2)) {
+            assertThat(store.aggregate(query).toFines())
+                    .isEqualTo(FineQueryEngine.query(fineFiles, query, 2).getStatistic().toFines())
+                    .isNotEmpty();
+            assertThat(store.aggregate(FineQuery.builder().lastName("Nobody").build()).getTotalCount())
+                    .isZero();
+        }
+    }
+
+    @Test
+    public void aggregate_dateRangeSkipsFinesWithoutDate() throws IOException {
+        File fineFile = tempDir.resolve("dates_fines.json").toFile();
+        Files.writeString(fineFile.toPath(), "{\"fines\":["
+                + "{\"type\":\"INCORRECT_PARKING\",\"fine_amount\":100.00,\"date_time\":\"2020-01-01 10:00:00\"},"
+                + "{\"type\":\"INCORRECT_PARKING\",\"fine_amount\":200.00}]}");
+        FineQuery query = FineQuery.builder().to(LocalDateTime.of(2021, 1, 1, 0, 0)).build();
+
+        try (OffHeapFineStore store = OffHeapFineStore.load(List.of(fineFile), 1)) {
+            assertThat(store.aggregate(query).getCount(FineType.INCORRECT_PARKING))
+                    .isEqualTo(1);
+            assertThat(store.aggregate(FineQuery.builder().build()).getCount(FineType.INCORRECT_PARKING))
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void aggregate_overflow() throws IOException {
+        StringBuilder json = new StringBuilder("{\"fines\":[");
+        for (int i = 0; i < 11; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"type\":\"SPEEDING\",\"fine_amount\":9000000000000000.00}");
+        }
+        File fineFile = tempDir.resolve("huge_fines.json").toFile();
+        Files.writeString(fineFile.toPath(), json.append("]}"));
+
+        try (OffHeapFineStore store = OffHeapFineStore.load(List.of(fineFile), 1)) {
+            assertThatThrownBy(() -> store.aggregate(FineQuery.builder().build()))
+                    .isInstanceOf(ArithmeticException.class)
+                    .hasStackTraceContaining("overflows for type SPEEDING");
+        }
+    }
+
+}
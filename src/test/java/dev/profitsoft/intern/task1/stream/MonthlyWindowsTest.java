@@ -0,0 +1,88 @@
+package dev.profitsoft.intern.task1.stream;
+
+import dev.profitsoft.intern.task1.model.FineType;
+import dev.profitsoft.intern.task1.model.MonthlyFineStatistic;
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MonthlyWindowsTest {
+
+    private final List<List<MonthlyFineStatistic>> closed = new ArrayList<>();
+
+    @Test
+    public void visit_closesWindowWhenWatermarkPassesIt() {
+        MonthlyWindows windows = new MonthlyWindows(0, closed::add);
+
+        scan(windows, fine("2019-01-10 10:00:00", "SPEEDING", "100.5"),
+                fine("2019-01-20 10:00:00", "SPEEDING", "50"),
+                fine("2019-01-31 23:59:59", "INCORRECT_PARKING", "20"));
+        assertThat(closed).isEmpty();
+        assertThat(windows.getOpenWindows()).hasSize(2);
+
+        scan(windows, fine("2019-02-01 00:00:00", "SPEEDING", "10"));
+
+        assertThat(closed).hasSize(1);
+        assertThat(closed.get(0))
+                .containsExactly(
+                        new MonthlyFineStatistic(FineType.SPEEDING, 2019, 1, 2,
+                                new BigDecimal("150.5"), new BigDecimal("50.0"), new BigDecimal("100.5")),
+                        new MonthlyFineStatistic(FineType.INCORRECT_PARKING, 2019, 1, 1,
+                                new BigDecimal("20.0"), new BigDecimal("20.0"), new BigDecimal("20.0")));
+        assertThat(windows.getOpenWindows())
+                .extracting(MonthlyFineStatistic::getMonth)
+                .containsExactly(2);
+    }
+
+    @Test
+    public void visit_lateFine() {
+        MonthlyWindows windows = new MonthlyWindows(24 * 60 * 60, closed::add);
+
+        scan(windows, fine("2019-01-31 12:00:00", "SPEEDING", "1"),
+                fine("2019-02-01 06:00:00", "SPEEDING", "1"),
+                fine("2019-01-31 20:00:00", "SPEEDING", "1"));
+        assertThat(closed).isEmpty();
+
+        scan(windows, fine("2019-02-02 07:00:00", "SPEEDING", "1"),
+                fine("2019-01-31 21:00:00", "SPEEDING", "1"));
+
+        assertThat(closed).hasSize(1);
+        assertThat(closed.get(0).get(0).getCount()).isEqualTo(2);
+        assertThat(windows.getAcceptedCount()).isEqualTo(4);
+        assertThat(windows.getLateCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void flush() {
+        MonthlyWindows windows = new MonthlyWindows(0, closed::add);
+
+        scan(windows, fine("2019-03-01 10:00:00", "SPEEDING", "1"),
+                fine("2019-04-01 10:00:00", "SPEEDING", "1"),
+                "{\"type\":\"SPEEDING\",\"fine_amount\":1}");
+        windows.flush();
+
+        assertThat(closed)
+                .extracting(window -> window.get(0).getMonth())
+                .containsExactly(3, 4);
+        assertThat(windows.getOpenWindows()).isEmpty();
+        assertThat(windows.getSkippedCount()).isEqualTo(1);
+    }
+
+    private static void scan(MonthlyWindows windows, String... lines) {
+        byte[] bytes = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        new FineScanner(ByteBuffer.wrap(bytes), 0, bytes.length).scan(windows);
+    }
+
+    private static String fine(String dateTime, String type, String amount) {
+        return "{\"date_time\":\"" + dateTime + "\",\"first_name\":\"Ivan\",\"last_name\":\"Petrenko\","
+                + "\"type\":\"" + type + "\",\"fine_amount\":" + amount + "}";
+    }
+
+}
@@ -0,0 +1,137 @@
+package dev.profitsoft.intern.task1.stream;
+
+import dev.profitsoft.intern.task1.scan.FineScanner;
+import dev.profitsoft.intern.task1.scan.FineVisitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NdjsonTailerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Long> amounts = new ArrayList<>();
+
+    @Test
+    public void poll_waitsForCompleteLine() throws IOException {
+        Path file = tempDir.resolve("fines.ndjson");
+        try (NdjsonTailer tailer = new NdjsonTailer(file.toFile(), this::visit, 1024)) {
+            assertThat(tailer.poll()).isZero();
+
+            append(file, fine(1) + "\n" + fine(2).substring(0, 10));
+            assertThat(tailer.poll()).isEqualTo(1);
+            assertThat(amounts).containsExactly(100L);
+
+            append(file, fine(2).substring(10) + "\n\n" + fine(3) + "\n");
+            assertThat(tailer.poll()).isEqualTo(2);
+            assertThat(amounts).containsExactly(100L, 200L, 300L);
+            assertThat(tailer.getLineCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void poll_rejectsMalformedLine() throws IOException {
+        Path file = tempDir.resolve("fines.ndjson");
+        append(file, fine(1) + "\n{\"type\":\"PARKING\",\"fine_amount\":1}\n" + fine(2) + "\n");
+
+        try (NdjsonTailer tailer = new NdjsonTailer(file.toFile(), this::visit, 1024)) {
+            assertThat(tailer.poll()).isEqualTo(3);
+            assertThat(amounts).containsExactly(100L, 200L);
+            assertThat(tailer.getRejectedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void poll_rejectsAmountOutOfRange() throws IOException {
+        Path file = tempDir.resolve("fines.ndjson");
+        append(file, fine(1) + "\n{\"type\":\"SPEEDING\",\"fine_amount\":1.234}\n"
+                + "{\"type\":\"SPEEDING\",\"fine_amount\":99999999999999999999}\n");
+
+        try (NdjsonTailer tailer = new NdjsonTailer(file.toFile(), this::visit, 1024)) {
+            assertThat(tailer.poll()).isEqualTo(3);
+            assertThat(tailer.getRejectedCount()).isEqualTo(2);
+
+            append(file, fine(2) + "\n");
+            assertThat(tailer.poll()).isEqualTo(1);
+            assertThat(tailer.poll()).isZero();
+            assertThat(amounts).containsExactly(100L, 200L);
+        }
+    }
+
+    @Test
+    public void poll_propagatesVisitorFailure() throws IOException {
+        Path file = tempDir.resolve("fines.ndjson");
+        append(file, fine(1) + "\n" + fine(2) + "\n" + fine(3) + "\n");
+
+        FineVisitor failingOnSecond = fine -> {
+            if (fine.getMinorUnits() == 200L) {
+                throw new IllegalStateException("listener failed");
+            }
+            visit(fine);
+        };
+        try (NdjsonTailer tailer = new NdjsonTailer(file.toFile(), failingOnSecond, 1024)) {
+            assertThatThrownBy(tailer::poll).isInstanceOf(IllegalStateException.class).hasMessage("listener failed");
+            assertThat(tailer.getRejectedCount()).isZero();
+
+            assertThat(tailer.poll()).isEqualTo(1);
+            assertThat(amounts).containsExactly(100L, 300L);
+            assertThat(tailer.getLineCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void poll_followsRotation() throws IOException {
+        Path file = tempDir.resolve("fines.ndjson");
+        append(file, fine(1) + "\n");
+
+        try (NdjsonTailer tailer = new NdjsonTailer(file.toFile(), this::visit, 1024)) {
+            tailer.poll();
+            append(file, fine(2) + "\n");
+            Files.move(file, tempDir.resolve("fines.ndjson.1"));
+            assertThat(tailer.poll()).isEqualTo(1);
+
+            append(file, fine(3) + "\n");
+            assertThat(tailer.poll()).isEqualTo(1);
+            assertThat(amounts).containsExactly(100L, 200L, 300L);
+            assertThat(tailer.getRotationCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void poll_restartsAfterTruncation() throws IOException {
+        Path file = tempDir.resolve("fines.ndjson");
+        append(file, fine(1) + "\n" + fine(2) + "\n");
+
+        try (NdjsonTailer tailer = new NdjsonTailer(file.toFile(), this::visit, 1024)) {
+            tailer.poll();
+            Files.write(file, (fine(3) + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            assertThat(tailer.poll()).isEqualTo(1);
+            assertThat(amounts).containsExactly(100L, 200L, 300L);
+        }
+    }
+
+    private void visit(FineScanner fine) {
+        amounts.add(fine.getMinorUnits());
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String fine(int amount) {
+        return "{\"date_time\":\"2019-01-0" + amount + " 10:00:00\",\"type\":\"SPEEDING\",\"fine_amount\":" + amount + "}";
+    }
+
+}
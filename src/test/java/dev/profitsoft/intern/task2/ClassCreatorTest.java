@@ -11,6 +11,7 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -123,4 +124,52 @@ public class ClassCreatorTest {
                 .isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void fromProperties_reusesPlan() {
+        Properties properties = new Properties();
+        properties.setProperty("stringProperty", "first");
+        properties.setProperty("numberProperty", "1");
+        properties.setProperty("timeProperty", "01.01.2023 00:00");
+        properties.setProperty("prefix.anotherStr", "another");
+        properties.setProperty("timeAnother", "01.01.2023 00:00:01");
+
+        Model first = ClassCreator.fromProperties(Model.class, properties);
+        properties.setProperty("stringProperty", "second");
+        properties.setProperty("integerNumber", "7");
+        Model second = ClassCreator.fromProperties(Model.class, properties);
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.getStringProperty())
+                .isEqualTo("first");
+        assertThat(first.getIntegerNumber())
+                .isNull();
+        assertThat(second.getStringProperty())
+                .isEqualTo("second");
+        assertThat(second.getIntegerNumber())
+                .isEqualTo(7);
+        assertThat(second.getTime())
+                .isEqualTo(createInstant("01.01.2023 00:00:01", "dd.MM.yyyy HH:mm:ss"));
+    }
+
+    @Test
+    public void fromProperties_incorrectInt() {
+        Properties properties = new Properties();
+        properties.setProperty("numberProperty", "ten");
+
+        assertThatThrownBy(() -> ClassCreator.fromProperties(Model.class, properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Property 'numberProperty' with value 'ten' can't parse to int");
+    }
+
+    @Test
+    public void fromProperties_incorrectInstant() {
+        Properties properties = new Properties();
+        properties.setProperty("numberProperty", "10");
+        properties.setProperty("timeProperty", "2022-11-29");
+
+        assertThatThrownBy(() -> ClassCreator.fromProperties(Model.class, properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Property 'timeProperty' with value '2022-11-29' can't parse with pattern 'dd.MM.yyyy HH:mm'");
+    }
+
+}
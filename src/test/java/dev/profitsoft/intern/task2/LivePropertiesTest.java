@@ -0,0 +1,167 @@
+package dev.profitsoft.intern.task2;
+
+import dev.profitsoft.intern.task2.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LivePropertiesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void watchProperties_reloadsChangedFile() throws IOException, InterruptedException {
+        Path file = writeProperties("first", "10");
+
+        try (LiveProperties<Model> live = ClassCreator.watchProperties(Model.class, file, 50, e -> { })) {
+            Model first = live.get();
+            replaceProperties(file, "second", "20");
+
+            awaitTrue(() -> "second".equals(live.get().getStringProperty()));
+            assertThat(live.get().getMyNumber())
+                    .isEqualTo(20);
+            assertThat(first.getStringProperty())
+                    .isEqualTo("first");
+            assertThat(live.getReloadCount())
+                    .isGreaterThanOrEqualTo(1);
+        }
+    }
+
+    @Test
+    public void watchProperties_failedReloadKeepsSnapshot() throws IOException, InterruptedException {
+        Path file = writeProperties("first", "10");
+        List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+
+        try (LiveProperties<Model> live = ClassCreator.watchProperties(Model.class, file, 50, errors::add)) {
+            Model first = live.get();
+            replaceProperties(file, "second", "ten");
+
+            awaitTrue(() -> live.getFailureCount() > 0);
+            assertThat(live.get())
+                    .isSameAs(first);
+            assertThat(live.getLastError())
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Property 'numberProperty' with value 'ten' can't parse to int");
+            assertThat(errors)
+                    .containsExactly(live.getLastError());
+
+            replaceProperties(file, "third", "30");
+            awaitTrue(() -> "third".equals(live.get().getStringProperty()));
+            assertThat(live.getLastError())
+                    .isNull();
+        }
+    }
+
+    @Test
+    public void watchProperties_failingErrorHandlerKeepsWatching() throws IOException, InterruptedException {
+        Path file = writeProperties("first", "10");
+
+        try (LiveProperties<Model> live = ClassCreator.watchProperties(Model.class, file, 50, e -> {
+            throw new IllegalStateException("handler failed");
+        })) {
+            replaceProperties(file, "second", "ten");
+            awaitTrue(() -> live.getFailureCount() > 0);
+
+            replaceProperties(file, "third", "30");
+            awaitTrue(() -> "third".equals(live.get().getStringProperty()));
+        }
+    }
+
+    @Test
+    public void watchProperties_otherFilesDontPostponeReload() throws IOException, InterruptedException {
+        Path file = writeProperties("first", "10");
+        Path other = tempDir.resolve("other.log");
+
+        try (LiveProperties<Model> live = ClassCreator.watchProperties(Model.class, file, 200, e -> { })) {
+            replaceProperties(file, "second", "20");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!"second".equals(live.get().getStringProperty())) {
+                assertThat(System.currentTimeMillis())
+                        .as("reload was postponed by other files")
+                        .isLessThan(deadline);
+                Files.writeString(other, "line\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    @Test
+    public void start_picksUpChangeBeforeWatching() throws IOException {
+        Path file = writeProperties("first", "10");
+
+        try (LiveProperties<Model> live = new LiveProperties<>(Model.class, file, 50, e -> { })) {
+            replaceProperties(file, "second", "20");
+            live.start();
+
+            assertThat(live.get().getStringProperty())
+                    .isEqualTo("second");
+        }
+    }
+
+    @Test
+    public void reload_withoutWatching() throws IOException {
+        Path file = writeProperties("first", "10");
+
+        try (LiveProperties<Model> live = new LiveProperties<>(Model.class, file, 50, e -> { })) {
+            replaceProperties(file, "second", "20");
+
+            assertThat(live.get().getStringProperty())
+                    .isEqualTo("first");
+            assertThat(live.reload())
+                    .isTrue();
+            assertThat(live.get().getStringProperty())
+                    .isEqualTo("second");
+        }
+    }
+
+    @Test
+    public void liveProperties_brokenInitialFile() throws IOException {
+        Path file = writeProperties("first", "ten");
+
+        assertThatThrownBy(() -> new LiveProperties<>(Model.class, file, 50, e -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Path writeProperties(String stringProperty, String number) throws IOException {
+        Path file = tempDir.resolve("live.properties");
+        Files.writeString(file, propertiesText(stringProperty, number));
+        return file;
+    }
+
+    private void replaceProperties(Path file, String stringProperty, String number) throws IOException {
+        Path temp = Files.writeString(tempDir.resolve("live.properties.tmp"), propertiesText(stringProperty, number));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String propertiesText(String stringProperty, String number) {
+        return "stringProperty=" + stringProperty + "\n"
+                + "numberProperty=" + number + "\n"
+                + "timeProperty=29.11.2022 18:30\n"
+                + "prefix.anotherStr=anotherValue\n"
+                + "timeAnother=10.08.2022 12:20:13\n";
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis())
+                    .as("condition was not met in time")
+                    .isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package dev.profitsoft.intern.task2;
+
+import dev.profitsoft.intern.task2.annotation.Property;
+import dev.profitsoft.intern.task2.exception.PropertyNotFoundException;
+import dev.profitsoft.intern.task2.model.Model;
+import dev.profitsoft.intern.task2.model.Model2;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PropertyBinderProcessorTest {
+
+    @Test
+    public void of_generatedBinder() {
+        assertThat(PropertyBinders.of(Model.class).getClass().getName())
+                .isEqualTo("dev.profitsoft.intern.task2.model.Model_PropertyBinder");
+    }
+
+    @Test
+    public void of_fallbackToReflection() {
+        assertThat(PropertyBinders.of(NoSetter.class))
+                .isInstanceOf(BindingPlan.class);
+
+        Properties properties = new Properties();
+        properties.setProperty("name", "value");
+        assertThat(ClassCreator.fromProperties(NoSetter.class, properties).value)
+                .isEqualTo("value");
+    }
+
+    @Test
+    public void bind_sameAsReflection() {
+        Properties properties = createProperties();
+
+        Model generated = PropertyBinders.of(Model.class).bind(properties);
+        Object reflective = new BindingPlan(Model.class).bind(properties);
+
+        assertThat(generated).isEqualTo(reflective);
+        assertThat(generated.getIntegerNumber())
+                .isEqualTo(1024);
+        assertThat(generated.getSkipString())
+                .isNull();
+    }
+
+    @Test
+    public void bind_sameErrors() {
+        Properties properties = createProperties();
+        properties.setProperty("numberProperty", "ten");
+
+        assertThatThrownBy(() -> PropertyBinders.of(Model.class).bind(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Property 'numberProperty' with value 'ten' can't parse to int");
+        assertThatThrownBy(() -> new BindingPlan(Model.class).bind(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Property 'numberProperty' with value 'ten' can't parse to int");
+        assertThatThrownBy(() -> PropertyBinders.of(Model2.class).bind(properties))
+                .isInstanceOf(PropertyNotFoundException.class)
+                .hasMessage("Property 'name' not found in properties file for field 'strProperty'");
+    }
+
+    @Test
+    public void processor_skipsLombokConstructorsWithArguments() {
+        assertThat(hasGeneratedBinder(AllArgs.class))
+                .isFalse();
+        assertThat(hasGeneratedBinder(PrivateNoArgs.class))
+                .isFalse();
+        assertThat(hasGeneratedBinder(RequiredArgs.class))
+                .isFalse();
+        assertThat(hasGeneratedBinder(AllAndNoArgs.class))
+                .isTrue();
+    }
+
+    @Test
+    public void processor_skipsHandWrittenSetter() {
+        assertThat(hasGeneratedBinder(HandWrittenSetter.class))
+                .isFalse();
+
+        Properties properties = new Properties();
+        properties.setProperty("name", "value");
+        assertThat(ClassCreator.fromProperties(HandWrittenSetter.class, properties).value)
+                .isEqualTo("value");
+    }
+
+    @Test
+    public void processor_usesLombokSetter() {
+        assertThat(hasGeneratedBinder(PackageSetter.class))
+                .isTrue();
+        assertThat(hasGeneratedBinder(PrivateSetter.class))
+                .isFalse();
+    }
+
+    private static boolean hasGeneratedBinder(Class<?> clazz) {
+        try {
+            Class.forName(PropertyBinders.binderName(clazz.getPackageName(), clazz.getName()));
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private Properties createProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("stringProperty", "value1");
+        properties.setProperty("numberProperty", "10");
+        properties.setProperty("integerNumber", "1024");
+        properties.setProperty("timeProperty", "29.11.2022 18:30");
+        properties.setProperty("prefix.anotherStr", "anotherValue");
+        properties.setProperty("timeAnother", "10.08.2022 12:20:13");
+        return properties;
+    }
+
+    static class NoSetter {
+
+        @Property(name = "name")
+        private String value;
+
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class AllArgs {
+
+        @Property(name = "name")
+        private String value;
+
+    }
+
+    @Data
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    static class PrivateNoArgs {
+
+        @Property(name = "name")
+        private String value;
+
+    }
+
+    @Data
+    static class RequiredArgs {
+
+        private final String id;
+
+        @Property(name = "name")
+        private String value;
+
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class AllAndNoArgs {
+
+        @Property(name = "name")
+        private String value;
+
+    }
+
+    static class HandWrittenSetter {
+
+        @Property(name = "name")
+        private String value;
+
+        void setValue(String value) {
+            throw new IllegalStateException("Setter should not be called");
+        }
+
+    }
+
+    static class PackageSetter {
+
+        @Setter(AccessLevel.PACKAGE)
+        @Property(name = "name")
+        private String value;
+
+    }
+
+    @Setter
+    static class PrivateSetter {
+
+        @Setter(AccessLevel.PRIVATE)
+        @Property(name = "name")
+        private String value;
+
+    }
+
+}